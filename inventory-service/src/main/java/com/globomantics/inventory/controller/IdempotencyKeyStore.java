@@ -0,0 +1,128 @@
+package com.globomantics.inventory.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses to requests that carried an Idempotency-Key header, so that a client can retry a request
+ * without it being applied twice. A replay of a completed request returns the original response, and a duplicate
+ * that arrives while the original is still in flight waits for it instead of making its own upstream call.
+ *
+ * Server errors are not remembered, so that a request that failed can be retried with the same key. Each key is kept
+ * for inventory.idempotency.time-to-live; beyond inventory.idempotency.max-keys keys the oldest completed key is
+ * dropped as each new key is stored, so a full store forgets its oldest keys early instead of rejecting requests.
+ */
+@Component
+public class IdempotencyKeyStore {
+
+  /**
+   * The header on a replayed response, so that clients can tell a replay from a new response.
+   */
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  /**
+   * The stored responses in the order their keys were first seen, which is also the order in which they expire.
+   */
+  private final Map<String, StoredResponse> responses;
+
+  private final long timeToLiveNanos;
+
+  public IdempotencyKeyStore(@Value("${inventory.idempotency.max-keys:100000}") int maxSize,
+                             @Value("${inventory.idempotency.time-to-live:PT24H}") Duration timeToLive) {
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.responses = Collections.synchronizedMap(new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+        // A key whose request is still in flight is kept, so that its duplicates are still collapsed
+        return (size() > maxSize || eldest.getValue().isExpired()) && eldest.getValue().response.isDone();
+      }
+    });
+  }
+
+  /**
+   * Handles a request with an idempotency key.
+   *
+   * @param key       The idempotency key sent by the client.
+   * @param request   The request body, which must be the same for every request with the same key.
+   * @param handler   Handles the request the first time the key is seen.
+   * @return          The response to the first request with the key, or 422 Unprocessable Entity if the key was
+   *                  used for a different request.
+   */
+  public ResponseEntity<?> execute(String key, Object request, Supplier<ResponseEntity<?>> handler) {
+    StoredResponse stored = responses.get(key);
+    if (stored != null && stored.isExpired()) {
+      responses.remove(key, stored);
+      stored = null;
+    }
+
+    if (stored == null) {
+      StoredResponse created = new StoredResponse(request, System.nanoTime() + timeToLiveNanos);
+      stored = responses.putIfAbsent(key, created);
+      if (stored == null) {
+        return handle(key, created, handler);
+      }
+    }
+
+    if (!stored.request.equals(request)) {
+      return ResponseEntity.unprocessableEntity().build();
+    }
+
+    ResponseEntity<?> response;
+    try {
+      response = stored.response.join();
+    } catch (CompletionException e) {
+      // The original request failed; its duplicates fail the same way and the client retries
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+    return ResponseEntity.status(response.getStatusCode())
+        .headers(response.getHeaders())
+        .header(REPLAYED_HEADER, "true")
+        .body(response.getBody());
+  }
+
+  private ResponseEntity<?> handle(String key, StoredResponse stored, Supplier<ResponseEntity<?>> handler) {
+    ResponseEntity<?> response;
+    try {
+      response = handler.get();
+    } catch (RuntimeException e) {
+      responses.remove(key, stored);
+      stored.response.completeExceptionally(e);
+      throw e;
+    }
+
+    if (response.getStatusCode().is5xxServerError()) {
+      responses.remove(key, stored);
+    }
+    stored.response.complete(response);
+    return response;
+  }
+
+  /**
+   * The request made with a key, its response once it completes, and the time, in System.nanoTime() units, at which
+   * the key expires.
+   */
+  private static final class StoredResponse {
+    private final Object request;
+    private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+    private final long expiresAt;
+
+    private StoredResponse(Object request, long expiresAt) {
+      this.request = request;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired() {
+      // A key is kept while its request is in flight, so that concurrent duplicates are still collapsed
+      return response.isDone() && System.nanoTime() - expiresAt > 0;
+    }
+  }
+}
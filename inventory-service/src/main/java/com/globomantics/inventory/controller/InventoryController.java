@@ -1,14 +1,24 @@
 package com.globomantics.inventory.controller;
 
+import com.globomantics.inventory.ledger.LedgerEntry;
+import com.globomantics.inventory.ledger.PurchaseLedger;
+import com.globomantics.inventory.ledger.RejectedPurchases;
+import com.globomantics.inventory.model.InventoryRecord;
 import com.globomantics.inventory.model.PurchaseRecord;
+import com.globomantics.inventory.model.RejectedPurchase;
 import com.globomantics.inventory.service.InventoryService;
+import com.globomantics.inventory.service.InventoryServiceImpl;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @Slf4j
@@ -17,45 +27,125 @@ public class InventoryController {
 
   public static final String REQUEST_MAPPING = "/inventory";
 
+  private static final ResourceHeaders HEADERS = new ResourceHeaders(REQUEST_MAPPING);
+
   private final InventoryService inventoryService;
 
-  public InventoryController(InventoryService inventoryService) {
+  /**
+   * The purchase ledger, when inventory.ledger.enabled is true; purchases are then recorded locally and sent to the
+   * Inventory Manager in the background.
+   */
+  private final PurchaseLedger purchaseLedger;
+
+  /**
+   * The ledgered purchases that the Inventory Manager rejected, when inventory.ledger.enabled is true.
+   */
+  private final RejectedPurchases rejectedPurchases;
+
+  private final IdempotencyKeyStore idempotencyKeys;
+
+  public InventoryController(InventoryService inventoryService,
+                             ObjectProvider<PurchaseLedger> purchaseLedger,
+                             ObjectProvider<RejectedPurchases> rejectedPurchases,
+                             IdempotencyKeyStore idempotencyKeys) {
     this.inventoryService = inventoryService;
+    this.purchaseLedger = purchaseLedger.getIfAvailable();
+    this.rejectedPurchases = rejectedPurchases.getIfAvailable();
+    this.idempotencyKeys = idempotencyKeys;
   }
 
+  /**
+   * Returns the inventory record of the specified product. Inventory records have no version, so the record is
+   * returned with a weak ETag hashed from its fields, and 304 Not Modified if it matches the If-None-Match header.
+   */
   @GetMapping("/{id}")
-  public ResponseEntity<?> getInventoryRecord(@PathVariable Integer id) {
+  public ResponseEntity<?> getInventoryRecord(@PathVariable Integer id,
+                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
 
     return inventoryService.getInventoryRecord(id)
         .map(inventoryRecord -> {
-          try {
-            return ResponseEntity
-                .ok()
-                .location(new URI(REQUEST_MAPPING +"/" + inventoryRecord.getProductId()))
-                .body(inventoryRecord);
-          } catch (URISyntaxException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+          String eTag = ConditionalRequests.weakETag(Collections.singletonList(inventoryRecord),
+              InventoryController::hashFields);
+          if (ConditionalRequests.notModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, eTag).build();
           }
+          return ResponseEntity
+              .ok()
+              .header(HttpHeaders.LOCATION, HEADERS.location(inventoryRecord.getProductId()))
+              .header(HttpHeaders.ETAG, eTag)
+              .body(inventoryRecord);
         })
         .orElse(ResponseEntity.notFound().build());
   }
 
   @PostMapping("/purchase-record")
-  public ResponseEntity<?> addPurchaseRecord(@RequestBody PurchaseRecord purchaseRecord) {
+  public ResponseEntity<?> addPurchaseRecord(@RequestBody PurchaseRecord purchaseRecord,
+                                             @RequestHeader(name = InventoryServiceImpl.IDEMPOTENCY_KEY_HEADER,
+                                                 required = false) String idempotencyKey) {
     log.info("Creating new purchase record: {}", purchaseRecord);
 
-    return inventoryService.purchaseProduct(purchaseRecord.getProductId(), purchaseRecord.getQuantityPurchased())
-        .map(inventoryRecord -> {
-          try {
-            return ResponseEntity
-                .ok()
-                .location(new URI(REQUEST_MAPPING + "/" + inventoryRecord.getProductId()))
-                .body(inventoryRecord);
-          } catch (URISyntaxException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-          }
-        })
+    if (idempotencyKey == null) {
+      return purchase(purchaseRecord, null);
+    }
+    return idempotencyKeys.execute(idempotencyKey, purchaseRecord, () -> purchase(purchaseRecord, idempotencyKey));
+  }
+
+  /**
+   * Returns the recent purchases that were answered with 202 Accepted but then rejected by the Inventory Manager,
+   * oldest first. The list is empty when the purchase ledger is disabled.
+   */
+  @GetMapping("/purchase-record/rejected")
+  public List<RejectedPurchase> getRejectedPurchases() {
+    return rejectedPurchases == null ? Collections.emptyList() : rejectedPurchases.list();
+  }
+
+  /**
+   * Returns the rejection of the purchase that was accepted with the specified idempotency key, or 404 Not Found if
+   * that purchase has not been rejected.
+   */
+  @GetMapping("/purchase-record/rejected/{idempotencyKey}")
+  public ResponseEntity<RejectedPurchase> getRejectedPurchase(@PathVariable UUID idempotencyKey) {
+    if (rejectedPurchases == null) {
+      return ResponseEntity.notFound().build();
+    }
+    return rejectedPurchases.get(idempotencyKey)
+        .map(ResponseEntity::ok)
+        .orElse(ResponseEntity.notFound().build());
+  }
+
+  /**
+   * Records the purchase in the purchase ledger, if it is enabled, or sends it to the Inventory Manager.
+   */
+  private ResponseEntity<?> purchase(PurchaseRecord purchaseRecord, String idempotencyKey) {
+    if (purchaseLedger != null) {
+      Optional<LedgerEntry> entry = purchaseLedger.append(purchaseRecord.getProductId(),
+          purchaseRecord.getQuantityPurchased());
+      if (entry.isPresent()) {
+        // The purchase is durable; the Inventory Manager is updated by the ledger drainer
+        return ResponseEntity
+            .accepted()
+            .header(InventoryServiceImpl.IDEMPOTENCY_KEY_HEADER, entry.get().getIdempotencyKey().toString())
+            .body(purchaseRecord);
+      }
+      log.warn("Purchase ledger is full, sending the purchase record to the Inventory Manager directly");
+    }
+
+    Optional<InventoryRecord> purchased = idempotencyKey == null
+        ? inventoryService.purchaseProduct(purchaseRecord.getProductId(), purchaseRecord.getQuantityPurchased())
+        : inventoryService.purchaseProduct(purchaseRecord.getProductId(), purchaseRecord.getQuantityPurchased(),
+            idempotencyKey);
+    return purchased
+        .map(inventoryRecord -> ResponseEntity
+            .ok()
+            .header(HttpHeaders.LOCATION, HEADERS.location(inventoryRecord.getProductId()))
+            .body(inventoryRecord))
         .orElse(ResponseEntity.notFound().build());
   }
 
+  private static void hashFields(ConditionalRequests.ContentHash hash, InventoryRecord inventoryRecord) {
+    hash.add(inventoryRecord.getProductId())
+        .add(inventoryRecord.getQuantity())
+        .add(inventoryRecord.getProductName())
+        .add(inventoryRecord.getProductCategory());
+  }
 }
\ No newline at end of file
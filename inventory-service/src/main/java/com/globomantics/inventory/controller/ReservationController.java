@@ -0,0 +1,57 @@
+package com.globomantics.inventory.controller;
+
+import com.globomantics.inventory.model.PurchaseRecord;
+import com.globomantics.inventory.service.ReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@Slf4j
+@RequestMapping(ReservationController.REQUEST_MAPPING)
+public class ReservationController {
+
+  public static final String REQUEST_MAPPING = "/inventory/reservations";
+
+  private static final ResourceHeaders HEADERS = new ResourceHeaders(REQUEST_MAPPING);
+
+  private final ReservationService reservationService;
+
+  public ReservationController(ReservationService reservationService) {
+    this.reservationService = reservationService;
+  }
+
+  @PostMapping
+  public ResponseEntity<?> reserve(@RequestBody PurchaseRecord purchaseRecord) {
+    if (reservationService.getAvailableQuantity(purchaseRecord.getProductId()).isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    return reservationService.reserve(purchaseRecord.getProductId(), purchaseRecord.getQuantityPurchased())
+        .map(reservation -> ResponseEntity
+            .status(HttpStatus.CREATED)
+            .header(HttpHeaders.LOCATION, HEADERS.location(reservation.getId()))
+            .body(reservation))
+        .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+  }
+
+  @PostMapping("/{id}/commit")
+  public ResponseEntity<?> commit(@PathVariable UUID id) {
+    log.info("Committing reservation {}", id);
+
+    return reservationService.commit(id)
+        .map(inventoryRecord -> ResponseEntity.ok().body(inventoryRecord))
+        .orElse(ResponseEntity.notFound().build());
+  }
+
+  @DeleteMapping("/{id}")
+  public ResponseEntity<?> release(@PathVariable UUID id) {
+    return reservationService.release(id)
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.notFound().build();
+  }
+}
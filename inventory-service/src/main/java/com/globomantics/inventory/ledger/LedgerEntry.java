@@ -0,0 +1,71 @@
+package com.globomantics.inventory.ledger;
+
+import java.util.UUID;
+
+/**
+ * A purchase record stored in the purchase ledger.
+ */
+public class LedgerEntry {
+    private final long offset;
+    private final long endOffset;
+    private final UUID idempotencyKey;
+    private final int productId;
+    private final int quantityPurchased;
+    private final long timestamp;
+
+    LedgerEntry(long offset, long endOffset, UUID idempotencyKey, int productId, int quantityPurchased, long timestamp) {
+        this.offset = offset;
+        this.endOffset = endOffset;
+        this.idempotencyKey = idempotencyKey;
+        this.productId = productId;
+        this.quantityPurchased = quantityPurchased;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * The position of the entry in the ledger file.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * The position in the ledger file just after the entry.
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * The key sent to the Inventory Manager with the purchase, so that a purchase that is sent again after a failure
+     * or restart is only applied once.
+     */
+    public UUID getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantityPurchased() {
+        return quantityPurchased;
+    }
+
+    /**
+     * The time at which the purchase was recorded, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "offset=" + offset +
+                ", idempotencyKey=" + idempotencyKey +
+                ", productId=" + productId +
+                ", quantityPurchased=" + quantityPurchased +
+                '}';
+    }
+}
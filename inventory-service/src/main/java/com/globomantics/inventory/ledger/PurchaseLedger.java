@@ -0,0 +1,198 @@
+package com.globomantics.inventory.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A durable, append-only log of purchase records that have been acknowledged to customers but not yet sent to the
+ * Inventory Manager. The log is a memory-mapped file, so appending is a few memory writes (plus an msync when
+ * inventory.ledger.sync-on-append is true) and the records survive a restart.
+ *
+ * The msync is a group commit: it runs outside the ledger's monitor, and the appends made while one is in progress
+ * all wait for, and share, the next one instead of issuing one each.
+ *
+ * File layout: a 64 byte header holding the current generation and the offset up to which records have been
+ * drained, followed by fixed size records. A record is only valid if it carries the record marker, which is written
+ * last, and the current generation. When the file is full and every record has been drained, writing starts over at
+ * the beginning with a new generation, which invalidates the old records without having to clear them.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class PurchaseLedger implements Closeable {
+
+    private static final int RECORD_MARKER = 0x50524331;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_GENERATION = 0;
+    private static final int HEADER_DRAINED_OFFSET = 8;
+
+    // marker(4) generation(4) key(16) productId(4) quantityPurchased(4) timestamp(8)
+    static final int RECORD_SIZE = 40;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean syncOnAppend;
+
+    private int generation;
+    private long drainedOffset;
+    private long writeOffset;
+
+    /**
+     * The number of records appended since the ledger was opened, and the number of them known to be on disk.
+     */
+    private long appendedCount;
+    private final Object syncLock = new Object();
+    private long syncedCount;
+
+    public PurchaseLedger(@Value("${inventory.ledger.path:purchase-ledger.dat}") String path,
+                          @Value("${inventory.ledger.size:67108864}") int size,
+                          @Value("${inventory.ledger.sync-on-append:true}") boolean syncOnAppend) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.syncOnAppend = syncOnAppend;
+
+        // Recover: everything after the drained offset that is a valid record is still to be sent
+        this.generation = buffer.getInt(HEADER_GENERATION);
+        this.drainedOffset = Math.max(HEADER_SIZE, buffer.getLong(HEADER_DRAINED_OFFSET));
+        this.writeOffset = drainedOffset;
+        while (writeOffset + RECORD_SIZE <= buffer.capacity() && isRecord(writeOffset)) {
+            writeOffset += RECORD_SIZE;
+        }
+        log.info("Opened purchase ledger {} with {} pending purchase records", path, pendingCount());
+    }
+
+    /**
+     * Appends a purchase record to the ledger.
+     *
+     * @param productId         The ID of the purchased product.
+     * @param quantityPurchased The quantity purchased.
+     * @return The appended entry, or empty if the ledger is full.
+     */
+    public Optional<LedgerEntry> append(int productId, int quantityPurchased) {
+        UUID idempotencyKey = UUID.randomUUID();
+        long timestamp = System.currentTimeMillis();
+        LedgerEntry entry;
+        long sequence;
+        synchronized (this) {
+            if (writeOffset + RECORD_SIZE > buffer.capacity()) {
+                if (drainedOffset < writeOffset) {
+                    return Optional.empty();
+                }
+                // Everything has been drained: start over at the beginning of the file with a new generation
+                generation++;
+                drainedOffset = HEADER_SIZE;
+                writeOffset = HEADER_SIZE;
+                buffer.putLong(HEADER_DRAINED_OFFSET, drainedOffset);
+                buffer.putInt(HEADER_GENERATION, generation);
+            }
+
+            int offset = (int) writeOffset;
+            buffer.putInt(offset + 4, generation);
+            buffer.putLong(offset + 8, idempotencyKey.getMostSignificantBits());
+            buffer.putLong(offset + 16, idempotencyKey.getLeastSignificantBits());
+            buffer.putInt(offset + 24, productId);
+            buffer.putInt(offset + 28, quantityPurchased);
+            buffer.putLong(offset + 32, timestamp);
+            // The marker is written last, so a record torn by a crash is not recovered
+            buffer.putInt(offset, RECORD_MARKER);
+
+            writeOffset += RECORD_SIZE;
+            sequence = ++appendedCount;
+            entry = new LedgerEntry(offset, writeOffset, idempotencyKey, productId, quantityPurchased, timestamp);
+        }
+
+        if (syncOnAppend) {
+            awaitSync(sequence);
+        }
+        return Optional.of(entry);
+    }
+
+    /**
+     * Returns once the record with the specified append sequence number is on disk. Only one msync runs at a time;
+     * an append that waited for one to finish returns straight away if that msync already covered its record.
+     */
+    private void awaitSync(long sequence) {
+        synchronized (syncLock) {
+            if (syncedCount >= sequence) {
+                return;
+            }
+            long appended;
+            synchronized (this) {
+                appended = appendedCount;
+            }
+            buffer.force();
+            syncedCount = appended;
+        }
+    }
+
+    /**
+     * Returns the oldest entries that have not been drained yet, in the order in which they were appended.
+     *
+     * @param max The maximum number of entries to return.
+     * @return The pending entries.
+     */
+    public synchronized List<LedgerEntry> pending(int max) {
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (long offset = drainedOffset; offset < writeOffset && entries.size() < max; offset += RECORD_SIZE) {
+            int o = (int) offset;
+            entries.add(new LedgerEntry(offset, offset + RECORD_SIZE,
+                    new UUID(buffer.getLong(o + 8), buffer.getLong(o + 16)),
+                    buffer.getInt(o + 24),
+                    buffer.getInt(o + 28),
+                    buffer.getLong(o + 32)));
+        }
+        return entries;
+    }
+
+    /**
+     * Records that the specified entry, and every entry before it, has been sent to the Inventory Manager.
+     *
+     * @param entry The last drained entry.
+     */
+    public synchronized void markDrained(LedgerEntry entry) {
+        if (entry.getEndOffset() <= drainedOffset || entry.getEndOffset() > writeOffset) {
+            return;
+        }
+        drainedOffset = entry.getEndOffset();
+        buffer.putLong(HEADER_DRAINED_OFFSET, drainedOffset);
+        if (syncOnAppend) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Returns the number of entries that have not been drained yet.
+     */
+    public synchronized long pendingCount() {
+        return (writeOffset - drainedOffset) / RECORD_SIZE;
+    }
+
+    private boolean isRecord(long offset) {
+        int o = (int) offset;
+        return buffer.getInt(o) == RECORD_MARKER && buffer.getInt(o + 4) == generation;
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,91 @@
+package com.globomantics.inventory.ledger;
+
+import com.globomantics.inventory.model.InventoryRecord;
+import com.globomantics.inventory.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sends the purchase records in the purchase ledger to the Inventory Manager in the background, in batches and in
+ * the order in which they were recorded. A purchase that fails is retried, with exponential backoff, until the
+ * Inventory Manager accepts or rejects it; each purchase carries its ledger idempotency key so that a retry, or a
+ * replay after a restart, is only applied once.
+ *
+ * A purchase that the Inventory Manager rejects has already been answered with 202 Accepted, so it is recorded in
+ * {@link RejectedPurchases}, where the client can look it up by its idempotency key.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class PurchaseLedgerDrainer {
+
+    private final PurchaseLedger ledger;
+    private final InventoryService inventoryService;
+    private final RejectedPurchases rejectedPurchases;
+    private final int batchSize;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private long backoffMillis;
+    private long nextAttemptAt;
+
+    public PurchaseLedgerDrainer(PurchaseLedger ledger,
+                                 InventoryService inventoryService,
+                                 RejectedPurchases rejectedPurchases,
+                                 @Value("${inventory.ledger.batch-size:100}") int batchSize,
+                                 @Value("${inventory.ledger.initial-backoff-ms:500}") long initialBackoffMillis,
+                                 @Value("${inventory.ledger.max-backoff-ms:30000}") long maxBackoffMillis) {
+        this.ledger = ledger;
+        this.inventoryService = inventoryService;
+        this.rejectedPurchases = rejectedPurchases;
+        this.batchSize = batchSize;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Sends pending purchase records until the ledger is empty or the Inventory Manager fails.
+     *
+     * @return The number of purchase records drained.
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.drain-interval-ms:500}")
+    public synchronized int drain() {
+        if (System.currentTimeMillis() < nextAttemptAt) {
+            return 0;
+        }
+
+        int drained = 0;
+        List<LedgerEntry> batch;
+        while (!(batch = ledger.pending(batchSize)).isEmpty()) {
+            for (LedgerEntry entry : batch) {
+                try {
+                    Optional<InventoryRecord> record = inventoryService.purchaseProduct(entry.getProductId(),
+                            entry.getQuantityPurchased(), entry.getIdempotencyKey().toString());
+                    if (record.isEmpty()) {
+                        // A client error will not succeed on retry; the purchase is dropped so the ledger can move on
+                        log.error("Inventory Manager rejected purchase record, dropping it: {}",
+                                rejectedPurchases.add(entry));
+                    }
+                } catch (RestClientException e) {
+                    backoffMillis = backoffMillis == 0 ? initialBackoffMillis : Math.min(backoffMillis * 2, maxBackoffMillis);
+                    nextAttemptAt = System.currentTimeMillis() + backoffMillis;
+                    log.warn("Could not send purchase record {}, retrying in {} ms: {}",
+                            entry.getIdempotencyKey(), backoffMillis, e.getMessage());
+                    return drained;
+                }
+                ledger.markDrained(entry);
+                drained++;
+            }
+        }
+
+        backoffMillis = 0;
+        return drained;
+    }
+}
@@ -0,0 +1,60 @@
+package com.globomantics.inventory.ledger;
+
+import com.globomantics.inventory.model.RejectedPurchase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The most recent purchases that the Inventory Manager rejected after they had been accepted into the purchase
+ * ledger, so that a client can look up its purchase by the idempotency key it was given and an operator can list
+ * them. At most inventory.ledger.max-rejections are kept, in memory, so they do not survive a restart; every
+ * rejection is also logged as an error.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class RejectedPurchases {
+
+    private final Map<UUID, RejectedPurchase> rejections;
+
+    public RejectedPurchases(@Value("${inventory.ledger.max-rejections:10000}") int maxRejections) {
+        this.rejections = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, RejectedPurchase> eldest) {
+                return size() > maxRejections;
+            }
+        };
+    }
+
+    /**
+     * Records that the Inventory Manager rejected the specified ledger entry.
+     */
+    synchronized RejectedPurchase add(LedgerEntry entry) {
+        RejectedPurchase rejection = new RejectedPurchase(entry.getIdempotencyKey(), entry.getProductId(),
+                entry.getQuantityPurchased(), Instant.ofEpochMilli(entry.getTimestamp()), Instant.now());
+        rejections.put(entry.getIdempotencyKey(), rejection);
+        return rejection;
+    }
+
+    /**
+     * Returns the rejection of the purchase with the specified idempotency key, if it was rejected.
+     */
+    public synchronized Optional<RejectedPurchase> get(UUID idempotencyKey) {
+        return Optional.ofNullable(rejections.get(idempotencyKey));
+    }
+
+    /**
+     * Returns the rejected purchases, oldest first.
+     */
+    public synchronized List<RejectedPurchase> list() {
+        return new ArrayList<>(rejections.values());
+    }
+}
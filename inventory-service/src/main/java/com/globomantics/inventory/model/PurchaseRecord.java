@@ -1,5 +1,7 @@
 package com.globomantics.inventory.model;
 
+import java.util.Objects;
+
 /**
  * Represents a quantity of a product that was purchased, so that the Inventory Manager can update its inventory accordingly.
  */
@@ -30,4 +32,25 @@ public class PurchaseRecord {
     public void setQuantityPurchased(Integer quantityPurchased) {
         this.quantityPurchased = quantityPurchased;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PurchaseRecord that = (PurchaseRecord) o;
+        return Objects.equals(productId, that.productId) && Objects.equals(quantityPurchased, that.quantityPurchased);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(productId, quantityPurchased);
+    }
+
+    @Override
+    public String toString() {
+        return "PurchaseRecord{" +
+                "productId=" + productId +
+                ", quantityPurchased=" + quantityPurchased +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.globomantics.inventory.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A purchase that was accepted into the purchase ledger, and answered with 202 Accepted, but that the Inventory
+ * Manager then rejected.
+ */
+public class RejectedPurchase {
+    private UUID idempotencyKey;
+    private Integer productId;
+    private Integer quantityPurchased;
+    private Instant recordedAt;
+    private Instant rejectedAt;
+
+    public RejectedPurchase() {
+    }
+
+    public RejectedPurchase(UUID idempotencyKey, Integer productId, Integer quantityPurchased, Instant recordedAt,
+                            Instant rejectedAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.productId = productId;
+        this.quantityPurchased = quantityPurchased;
+        this.recordedAt = recordedAt;
+        this.rejectedAt = rejectedAt;
+    }
+
+    /**
+     * The key returned in the Idempotency-Key header of the 202 Accepted response.
+     */
+    public UUID getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(UUID idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantityPurchased() {
+        return quantityPurchased;
+    }
+
+    public void setQuantityPurchased(Integer quantityPurchased) {
+        this.quantityPurchased = quantityPurchased;
+    }
+
+    /**
+     * The time at which the purchase was recorded in the ledger.
+     */
+    public Instant getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(Instant recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    /**
+     * The time at which the Inventory Manager rejected the purchase.
+     */
+    public Instant getRejectedAt() {
+        return rejectedAt;
+    }
+
+    public void setRejectedAt(Instant rejectedAt) {
+        this.rejectedAt = rejectedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "RejectedPurchase{" +
+                "idempotencyKey=" + idempotencyKey +
+                ", productId=" + productId +
+                ", quantityPurchased=" + quantityPurchased +
+                ", recordedAt=" + recordedAt +
+                ", rejectedAt=" + rejectedAt +
+                '}';
+    }
+}
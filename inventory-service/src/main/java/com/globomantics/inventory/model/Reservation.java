@@ -0,0 +1,66 @@
+package com.globomantics.inventory.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A quantity of a product that is held for a customer until it is committed as a purchase or released.
+ */
+public class Reservation {
+    private UUID id;
+    private Integer productId;
+    private Integer quantity;
+    private Instant expiresAt;
+
+    public Reservation() {
+    }
+
+    public Reservation(UUID id, Integer productId, Integer quantity, Instant expiresAt) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation{" +
+                "id=" + id +
+                ", productId=" + productId +
+                ", quantity=" + quantity +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
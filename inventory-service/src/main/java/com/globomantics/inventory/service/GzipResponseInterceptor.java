@@ -0,0 +1,94 @@
+package com.globomantics.inventory.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Asks upstream services for gzip compressed responses and decompresses them. RestTemplate's default request
+ * factory (HttpURLConnection) neither sends Accept-Encoding nor decompresses responses by itself.
+ */
+public class GzipResponseInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ClientHttpResponse response = execution.execute(request, body);
+
+        String contentEncoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null && contentEncoding.trim().equalsIgnoreCase("gzip")) {
+            return new GunzippedResponse(response);
+        }
+        return response;
+    }
+
+    /**
+     * A response whose body is decompressed as it is read.
+     */
+    private static final class GunzippedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+
+        private final HttpHeaders headers;
+
+        private InputStream body;
+
+        private GunzippedResponse(ClientHttpResponse response) {
+            this.response = response;
+            this.headers = new HttpHeaders();
+            this.headers.putAll(response.getHeaders());
+            this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+            this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                // An empty body (such as a HEAD response) is not a valid gzip stream
+                PushbackInputStream compressed = new PushbackInputStream(response.getBody());
+                int first = compressed.read();
+                if (first == -1) {
+                    body = InputStream.nullInputStream();
+                } else {
+                    compressed.unread(first);
+                    body = new GZIPInputStream(compressed);
+                }
+            }
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
@@ -6,5 +6,18 @@ import java.util.Optional;
 
 public interface InventoryService {
     Optional<InventoryRecord> getInventoryRecord(Integer productId);
+
+    /**
+     * Fetches the inventory record of a product from the Inventory Manager, bypassing (and refreshing) the local
+     * inventory table.
+     */
+    Optional<InventoryRecord> refreshInventoryRecord(Integer productId);
+
     Optional<InventoryRecord> purchaseProduct(Integer productId, Integer quantity);
+
+    /**
+     * Purchases the specified quantity of a product, sending an idempotency key with the purchase so that the
+     * Inventory Manager applies a purchase that is sent more than once only once.
+     */
+    Optional<InventoryRecord> purchaseProduct(Integer productId, Integer quantity, String idempotencyKey);
 }
\ No newline at end of file
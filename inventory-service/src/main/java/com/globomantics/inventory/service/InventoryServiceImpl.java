@@ -2,27 +2,78 @@ package com.globomantics.inventory.service;
 
 import com.globomantics.inventory.model.InventoryRecord;
 import com.globomantics.inventory.model.PurchaseRecord;
+import com.globomantics.inventory.table.InventoryTable;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
 public class InventoryServiceImpl implements InventoryService {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Value("${inventorymanager.baseUrl}")
     private String baseUrl;
 
     // Create a RestTemplate to use to communicate with the Inventory Manager Service
     RestTemplate restTemplate = new RestTemplate();
 
+    /**
+     * The local copy of the inventory, when inventory.table.enabled is true; records are then read from it and only
+     * fetched from the Inventory Manager when they are missing. Only purchases and the inventory sync refresh the
+     * records in the table, so it needs inventory.sync.enabled to follow changes made by other clients.
+     */
+    private final InventoryTable inventoryTable;
+
+    /**
+     * The format of the bodies exchanged with the Inventory Manager: json, or smile (binary JSON), which is cheaper to
+     * encode and decode and smaller on the wire, if the Inventory Manager supports it.
+     */
+    private final MediaType format;
+
+    public InventoryServiceImpl(ObjectProvider<InventoryTable> inventoryTable,
+                                @Value("${inventorymanager.format:json}") String format) {
+        this.inventoryTable = inventoryTable.getIfAvailable();
+        this.format = "smile".equalsIgnoreCase(format) ? SMILE : MediaType.APPLICATION_JSON;
+        this.restTemplate.getInterceptors().add(new GzipResponseInterceptor());
+        if (this.format == SMILE) {
+            // Prefer Smile, but still accept JSON from an Inventory Manager that does not support it
+            this.restTemplate.getInterceptors().add((request, body, execution) -> {
+                request.getHeaders().setAccept(List.of(SMILE, MediaType.parseMediaType("application/json;q=0.5")));
+                return execution.execute(request, body);
+            });
+        }
+    }
+
     @Override
     public Optional<InventoryRecord> getInventoryRecord(Integer productId) {
+        if (inventoryTable != null) {
+            Optional<InventoryRecord> inventoryRecord = inventoryTable.get(productId);
+            if (inventoryRecord.isPresent()) {
+                return inventoryRecord;
+            }
+        }
+
+        return refreshInventoryRecord(productId);
+    }
+
+    @Override
+    public Optional<InventoryRecord> refreshInventoryRecord(Integer productId) {
         try {
             // Get the inventory record for the specified product ID
-            return Optional.of(restTemplate.getForObject(baseUrl + "/" + productId, InventoryRecord.class));
+            InventoryRecord inventoryRecord = restTemplate.getForObject(baseUrl + "/" + productId, InventoryRecord.class);
+            store(inventoryRecord);
+            return Optional.of(inventoryRecord);
         } catch (HttpClientErrorException e) {
             // An exception occurred, so return Optional.empty()
             return Optional.empty();
@@ -31,12 +82,31 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public Optional<InventoryRecord> purchaseProduct(Integer productId, Integer quantity) {
+        return purchaseProduct(productId, quantity, null);
+    }
+
+    @Override
+    public Optional<InventoryRecord> purchaseProduct(Integer productId, Integer quantity, String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format);
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+
         try {
-            return Optional.of(restTemplate.postForObject(baseUrl + "/" + productId + "/purchaseRecord",
-                    new PurchaseRecord(productId, quantity),
-                    InventoryRecord.class));
+            InventoryRecord inventoryRecord = restTemplate.postForObject(baseUrl + "/" + productId + "/purchaseRecord",
+                    new HttpEntity<>(new PurchaseRecord(productId, quantity), headers),
+                    InventoryRecord.class);
+            store(inventoryRecord);
+            return Optional.of(inventoryRecord);
         } catch (HttpClientErrorException e) {
             return Optional.empty();
         }
     }
+
+    private void store(InventoryRecord inventoryRecord) {
+        if (inventoryTable != null && inventoryRecord != null && inventoryRecord.getProductId() != null) {
+            inventoryTable.put(inventoryRecord);
+        }
+    }
 }
\ No newline at end of file
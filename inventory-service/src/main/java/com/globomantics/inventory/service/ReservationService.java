@@ -0,0 +1,46 @@
+package com.globomantics.inventory.service;
+
+import com.globomantics.inventory.model.InventoryRecord;
+import com.globomantics.inventory.model.Reservation;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds the available quantity of products locally, so that stock can be reserved without a call to the Inventory
+ * Manager. Only committing a reservation purchases the product from the Inventory Manager.
+ */
+public interface ReservationService {
+
+    /**
+     * Returns the quantity of a product that is available to reserve, loading it from the Inventory Manager the first
+     * time the product is seen.
+     *
+     * @return The available quantity, or empty if the Inventory Manager does not know the product.
+     */
+    Optional<Integer> getAvailableQuantity(Integer productId);
+
+    /**
+     * Reserves the specified quantity of a product.
+     *
+     * @return The reservation, or empty if the product is unknown or not enough of it is available.
+     */
+    Optional<Reservation> reserve(Integer productId, Integer quantity);
+
+    /**
+     * Purchases a reserved quantity from the Inventory Manager. The reservation is released if the purchase is
+     * rejected, and kept if the purchase fails without an answer, so that the commit can be retried.
+     *
+     * @return The updated inventory record, or empty if the reservation does not exist or the purchase was rejected.
+     * @throws org.springframework.web.client.RestClientException If the Inventory Manager did not answer; the
+     *         reservation is kept.
+     */
+    Optional<InventoryRecord> commit(UUID reservationId);
+
+    /**
+     * Returns a reserved quantity to the available quantity.
+     *
+     * @return True if the reservation existed.
+     */
+    boolean release(UUID reservationId);
+}
@@ -0,0 +1,206 @@
+package com.globomantics.inventory.service;
+
+import com.globomantics.inventory.model.InventoryRecord;
+import com.globomantics.inventory.model.Reservation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the available and reserved quantity of each product in a single AtomicLong, so that a reservation, a
+ * release and a commit are each one compare-and-set on the product's stock: reservations of a hot product never
+ * block on a lock, and reservations of different products never contend at all.
+ *
+ * Stock is seeded from the Inventory Manager and periodically reconciled with it, because the Inventory Manager
+ * also sells through other channels. Reservations that are neither committed nor released expire and are released
+ * by the reconciliation.
+ */
+@Service
+@Slf4j
+public class ReservationServiceImpl implements ReservationService {
+
+    private final InventoryService inventoryService;
+
+    private final Duration timeToLive;
+
+    private final Map<Integer, Stock> stockByProductId = new ConcurrentHashMap<>();
+
+    private final Map<UUID, Reservation> reservations = new ConcurrentHashMap<>();
+
+    public ReservationServiceImpl(InventoryService inventoryService,
+                                  @Value("${inventory.reservations.time-to-live:PT10M}") Duration timeToLive) {
+        this.inventoryService = inventoryService;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public Optional<Integer> getAvailableQuantity(Integer productId) {
+        return stock(productId).map(Stock::available);
+    }
+
+    @Override
+    public Optional<Reservation> reserve(Integer productId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            return Optional.empty();
+        }
+        return stock(productId)
+                .filter(stock -> stock.reserve(quantity))
+                .map(stock -> {
+                    Reservation reservation = new Reservation(UUID.randomUUID(), productId, quantity,
+                            Instant.now().plus(timeToLive));
+                    reservations.put(reservation.getId(), reservation);
+                    return reservation;
+                });
+    }
+
+    /**
+     * Commits a reservation while holding its monitor, so that a concurrent commit, release or expiry of the same
+     * reservation waits for the purchase instead of applying it twice. The reservation is only removed once the
+     * Inventory Manager has answered: if the purchase fails without an answer, such as on a read timeout, it may
+     * still have been applied upstream, so the reservation is kept and a retried commit sends the same idempotency
+     * key. Reconciliation corrects the stock if such a reservation expires instead.
+     */
+    @Override
+    public Optional<InventoryRecord> commit(UUID reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            return Optional.empty();
+        }
+        synchronized (reservation) {
+            if (reservations.get(reservationId) != reservation) {
+                // Committed, released or expired while this commit waited
+                return Optional.empty();
+            }
+            // A RestClientException leaves the reservation in place for a retry
+            Optional<InventoryRecord> inventoryRecord = inventoryService.purchaseProduct(reservation.getProductId(),
+                    reservation.getQuantity(), reservationId.toString());
+
+            // The purchase was applied or rejected (4xx), so the reservation is settled either way
+            reservations.remove(reservationId);
+            Stock stock = stockByProductId.get(reservation.getProductId());
+            if (inventoryRecord.isPresent()) {
+                stock.commit(reservation.getQuantity());
+            } else {
+                stock.release(reservation.getQuantity());
+            }
+            return inventoryRecord;
+        }
+    }
+
+    @Override
+    public boolean release(UUID reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        synchronized (reservation) {
+            if (!reservations.remove(reservationId, reservation)) {
+                return false;
+            }
+            stockByProductId.get(reservation.getProductId()).release(reservation.getQuantity());
+            return true;
+        }
+    }
+
+    /**
+     * Releases expired reservations and refreshes the stock of every known product from the Inventory Manager.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        Instant now = Instant.now();
+        reservations.values().stream()
+                .filter(reservation -> reservation.getExpiresAt().isBefore(now))
+                .forEach(reservation -> release(reservation.getId()));
+
+        stockByProductId.forEach((productId, stock) -> {
+            try {
+                inventoryService.refreshInventoryRecord(productId)
+                        .ifPresent(inventoryRecord -> stock.reconcile(inventoryRecord.getQuantity()));
+            } catch (RestClientException e) {
+                log.warn("Could not reconcile the stock of product {}: {}", productId, e.getMessage());
+            }
+        });
+    }
+
+    private Optional<Stock> stock(Integer productId) {
+        Stock stock = stockByProductId.get(productId);
+        if (stock != null) {
+            return Optional.of(stock);
+        }
+        // Concurrent first lookups of a product are collapsed into one call to the Inventory Manager
+        return Optional.ofNullable(stockByProductId.computeIfAbsent(productId, id -> inventoryService
+                .getInventoryRecord(id)
+                .map(inventoryRecord -> new Stock(inventoryRecord.getQuantity()))
+                .orElse(null)));
+    }
+
+    /**
+     * The available quantity (high 32 bits) and reserved quantity (low 32 bits) of a product.
+     */
+    static final class Stock {
+
+        private final AtomicLong state;
+
+        Stock(int available) {
+            this.state = new AtomicLong(pack(Math.max(0, available), 0));
+        }
+
+        int available() {
+            return available(state.get());
+        }
+
+        int reserved() {
+            return reserved(state.get());
+        }
+
+        boolean reserve(int quantity) {
+            while (true) {
+                long current = state.get();
+                int available = available(current);
+                if (available < quantity) {
+                    return false;
+                }
+                if (state.compareAndSet(current, pack(available - quantity, reserved(current) + quantity))) {
+                    return true;
+                }
+            }
+        }
+
+        void release(int quantity) {
+            state.getAndUpdate(current -> pack(available(current) + quantity, reserved(current) - quantity));
+        }
+
+        void commit(int quantity) {
+            state.getAndUpdate(current -> pack(available(current), reserved(current) - quantity));
+        }
+
+        /**
+         * Sets the available quantity to the Inventory Manager's quantity less what is still reserved here.
+         */
+        void reconcile(int upstreamQuantity) {
+            state.getAndUpdate(current -> pack(Math.max(0, upstreamQuantity - reserved(current)), reserved(current)));
+        }
+
+        private static long pack(int available, int reserved) {
+            return ((long) available << 32) | (reserved & 0xFFFFFFFFL);
+        }
+
+        private static int available(long state) {
+            return (int) (state >>> 32);
+        }
+
+        private static int reserved(long state) {
+            return (int) state;
+        }
+    }
+}
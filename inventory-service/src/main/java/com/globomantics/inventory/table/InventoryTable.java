@@ -0,0 +1,234 @@
+package com.globomantics.inventory.table;
+
+import com.globomantics.inventory.model.InventoryRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A local copy of the inventory, stored as primitive ints rather than as InventoryRecord objects in a map. Each
+ * product takes one 16 byte slot of an open addressing (linear probing) hash table: product ID, quantity, name
+ * offset and category ID. The names are stored as UTF-8 bytes in a name arena, and the few distinct categories once
+ * each in a label pool. A catalog of millions of products is then a few flat buffers instead of millions of objects
+ * for the garbage collector to trace.
+ *
+ * The slots and the names live on the heap, or off it when inventory.table.off-heap is true. Replaced names are
+ * reclaimed by copying the live names into a new arena once they take less than half of it. Quantity lookups are
+ * lock free and allocation free (an optimistic read that is retried under the read lock if it raced with a write);
+ * writes take the write lock. Products are never removed.
+ *
+ * Entries have no expiry: once a product is in the table, reads are served from it until a purchase or the
+ * InventoryTableSynchronizer replaces it. Enable inventory.sync.enabled together with inventory.table.enabled, or
+ * changes made in the Inventory Manager by other clients are never seen.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.table.enabled", havingValue = "true")
+public class InventoryTable {
+
+    /**
+     * Returned by getQuantity for a product that is not in the table.
+     */
+    public static final int NO_QUANTITY = Integer.MIN_VALUE;
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private static final int SLOT_INTS = 4;
+    private static final int PRODUCT_ID = 0;
+    private static final int QUANTITY = 1;
+    private static final int NAME = 2;
+    private static final int CATEGORY = 3;
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private final boolean offHeap;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The average bytes per name, to size the initial name arena.
+     */
+    private static final int NAME_BYTES = 32;
+
+    private final LabelPool categories = new LabelPool();
+
+    private NameArena names;
+
+    private IntBuffer slots;
+
+    private int size;
+
+    public InventoryTable(@Value("${inventory.table.initial-capacity:1024}") int initialCapacity,
+                          @Value("${inventory.table.off-heap:false}") boolean offHeap) {
+        this.offHeap = offHeap;
+        this.slots = allocate(Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1);
+        this.names = new NameArena(initialCapacity * NAME_BYTES, offHeap);
+    }
+
+    /**
+     * Returns the quantity of a product, or NO_QUANTITY if the product is not in the table.
+     */
+    public int getQuantity(int productId) {
+        long stamp = lock.tryOptimisticRead();
+        int quantity = quantity(slots, productId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                quantity = quantity(slots, productId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Returns the inventory record of a product, if the product is in the table.
+     */
+    public Optional<InventoryRecord> get(int productId) {
+        long stamp = lock.readLock();
+        try {
+            int slot = find(slots, productId);
+            if (slots.get(slot + PRODUCT_ID) == EMPTY) {
+                return Optional.empty();
+            }
+            return Optional.of(new InventoryRecord(productId,
+                    slots.get(slot + QUANTITY),
+                    names.get(slots.get(slot + NAME)),
+                    categories.get(slots.get(slot + CATEGORY))));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds or replaces the inventory record of a product.
+     */
+    public void put(InventoryRecord inventoryRecord) {
+        int productId = inventoryRecord.getProductId();
+        if (productId == EMPTY) {
+            throw new IllegalArgumentException("Product ID " + productId + " cannot be stored");
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            int slot = find(slots, productId);
+            int name;
+            if (slots.get(slot + PRODUCT_ID) == EMPTY) {
+                if (size + 1 > capacity(slots) * MAX_LOAD_FACTOR) {
+                    resize();
+                    slot = find(slots, productId);
+                }
+                size++;
+                name = names.add(inventoryRecord.getProductName());
+            } else {
+                name = names.replace(slots.get(slot + NAME), inventoryRecord.getProductName());
+            }
+            slots.put(slot + PRODUCT_ID, productId);
+            slots.put(slot + QUANTITY, inventoryRecord.getQuantity() == null ? 0 : inventoryRecord.getQuantity());
+            slots.put(slot + NAME, name);
+            slots.put(slot + CATEGORY, categories.intern(inventoryRecord.getProductCategory()));
+            if (names.needsCompaction()) {
+                compactNames();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of products in the table.
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static int quantity(IntBuffer slots, int productId) {
+        int slot = find(slots, productId);
+        return slots.get(slot + PRODUCT_ID) == EMPTY ? NO_QUANTITY : slots.get(slot + QUANTITY);
+    }
+
+    /**
+     * Returns the index of the slot that holds the product, or of the empty slot where it would be added. Reads
+     * may race with a write, so the probe is bounded by the capacity instead of relying on an empty slot.
+     */
+    private static int find(IntBuffer slots, int productId) {
+        int capacity = capacity(slots);
+        int mask = capacity - 1;
+        int index = mix(productId) & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            int slot = index * SLOT_INTS;
+            int key = slots.get(slot + PRODUCT_ID);
+            if (key == productId || key == EMPTY) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+        return 0;
+    }
+
+    private void resize() {
+        IntBuffer oldSlots = slots;
+        IntBuffer newSlots = allocate(capacity(oldSlots) * 2);
+        for (int slot = 0; slot < oldSlots.capacity(); slot += SLOT_INTS) {
+            int productId = oldSlots.get(slot + PRODUCT_ID);
+            if (productId != EMPTY) {
+                int newSlot = find(newSlots, productId);
+                for (int i = 0; i < SLOT_INTS; i++) {
+                    newSlots.put(newSlot + i, oldSlots.get(slot + i));
+                }
+            }
+        }
+        slots = newSlots;
+    }
+
+    /**
+     * Copies the live names into a new arena, dropping the bytes of replaced names.
+     */
+    private void compactNames() {
+        NameArena compacted = new NameArena(names.liveBytes(), offHeap);
+        for (int slot = 0; slot < slots.capacity(); slot += SLOT_INTS) {
+            if (slots.get(slot + PRODUCT_ID) != EMPTY) {
+                slots.put(slot + NAME, compacted.copy(names, slots.get(slot + NAME)));
+            }
+        }
+        names = compacted;
+    }
+
+    private IntBuffer allocate(int capacity) {
+        IntBuffer buffer = offHeap
+                ? ByteBuffer.allocateDirect(capacity * SLOT_INTS * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer()
+                : IntBuffer.allocate(capacity * SLOT_INTS);
+        for (int slot = 0; slot < buffer.capacity(); slot += SLOT_INTS) {
+            buffer.put(slot + PRODUCT_ID, EMPTY);
+        }
+        return buffer;
+    }
+
+    private static int capacity(IntBuffer slots) {
+        return slots.capacity() / SLOT_INTS;
+    }
+
+    /**
+     * Spreads sequential product IDs across the table (the murmur3 finalizer).
+     */
+    private static int mix(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
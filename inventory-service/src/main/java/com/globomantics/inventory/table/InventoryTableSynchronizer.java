@@ -0,0 +1,211 @@
+package com.globomantics.inventory.table;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.globomantics.inventory.service.GzipResponseInterceptor;
+import com.globomantics.inventory.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads the inventory of every product in the catalog into the inventory table, at startup and then periodically,
+ * so that reads are served locally instead of missing the table after every deploy.
+ *
+ * The warmup runs as an ApplicationRunner, and Spring Boot only reports the application as ready to accept traffic
+ * once its runners have completed, so a new instance does not receive traffic while its table is cold. The
+ * warmup gives up after inventory.sync.warmup-timeout so that an unreachable Inventory Manager cannot keep an
+ * instance out of service forever.
+ *
+ * The Inventory Manager has no batch endpoint, so the product IDs are fetched in chunks with a bounded number of
+ * concurrent requests, rate limited to inventory.sync.max-requests-per-second.
+ *
+ * Only one sync runs at a time: a scheduled sync is skipped while the previous one, or a warmup that timed out, is
+ * still running, and the scheduler thread never waits for a sync to complete.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.sync.enabled", havingValue = "true")
+public class InventoryTableSynchronizer implements ApplicationRunner {
+
+    private final InventoryService inventoryService;
+
+    private final String productsUrl;
+
+    private final int chunkSize;
+
+    private final Duration warmupTimeout;
+
+    private final long nanosPerRequest;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong nextRequestAt = new AtomicLong(System.nanoTime());
+
+    /**
+     * The most recently started sync.
+     */
+    private final AtomicReference<CompletableFuture<Integer>> currentSync =
+            new AtomicReference<>(CompletableFuture.completedFuture(0));
+
+    RestTemplate restTemplate = new RestTemplate();
+
+    public InventoryTableSynchronizer(InventoryService inventoryService,
+                                      InventoryTable inventoryTable,
+                                      @Value("${inventory.sync.products-url:http://localhost:8081/products}") String productsUrl,
+                                      @Value("${inventory.sync.threads:8}") int threads,
+                                      @Value("${inventory.sync.chunk-size:500}") int chunkSize,
+                                      @Value("${inventory.sync.max-requests-per-second:200}") int maxRequestsPerSecond,
+                                      @Value("${inventory.sync.warmup-timeout:PT2M}") Duration warmupTimeout) {
+        // The table is a constructor argument so that the synchronizer fails to start if the table is not enabled
+        this.inventoryService = inventoryService;
+        this.productsUrl = productsUrl;
+        this.chunkSize = chunkSize;
+        this.warmupTimeout = warmupTimeout;
+        this.nanosPerRequest = TimeUnit.SECONDS.toNanos(1) / maxRequestsPerSecond;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.restTemplate.getInterceptors().add(new GzipResponseInterceptor());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        try {
+            // The warmup is the first sync, so it always starts; if it times out it keeps running in the background
+            int synced = startSynchronize().orElseThrow().get(warmupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Inventory warmup loaded {} products in {} ms", synced,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (TimeoutException e) {
+            log.warn("Inventory warmup did not complete within {}, accepting traffic with a partial table", warmupTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Inventory warmup failed, accepting traffic with a cold table: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${inventory.sync.interval-ms:300000}",
+            fixedDelayString = "${inventory.sync.interval-ms:300000}")
+    public void resynchronize() {
+        Optional<CompletableFuture<Integer>> sync = startSynchronize();
+        if (sync.isEmpty()) {
+            log.info("Inventory sync skipped, the previous sync is still running");
+            return;
+        }
+        sync.get().whenComplete((synced, e) -> {
+            if (e == null) {
+                log.info("Inventory sync refreshed {} products", synced);
+            } else {
+                log.warn("Inventory sync failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Starts a sync unless the previous one is still running.
+     *
+     * @return The sync that was started, or empty if the previous sync is still running.
+     */
+    Optional<CompletableFuture<Integer>> startSynchronize() {
+        CompletableFuture<Integer> previous = currentSync.get();
+        CompletableFuture<Integer> next = new CompletableFuture<>();
+        if (!previous.isDone() || !currentSync.compareAndSet(previous, next)) {
+            return Optional.empty();
+        }
+        synchronize().whenComplete((synced, e) -> {
+            if (e == null) {
+                next.complete(synced);
+            } else {
+                next.completeExceptionally(e);
+            }
+        });
+        return Optional.of(next);
+    }
+
+    /**
+     * Fetches every product's inventory record into the table. Nothing runs on the calling thread, including the
+     * request for the product IDs.
+     *
+     * @return The number of products whose record was loaded, once all chunks have completed.
+     */
+    CompletableFuture<Integer> synchronize() {
+        return CompletableFuture.supplyAsync(this::fetchProductIds, executor).thenCompose(this::synchronize);
+    }
+
+    private CompletableFuture<Integer> synchronize(List<Integer> productIds) {
+        AtomicInteger synced = new AtomicInteger();
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += chunkSize) {
+            List<Integer> chunk = productIds.subList(from, Math.min(from + chunkSize, productIds.size()));
+            chunks.add(CompletableFuture.runAsync(() -> chunk.forEach(productId -> {
+                acquirePermit();
+                try {
+                    if (inventoryService.refreshInventoryRecord(productId).isPresent()) {
+                        synced.incrementAndGet();
+                    }
+                } catch (RestClientException e) {
+                    log.debug("Could not sync the inventory of product {}: {}", productId, e.getMessage());
+                }
+            }), executor));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApply(v -> synced.get());
+    }
+
+    private List<Integer> fetchProductIds() {
+        JsonNode products = restTemplate.getForObject(productsUrl, JsonNode.class);
+        List<Integer> productIds = new ArrayList<>();
+        if (products != null) {
+            products.forEach(product -> {
+                if (product.hasNonNull("id")) {
+                    productIds.add(product.get("id").asInt());
+                }
+            });
+        }
+        return productIds;
+    }
+
+    /**
+     * Waits until the next request is allowed, spacing requests evenly across all threads.
+     */
+    private void acquirePermit() {
+        long now = System.nanoTime();
+        long permitAt = nextRequestAt.getAndAccumulate(now, (next, time) -> Math.max(next, time) + nanosPerRequest);
+        long waitNanos = Math.max(permitAt, now) - now;
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,37 @@
+package com.globomantics.inventory.table;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicates product categories: each distinct string is stored once and referred to by an int ID. Only suited
+ * to strings with few distinct values, since a string is kept for as long as the pool.
+ * Not thread safe; the inventory table guards it with its own lock.
+ */
+class LabelPool {
+
+    static final int NO_LABEL = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+
+    int intern(String label) {
+        if (label == null) {
+            return NO_LABEL;
+        }
+        return ids.computeIfAbsent(label, l -> {
+            labels.add(l);
+            return labels.size() - 1;
+        });
+    }
+
+    String get(int id) {
+        return id == NO_LABEL ? null : labels.get(id);
+    }
+
+    int size() {
+        return labels.size();
+    }
+}
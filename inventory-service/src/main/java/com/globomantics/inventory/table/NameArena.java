@@ -0,0 +1,135 @@
+package com.globomantics.inventory.table;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stores product names as UTF-8 bytes in one growing buffer, each name referred to by the offset of its length
+ * prefix. Product names are nearly all distinct, so unlike categories they are not deduplicated. A replaced name
+ * leaves its bytes behind until the inventory table copies the live names into a new arena.
+ * Not thread safe; the inventory table guards it with its own lock.
+ */
+class NameArena {
+
+    static final int NO_NAME = -1;
+
+    private final boolean offHeap;
+
+    private ByteBuffer bytes;
+
+    /**
+     * The number of bytes taken by names that have been replaced.
+     */
+    private int released;
+
+    NameArena(int initialCapacity, boolean offHeap) {
+        this.offHeap = offHeap;
+        this.bytes = allocate(Math.max(64, initialCapacity));
+    }
+
+    /**
+     * Stores a name and returns its offset, or NO_NAME for a null name.
+     */
+    int add(String name) {
+        return name == null ? NO_NAME : add(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stores a name in place of the name at the specified offset, unless they are equal.
+     *
+     * @return The offset of the name, which is the previous offset if the name has not changed.
+     */
+    int replace(int offset, String name) {
+        if (name == null) {
+            release(offset);
+            return NO_NAME;
+        }
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        if (offset != NO_NAME && matches(offset, utf8)) {
+            return offset;
+        }
+        release(offset);
+        return add(utf8);
+    }
+
+    String get(int offset) {
+        if (offset == NO_NAME) {
+            return null;
+        }
+        byte[] utf8 = new byte[bytes.getInt(offset)];
+        ByteBuffer name = bytes.duplicate();
+        name.position(offset + Integer.BYTES);
+        name.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the name at the specified offset of another arena into this one.
+     *
+     * @return The offset of the copy.
+     */
+    int copy(NameArena from, int offset) {
+        if (offset == NO_NAME) {
+            return NO_NAME;
+        }
+        int length = Integer.BYTES + from.bytes.getInt(offset);
+        ensureCapacity(length);
+        ByteBuffer name = from.bytes.duplicate();
+        name.position(offset).limit(offset + length);
+        int copyOffset = bytes.position();
+        bytes.put(name);
+        return copyOffset;
+    }
+
+    /**
+     * Returns the number of bytes taken by the live names.
+     */
+    int liveBytes() {
+        return bytes.position() - released;
+    }
+
+    /**
+     * Returns true once replaced names take more space than the live ones.
+     */
+    boolean needsCompaction() {
+        return released > liveBytes();
+    }
+
+    private int add(byte[] utf8) {
+        ensureCapacity(Integer.BYTES + utf8.length);
+        int offset = bytes.position();
+        bytes.putInt(utf8.length).put(utf8);
+        return offset;
+    }
+
+    private boolean matches(int offset, byte[] utf8) {
+        if (bytes.getInt(offset) != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < utf8.length; i++) {
+            if (bytes.get(offset + Integer.BYTES + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void release(int offset) {
+        if (offset != NO_NAME) {
+            released += Integer.BYTES + bytes.getInt(offset);
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (bytes.remaining() < length) {
+            ByteBuffer grown = allocate(Math.max(bytes.capacity() * 2, bytes.position() + length));
+            bytes.flip();
+            grown.put(bytes);
+            bytes = grown;
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -0,0 +1,77 @@
+package com.globomantics.inventory.benchmark;
+
+import com.globomantics.inventory.controller.InventoryController;
+import com.globomantics.inventory.controller.ResourceHeaders;
+import com.globomantics.inventory.model.InventoryRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a response's Location and ETag headers by parsing a URI and formatting the version, as the
+ * controllers used to, with building them from {@link ResourceHeaders}. The ID parameter covers both a cached and an
+ * uncached ID. Run with: mvn -pl inventory-service test-compile exec:java
+ * -Dexec.mainClass=com.globomantics.inventory.benchmark.ResponseHeadersBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseHeadersBenchmark {
+
+  @Param({"42", "123456"})
+  public int id;
+
+  private final ResourceHeaders headers = new ResourceHeaders(InventoryController.REQUEST_MAPPING);
+
+  private InventoryRecord inventoryRecord;
+
+  private int version;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    inventoryRecord = new InventoryRecord(id, 500, "Globomantics Widget Deluxe", "Great Products");
+    version = 3;
+  }
+
+  @Benchmark
+  public ResponseEntity<InventoryRecord> uri() throws URISyntaxException {
+    return ResponseEntity
+        .ok()
+        .location(new URI(InventoryController.REQUEST_MAPPING + "/" + inventoryRecord.getProductId()))
+        .eTag(Integer.toString(version))
+        .body(inventoryRecord);
+  }
+
+  @Benchmark
+  public ResponseEntity<InventoryRecord> resourceHeaders() {
+    return ResponseEntity
+        .ok()
+        .header(HttpHeaders.LOCATION, headers.location(inventoryRecord.getProductId()))
+        .header(HttpHeaders.ETAG, ResourceHeaders.eTag(version))
+        .body(inventoryRecord);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(ResponseHeadersBenchmark.class.getSimpleName()).build()).run();
+  }
+}
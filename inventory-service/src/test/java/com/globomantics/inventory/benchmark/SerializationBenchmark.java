@@ -0,0 +1,74 @@
+package com.globomantics.inventory.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.globomantics.inventory.model.InventoryRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of encoding and decoding an InventoryRecord as JSON and as Smile, and logs the size of each
+ * encoding. Run with: mvn -pl inventory-service test-compile exec:java
+ * -Dexec.mainClass=com.globomantics.inventory.benchmark.SerializationBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Slf4j
+public class SerializationBenchmark {
+
+  @Param({"json", "smile"})
+  public String format;
+
+  private ObjectMapper mapper;
+
+  private InventoryRecord inventoryRecord;
+
+  private byte[] encoded;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    mapper = "smile".equals(format) ? new SmileMapper() : new ObjectMapper();
+    inventoryRecord = new InventoryRecord(123456, 500, "Globomantics Widget Deluxe", "Great Products");
+    encoded = mapper.writeValueAsBytes(inventoryRecord);
+  }
+
+  @TearDown(Level.Trial)
+  public void logSize() {
+    log.info("{} payload: {} bytes", format, encoded.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return mapper.writeValueAsBytes(inventoryRecord);
+  }
+
+  @Benchmark
+  public InventoryRecord decode() throws IOException {
+    return mapper.readValue(encoded, InventoryRecord.class);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder().include(SerializationBenchmark.class.getSimpleName()).build()).run();
+  }
+}
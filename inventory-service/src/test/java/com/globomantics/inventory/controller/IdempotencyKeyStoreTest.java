@@ -0,0 +1,85 @@
+package com.globomantics.inventory.controller;
+
+import com.globomantics.inventory.model.PurchaseRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class IdempotencyKeyStoreTest {
+
+  private final IdempotencyKeyStore store = new IdempotencyKeyStore(10, Duration.ofMinutes(1));
+
+  @Test
+  @DisplayName("Test concurrent duplicates are collapsed into one call")
+  void testConcurrentDuplicates() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch inFlight = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+        store.execute("key", new PurchaseRecord(1, 5), () -> {
+          calls.incrementAndGet();
+          inFlight.countDown();
+          await(release);
+          return ResponseEntity.ok("purchased");
+        }));
+    Assertions.assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<ResponseEntity<?>> duplicate = CompletableFuture.supplyAsync(() ->
+        store.execute("key", new PurchaseRecord(1, 5), () -> {
+          calls.incrementAndGet();
+          return ResponseEntity.ok("purchased again");
+        }));
+    release.countDown();
+
+    Assertions.assertEquals("purchased", first.get(5, TimeUnit.SECONDS).getBody());
+    Assertions.assertEquals("purchased", duplicate.get(5, TimeUnit.SECONDS).getBody());
+    Assertions.assertEquals(1, calls.get(), "The handler should only be called once");
+  }
+
+  @Test
+  @DisplayName("Test a server error is not remembered")
+  void testServerErrorNotRemembered() {
+    store.execute("key", new PurchaseRecord(1, 5),
+        () -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+
+    ResponseEntity<?> retry = store.execute("key", new PurchaseRecord(1, 5), () -> ResponseEntity.ok("purchased"));
+
+    Assertions.assertEquals(HttpStatus.OK, retry.getStatusCode());
+    Assertions.assertNull(retry.getHeaders().getFirst(IdempotencyKeyStore.REPLAYED_HEADER));
+  }
+
+  @Test
+  @DisplayName("Test a full store drops its oldest key to accept a new one")
+  void testFull() {
+    for (int i = 0; i < 10; i++) {
+      store.execute("key" + i, new PurchaseRecord(1, 5), () -> ResponseEntity.ok("purchased"));
+    }
+
+    ResponseEntity<?> response = store.execute("key10", new PurchaseRecord(1, 5),
+        () -> ResponseEntity.ok("purchased"));
+    Assertions.assertEquals(HttpStatus.OK, response.getStatusCode(), "A new key should be accepted");
+
+    ResponseEntity<?> newest = store.execute("key1", new PurchaseRecord(1, 5), () -> ResponseEntity.ok("again"));
+    Assertions.assertEquals("purchased", newest.getBody(), "Only the oldest key should have been dropped");
+
+    ResponseEntity<?> oldest = store.execute("key0", new PurchaseRecord(1, 5), () -> ResponseEntity.ok("again"));
+    Assertions.assertEquals("again", oldest.getBody(), "The oldest key should have been dropped");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -1,14 +1,18 @@
 package com.globomantics.inventory.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.globomantics.inventory.model.InventoryRecord;
 import com.globomantics.inventory.model.PurchaseRecord;
 import com.globomantics.inventory.service.InventoryService;
+import com.globomantics.inventory.service.InventoryServiceImpl;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,11 +21,14 @@ import java.util.Optional;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(InventoryController.class)
+@Import(IdempotencyKeyStore.class)
 class InventoryControllerTest {
 
   @MockBean
@@ -55,6 +62,29 @@ class InventoryControllerTest {
         .andExpect(jsonPath("$.productCategory", is("Great Products")));
   }
 
+  @Test
+  @DisplayName("GET /inventory/1 - Smile")
+  void testGetInventoryByIdSmile() throws Exception {
+    // Setup our mocked service
+    InventoryRecord mockRecord = new InventoryRecord(1, 10,
+        "Product 1", "Great Products");
+    doReturn(Optional.of(mockRecord)).when(service).getInventoryRecord(1);
+
+    // Execute the GET request, asking for Smile
+    byte[] body = mockMvc.perform(get(InventoryController.REQUEST_MAPPING + "/{id}", 1)
+            .accept(InventoryServiceImpl.SMILE))
+
+        // Validate the response code and content type
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(InventoryServiceImpl.SMILE))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    // Validate the returned fields
+    InventoryRecord inventoryRecord = new SmileMapper().readValue(body, InventoryRecord.class);
+    Assertions.assertEquals(1, inventoryRecord.getProductId().intValue());
+    Assertions.assertEquals(10, inventoryRecord.getQuantity().intValue());
+  }
+
   @Test
   @DisplayName("GET /inventory/2 - Not Found")
   void testGetInventoryByIdNotFound() throws Exception {
@@ -95,6 +125,60 @@ class InventoryControllerTest {
         .andExpect(jsonPath("$.productCategory", is("Great Products")));
   }
 
+  @Test
+  @DisplayName("POST /inventory/purchase-record - Replayed Idempotency-Key")
+  void testCreatePurchaseRecordReplay() throws Exception {
+    // Setup mocked service
+    InventoryRecord mockRecord = new InventoryRecord(1, 10,
+        "Product 1", "Great Products");
+    doReturn(Optional.of(mockRecord)).when(service).purchaseProduct(1, 5, "key-1");
+
+    mockMvc.perform(post(InventoryController.REQUEST_MAPPING + "/purchase-record")
+            .header("Idempotency-Key", "key-1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(new PurchaseRecord(1, 5))))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(IdempotencyKeyStore.REPLAYED_HEADER));
+
+    // Retry with the same key
+    mockMvc.perform(post(InventoryController.REQUEST_MAPPING + "/purchase-record")
+            .header("Idempotency-Key", "key-1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(new PurchaseRecord(1, 5))))
+
+        // Validate the original response is returned
+        .andExpect(status().isOk())
+        .andExpect(header().string(IdempotencyKeyStore.REPLAYED_HEADER, "true"))
+        .andExpect(header().string(HttpHeaders.LOCATION, InventoryController.REQUEST_MAPPING + "/1"))
+        .andExpect(jsonPath("$.quantity", is(10)));
+
+    // The purchase was only made once
+    verify(service, times(1)).purchaseProduct(1, 5, "key-1");
+  }
+
+  @Test
+  @DisplayName("POST /inventory/purchase-record - Idempotency-Key reused for another purchase")
+  void testCreatePurchaseRecordKeyReused() throws Exception {
+    // Setup mocked service
+    InventoryRecord mockRecord = new InventoryRecord(1, 10,
+        "Product 1", "Great Products");
+    doReturn(Optional.of(mockRecord)).when(service).purchaseProduct(1, 5, "key-2");
+
+    mockMvc.perform(post(InventoryController.REQUEST_MAPPING + "/purchase-record")
+            .header("Idempotency-Key", "key-2")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(new PurchaseRecord(1, 5))))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(post(InventoryController.REQUEST_MAPPING + "/purchase-record")
+            .header("Idempotency-Key", "key-2")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(asJsonString(new PurchaseRecord(1, 6))))
+
+        // Validate the response code is 422 Unprocessable Entity
+        .andExpect(status().isUnprocessableEntity());
+  }
+
   static String asJsonString(final Object obj) {
     try {
       return new ObjectMapper().writeValueAsString(obj);
@@ -0,0 +1,91 @@
+package com.globomantics.inventory.ledger;
+
+import com.globomantics.inventory.model.InventoryRecord;
+import com.globomantics.inventory.model.RejectedPurchase;
+import com.globomantics.inventory.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PurchaseLedgerDrainerTest {
+
+  @TempDir
+  Path tempDir;
+
+  private PurchaseLedger ledger;
+
+  private InventoryService inventoryService;
+
+  private RejectedPurchases rejectedPurchases;
+
+  private PurchaseLedgerDrainer drainer;
+
+  @BeforeEach
+  void setup() throws Exception {
+    ledger = new PurchaseLedger(tempDir.resolve("ledger.dat").toString(), 4096, false);
+    inventoryService = mock(InventoryService.class);
+    rejectedPurchases = new RejectedPurchases(10);
+    drainer = new PurchaseLedgerDrainer(ledger, inventoryService, rejectedPurchases, 10, 60000, 60000);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    ledger.close();
+  }
+
+  @Test
+  @DisplayName("Test pending purchases are sent with their idempotency key")
+  void testDrain() {
+    LedgerEntry entry = ledger.append(1, 5).orElseThrow();
+    doReturn(Optional.of(new InventoryRecord(1, 5, "Product 1", "Great Products")))
+        .when(inventoryService).purchaseProduct(1, 5, entry.getIdempotencyKey().toString());
+
+    Assertions.assertEquals(1, drainer.drain());
+    Assertions.assertEquals(0, ledger.pendingCount());
+    verify(inventoryService).purchaseProduct(1, 5, entry.getIdempotencyKey().toString());
+  }
+
+  @Test
+  @DisplayName("Test a rejected purchase is drained and recorded as rejected")
+  void testDrainRejected() {
+    LedgerEntry entry = ledger.append(1, 5).orElseThrow();
+    doReturn(Optional.empty()).when(inventoryService).purchaseProduct(eq(1), eq(5), anyString());
+
+    Assertions.assertEquals(1, drainer.drain());
+    Assertions.assertEquals(0, ledger.pendingCount(), "A rejected purchase should not be retried");
+
+    RejectedPurchase rejection = rejectedPurchases.get(entry.getIdempotencyKey()).orElseThrow();
+    Assertions.assertEquals(1, rejection.getProductId().intValue());
+    Assertions.assertEquals(5, rejection.getQuantityPurchased().intValue());
+    Assertions.assertEquals(1, rejectedPurchases.list().size());
+  }
+
+  @Test
+  @DisplayName("Test a failed purchase stays in the ledger and is retried after a backoff")
+  void testDrainFailure() {
+    ledger.append(1, 5);
+    ledger.append(2, 3);
+    doThrow(new ResourceAccessException("Connection refused"))
+        .when(inventoryService).purchaseProduct(eq(1), eq(5), anyString());
+
+    Assertions.assertEquals(0, drainer.drain());
+    Assertions.assertEquals(2, ledger.pendingCount(), "Both purchases should still be pending");
+
+    // Within the backoff, the drainer does not try again
+    Assertions.assertEquals(0, drainer.drain());
+  }
+}
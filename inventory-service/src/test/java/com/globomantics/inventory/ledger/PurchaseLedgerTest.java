@@ -0,0 +1,106 @@
+package com.globomantics.inventory.ledger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class PurchaseLedgerTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  @DisplayName("Test appended entries are pending in order")
+  void testAppend() throws Exception {
+    try (PurchaseLedger ledger = open(4096)) {
+      LedgerEntry first = ledger.append(1, 5).orElseThrow();
+      LedgerEntry second = ledger.append(2, 3).orElseThrow();
+
+      List<LedgerEntry> pending = ledger.pending(10);
+      Assertions.assertEquals(2, pending.size());
+      Assertions.assertEquals(first.getIdempotencyKey(), pending.get(0).getIdempotencyKey());
+      Assertions.assertEquals(1, pending.get(0).getProductId());
+      Assertions.assertEquals(5, pending.get(0).getQuantityPurchased());
+      Assertions.assertEquals(second.getIdempotencyKey(), pending.get(1).getIdempotencyKey());
+    }
+  }
+
+  @Test
+  @DisplayName("Test undrained entries are recovered after a restart")
+  void testRecovery() throws Exception {
+    LedgerEntry second;
+    try (PurchaseLedger ledger = open(4096)) {
+      LedgerEntry first = ledger.append(1, 5).orElseThrow();
+      second = ledger.append(2, 3).orElseThrow();
+      ledger.markDrained(first);
+    }
+
+    try (PurchaseLedger ledger = open(4096)) {
+      List<LedgerEntry> pending = ledger.pending(10);
+      Assertions.assertEquals(1, pending.size(), "Only the undrained entry should be recovered");
+      Assertions.assertEquals(second.getIdempotencyKey(), pending.get(0).getIdempotencyKey());
+      Assertions.assertEquals(2, pending.get(0).getProductId());
+    }
+  }
+
+  @Test
+  @DisplayName("Test a full ledger rejects appends until it has been drained")
+  void testFull() throws Exception {
+    // A header and two records
+    try (PurchaseLedger ledger = open(64 + 2 * PurchaseLedger.RECORD_SIZE)) {
+      ledger.append(1, 1).orElseThrow();
+      LedgerEntry last = ledger.append(2, 1).orElseThrow();
+      Assertions.assertFalse(ledger.append(3, 1).isPresent(), "The ledger should be full");
+
+      ledger.markDrained(last);
+      Optional<LedgerEntry> entry = ledger.append(3, 1);
+      Assertions.assertTrue(entry.isPresent(), "A drained ledger should start over");
+      Assertions.assertEquals(1, ledger.pendingCount());
+    }
+
+    // Records from the previous generation are not recovered
+    try (PurchaseLedger ledger = open(64 + 2 * PurchaseLedger.RECORD_SIZE)) {
+      List<LedgerEntry> pending = ledger.pending(10);
+      Assertions.assertEquals(1, pending.size());
+      Assertions.assertEquals(3, pending.get(0).getProductId());
+    }
+  }
+
+  @Test
+  @DisplayName("Test concurrent appends are all recovered after a restart")
+  void testConcurrentAppends() throws Exception {
+    try (PurchaseLedger ledger = open(64 + 400 * PurchaseLedger.RECORD_SIZE)) {
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        List<Future<?>> appends = new ArrayList<>();
+        for (int productId = 0; productId < 400; productId++) {
+          int id = productId;
+          appends.add(executor.submit(() -> ledger.append(id, 1).orElseThrow()));
+        }
+        for (Future<?> append : appends) {
+          append.get(5, TimeUnit.SECONDS);
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    try (PurchaseLedger ledger = open(64 + 400 * PurchaseLedger.RECORD_SIZE)) {
+      Assertions.assertEquals(400, ledger.pendingCount(), "Every synced append should be recovered");
+    }
+  }
+
+  private PurchaseLedger open(int size) throws Exception {
+    return new PurchaseLedger(tempDir.resolve("ledger.dat").toString(), size, true);
+  }
+}
@@ -10,7 +10,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 
@@ -62,6 +65,27 @@ class InventoryServiceTest {
         "The quantity should be 500");
   }
 
+  @Test
+  void testGetInventoryRecordGzip() throws Exception {
+    // Configure a compressed response
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(("{\"productId\": 3, \"quantity\": 30, \"productName\": \"Product 3\", "
+          + "\"productCategory\": \"Great Products\"}").getBytes(StandardCharsets.UTF_8));
+    }
+    wireMockServer.stubFor(get(urlEqualTo("/inventory/3"))
+        .withHeader("Accept-Encoding", containing("gzip"))
+        .willReturn(aResponse()
+            .withHeader("Content-Type", "application/json")
+            .withHeader("Content-Encoding", "gzip")
+            .withStatus(200)
+            .withBody(compressed.toByteArray())));
+
+    Optional<InventoryRecord> record = service.getInventoryRecord(3);
+    Assertions.assertTrue(record.isPresent(), "InventoryRecord should be present");
+    Assertions.assertEquals(30, record.get().getQuantity().intValue(), "The quantity should be 30");
+  }
+
   @Test
   void testGetInventoryRecordNotFound() {
     Optional<InventoryRecord> record = service.getInventoryRecord(2);
@@ -0,0 +1,131 @@
+package com.globomantics.inventory.service;
+
+import com.globomantics.inventory.model.InventoryRecord;
+import com.globomantics.inventory.model.Reservation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ReservationServiceTest {
+
+  private InventoryService inventoryService;
+
+  private ReservationServiceImpl service;
+
+  @BeforeEach
+  void setup() {
+    inventoryService = mock(InventoryService.class);
+    doReturn(Optional.of(new InventoryRecord(1, 10, "Product 1", "Great Products")))
+        .when(inventoryService).getInventoryRecord(1);
+    doReturn(Optional.empty()).when(inventoryService).getInventoryRecord(2);
+    service = new ReservationServiceImpl(inventoryService, Duration.ofMinutes(10));
+  }
+
+  @Test
+  @DisplayName("Test reserving and releasing stock")
+  void testReserveAndRelease() {
+    Reservation reservation = service.reserve(1, 4).orElseThrow();
+    Assertions.assertEquals(6, service.getAvailableQuantity(1).orElseThrow());
+
+    Assertions.assertFalse(service.reserve(1, 7).isPresent(), "Only 6 should be available");
+
+    Assertions.assertTrue(service.release(reservation.getId()));
+    Assertions.assertFalse(service.release(reservation.getId()), "A reservation can only be released once");
+    Assertions.assertEquals(10, service.getAvailableQuantity(1).orElseThrow());
+
+    // The stock was only loaded once
+    verify(inventoryService, times(1)).getInventoryRecord(1);
+  }
+
+  @Test
+  @DisplayName("Test reserving an unknown product")
+  void testReserveUnknownProduct() {
+    Assertions.assertFalse(service.reserve(2, 1).isPresent());
+    Assertions.assertFalse(service.getAvailableQuantity(2).isPresent());
+  }
+
+  @Test
+  @DisplayName("Test committing a reservation purchases it with the reservation ID as idempotency key")
+  void testCommit() {
+    Reservation reservation = service.reserve(1, 4).orElseThrow();
+    doReturn(Optional.of(new InventoryRecord(1, 6, "Product 1", "Great Products")))
+        .when(inventoryService).purchaseProduct(1, 4, reservation.getId().toString());
+
+    Assertions.assertTrue(service.commit(reservation.getId()).isPresent());
+    Assertions.assertEquals(6, service.getAvailableQuantity(1).orElseThrow());
+    Assertions.assertFalse(service.commit(reservation.getId()).isPresent(), "A reservation can only be committed once");
+  }
+
+  @Test
+  @DisplayName("Test a rejected commit releases the reservation")
+  void testCommitRejected() {
+    Reservation reservation = service.reserve(1, 4).orElseThrow();
+    doReturn(Optional.empty()).when(inventoryService).purchaseProduct(1, 4, reservation.getId().toString());
+
+    Assertions.assertFalse(service.commit(reservation.getId()).isPresent());
+    Assertions.assertEquals(10, service.getAvailableQuantity(1).orElseThrow());
+  }
+
+  @Test
+  @DisplayName("Test a commit that times out keeps the reservation for a retry with the same key")
+  void testCommitTimeoutKeepsReservation() {
+    Reservation reservation = service.reserve(1, 4).orElseThrow();
+    String idempotencyKey = reservation.getId().toString();
+    doThrow(new ResourceAccessException("Read timed out")).when(inventoryService).purchaseProduct(1, 4, idempotencyKey);
+
+    Assertions.assertThrows(ResourceAccessException.class, () -> service.commit(reservation.getId()));
+    Assertions.assertEquals(6, service.getAvailableQuantity(1).orElseThrow(), "The stock should still be reserved");
+
+    // The retry is sent with the same idempotency key, so the Inventory Manager applies the purchase once
+    doReturn(Optional.of(new InventoryRecord(1, 6, "Product 1", "Great Products")))
+        .when(inventoryService).purchaseProduct(1, 4, idempotencyKey);
+    Assertions.assertTrue(service.commit(reservation.getId()).isPresent());
+    Assertions.assertEquals(6, service.getAvailableQuantity(1).orElseThrow());
+    verify(inventoryService, times(2)).purchaseProduct(1, 4, idempotencyKey);
+  }
+
+  @Test
+  @DisplayName("Test reconciling keeps reserved stock held")
+  void testReconcile() {
+    service.reserve(1, 4).orElseThrow();
+    doReturn(Optional.of(new InventoryRecord(1, 8, "Product 1", "Great Products")))
+        .when(inventoryService).refreshInventoryRecord(1);
+
+    service.reconcile();
+
+    Assertions.assertEquals(4, service.getAvailableQuantity(1).orElseThrow());
+  }
+
+  @Test
+  @DisplayName("Test concurrent reservations never oversell")
+  void testConcurrentReservations() throws Exception {
+    doReturn(Optional.of(new InventoryRecord(3, 1000, "Product 3", "Great Products")))
+        .when(inventoryService).getInventoryRecord(3);
+    AtomicInteger reserved = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 2000; i++) {
+      executor.execute(() -> service.reserve(3, 1).ifPresent(reservation -> reserved.incrementAndGet()));
+    }
+    executor.shutdown();
+    Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    Assertions.assertEquals(1000, reserved.get());
+    Assertions.assertEquals(0, service.getAvailableQuantity(3).orElseThrow());
+  }
+}
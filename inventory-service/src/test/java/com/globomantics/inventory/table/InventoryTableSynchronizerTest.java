@@ -0,0 +1,86 @@
+package com.globomantics.inventory.table;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.globomantics.inventory.model.InventoryRecord;
+import com.globomantics.inventory.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class InventoryTableSynchronizerTest {
+
+  private WireMockServer wireMockServer;
+
+  private InventoryService inventoryService;
+
+  private InventoryTableSynchronizer synchronizer;
+
+  @BeforeEach
+  void beforeEach() {
+    // Start the WireMock Server, standing in for the product service
+    wireMockServer = new WireMockServer(9998);
+    wireMockServer.start();
+    wireMockServer.stubFor(get(urlEqualTo("/products"))
+        .willReturn(aResponse()
+            .withHeader("Content-Type", "application/json")
+            .withStatus(200)
+            .withBody("[{\"id\": 1, \"name\": \"Product 1\"}, {\"id\": 2, \"name\": \"Product 2\"}, "
+                + "{\"id\": 3, \"name\": \"Product 3\"}]")));
+
+    inventoryService = mock(InventoryService.class);
+    doReturn(Optional.of(new InventoryRecord(1, 10, "Product 1", "Great Products")))
+        .when(inventoryService).refreshInventoryRecord(1);
+    doReturn(Optional.of(new InventoryRecord(2, 20, "Product 2", "Great Products")))
+        .when(inventoryService).refreshInventoryRecord(2);
+    doReturn(Optional.empty()).when(inventoryService).refreshInventoryRecord(3);
+
+    synchronizer = new InventoryTableSynchronizer(inventoryService, new InventoryTable(16, false),
+        "http://localhost:9998/products", 2, 2, 1000, Duration.ofSeconds(10));
+  }
+
+  @AfterEach
+  void afterEach() {
+    synchronizer.shutdown();
+    wireMockServer.stop();
+  }
+
+  @Test
+  @DisplayName("Test every product in the catalog is loaded")
+  void testSynchronize() throws Exception {
+    int synced = synchronizer.synchronize().get(5, TimeUnit.SECONDS);
+
+    Assertions.assertEquals(2, synced, "Product 3 has no inventory record");
+    verify(inventoryService).refreshInventoryRecord(1);
+    verify(inventoryService).refreshInventoryRecord(2);
+    verify(inventoryService).refreshInventoryRecord(3);
+  }
+
+  @Test
+  @DisplayName("Test a sync does not start while the previous one is running")
+  void testSyncSkippedWhileRunning() throws Exception {
+    // Product 1 takes long enough to refresh that the first sync is still running when the second is started
+    doAnswer(invocation -> {
+      TimeUnit.MILLISECONDS.sleep(500);
+      return Optional.empty();
+    }).when(inventoryService).refreshInventoryRecord(1);
+
+    CompletableFuture<Integer> first = synchronizer.startSynchronize().orElseThrow();
+    Assertions.assertTrue(synchronizer.startSynchronize().isEmpty(), "The second sync should have been skipped");
+
+    first.get(5, TimeUnit.SECONDS);
+    Assertions.assertTrue(synchronizer.startSynchronize().isPresent(), "A sync should start once the first is done");
+  }
+}
@@ -0,0 +1,71 @@
+package com.globomantics.inventory.table;
+
+import com.globomantics.inventory.model.InventoryRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Optional;
+
+class InventoryTableTest {
+
+  @ParameterizedTest(name = "off-heap: {0}")
+  @ValueSource(booleans = {false, true})
+  @DisplayName("Test records can be stored, replaced and read")
+  void testPutAndGet(boolean offHeap) {
+    InventoryTable table = new InventoryTable(16, offHeap);
+    table.put(new InventoryRecord(1, 10, "Product 1", "Great Products"));
+    table.put(new InventoryRecord(1, 7, "Product 1", "Great Products"));
+
+    Optional<InventoryRecord> inventoryRecord = table.get(1);
+    Assertions.assertTrue(inventoryRecord.isPresent(), "InventoryRecord should be present");
+    Assertions.assertEquals(7, inventoryRecord.get().getQuantity().intValue());
+    Assertions.assertEquals("Product 1", inventoryRecord.get().getProductName());
+    Assertions.assertEquals("Great Products", inventoryRecord.get().getProductCategory());
+    Assertions.assertEquals(1, table.size());
+
+    Assertions.assertFalse(table.get(2).isPresent(), "InventoryRecord should not be present");
+    Assertions.assertEquals(InventoryTable.NO_QUANTITY, table.getQuantity(2));
+  }
+
+  @ParameterizedTest(name = "off-heap: {0}")
+  @ValueSource(booleans = {false, true})
+  @DisplayName("Test the table grows and keeps every record")
+  void testResize(boolean offHeap) {
+    InventoryTable table = new InventoryTable(16, offHeap);
+    for (int productId = 0; productId < 10_000; productId++) {
+      table.put(new InventoryRecord(productId, productId * 2, "Product " + productId,
+          "Category " + (productId % 10)));
+    }
+
+    Assertions.assertEquals(10_000, table.size());
+    for (int productId = 0; productId < 10_000; productId++) {
+      Assertions.assertEquals(productId * 2, table.getQuantity(productId));
+    }
+    Assertions.assertEquals("Category 3", table.get(9_993).get().getProductCategory());
+  }
+
+  @ParameterizedTest(name = "off-heap: {0}")
+  @ValueSource(booleans = {false, true})
+  @DisplayName("Test renamed products keep their current names")
+  void testRename(boolean offHeap) {
+    InventoryTable table = new InventoryTable(16, offHeap);
+    for (int productId = 0; productId < 100; productId++) {
+      table.put(new InventoryRecord(productId, 1, "Product " + productId, "Great Products"));
+    }
+
+    // Renaming every product many times fills the name arena with replaced names, which are compacted away
+    for (int round = 0; round < 10; round++) {
+      for (int productId = 0; productId < 100; productId++) {
+        table.put(new InventoryRecord(productId, 1, "Product " + productId + " v" + round, "Great Products"));
+      }
+    }
+    table.put(new InventoryRecord(7, 1, null, null));
+
+    Assertions.assertEquals("Product 0 v9", table.get(0).get().getProductName());
+    Assertions.assertEquals("Product 99 v9", table.get(99).get().getProductName());
+    Assertions.assertNull(table.get(7).get().getProductName());
+    Assertions.assertNull(table.get(7).get().getProductCategory());
+  }
+}
@@ -0,0 +1,131 @@
+package com.globomantics.products.cache;
+
+import com.globomantics.products.model.ProductInvalidation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * An invalidation channel that posts invalidations to the peer instances listed in products.cache.peers, which
+ * receive them through CacheInvalidationController. Posts are sent in the background so that a slow or missing peer
+ * never delays a product update; a failed post is logged and the peer's copy expires with its time to live.
+ *
+ * Invalidations published while a post is in flight are queued and sent together in one post per peer. A batch of
+ * more than products.cache.max-batch-size invalidations, or one that drops every product, is sent as a single
+ * invalidation of every product instead, so the queue never holds more than one batch.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "products.cache.channel", havingValue = "http")
+public class HttpInvalidationChannel implements InvalidationChannel {
+
+  /**
+   * The path of CacheInvalidationController on every peer.
+   */
+  private static final String INVALIDATIONS_PATH = "/products/cache/invalidations";
+
+  private final RestTemplate restTemplate;
+
+  private final List<String> peerUrls;
+
+  private final int maxBatchSize;
+
+  private final List<Consumer<ProductInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+  /**
+   * The invalidations waiting for the next post, and whether a post of them has been scheduled.
+   */
+  private final Queue<ProductInvalidation> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean sendScheduled = new AtomicBoolean();
+
+  private final ExecutorService senderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "product-cache-invalidations");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public HttpInvalidationChannel(RestTemplateBuilder restTemplateBuilder,
+                                 @Value("${products.cache.peers:}") List<String> peerUrls,
+                                 @Value("${products.cache.peer-timeout:PT0.5S}") Duration timeout,
+                                 @Value("${products.cache.max-batch-size:1000}") int maxBatchSize) {
+    this.restTemplate = restTemplateBuilder
+        .setConnectTimeout(timeout)
+        .setReadTimeout(timeout)
+        .build();
+    this.peerUrls = peerUrls;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  @Override
+  public void publish(ProductInvalidation invalidation) {
+    deliver(invalidation);
+    pending.add(invalidation);
+    if (sendScheduled.compareAndSet(false, true)) {
+      senderExecutor.execute(this::sendPending);
+    }
+  }
+
+  /**
+   * Posts the pending invalidations to every peer as one batch.
+   */
+  private void sendPending() {
+    // Cleared before draining, so that an invalidation published from here on schedules another post
+    sendScheduled.set(false);
+
+    List<ProductInvalidation> batch = new ArrayList<>();
+    for (ProductInvalidation invalidation = pending.poll(); invalidation != null; invalidation = pending.poll()) {
+      batch.add(invalidation);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    if (batch.size() > maxBatchSize || batch.stream().anyMatch(invalidation -> invalidation.getProductId() == null)) {
+      // The peers drop every copy anyway, so one invalidation of every product replaces the batch
+      batch = Collections.singletonList(new ProductInvalidation(null, null, batch.get(0).getOrigin()));
+    }
+
+    for (String peerUrl : peerUrls) {
+      try {
+        restTemplate.postForEntity(peerUrl + INVALIDATIONS_PATH, batch, Void.class);
+      } catch (RestClientException e) {
+        log.warn("Failed to send {} product invalidations to {}: {}", batch.size(), peerUrl, e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<ProductInvalidation> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  /**
+   * Passes an invalidation received from a peer to this instance's subscribers.
+   *
+   * @param invalidation  The invalidation received.
+   */
+  public void deliver(ProductInvalidation invalidation) {
+    subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    senderExecutor.shutdownNow();
+  }
+}
@@ -0,0 +1,26 @@
+package com.globomantics.products.cache;
+
+import com.globomantics.products.model.ProductInvalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts product invalidations between the product near-caches of all instances. Delivery is best effort: a
+ * lost invalidation leaves a stale copy until the cached product expires.
+ */
+public interface InvalidationChannel {
+
+  /**
+   * Sends the specified invalidation to every subscriber, including those of this instance.
+   *
+   * @param invalidation  The invalidation to broadcast.
+   */
+  void publish(ProductInvalidation invalidation);
+
+  /**
+   * Registers a consumer for the invalidations published by any instance.
+   *
+   * @param subscriber    The consumer of invalidations.
+   */
+  void subscribe(Consumer<ProductInvalidation> subscriber);
+}
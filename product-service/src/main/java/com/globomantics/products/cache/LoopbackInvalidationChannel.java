@@ -0,0 +1,30 @@
+package com.globomantics.products.cache;
+
+import com.globomantics.products.model.ProductInvalidation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An invalidation channel that only reaches the subscribers in this JVM. It is the default channel, for a single
+ * instance and for tests, where several caches subscribed to one channel stand in for several instances.
+ */
+@Component
+@ConditionalOnProperty(name = "products.cache.channel", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackInvalidationChannel implements InvalidationChannel {
+
+  private final List<Consumer<ProductInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(ProductInvalidation invalidation) {
+    subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+  }
+
+  @Override
+  public void subscribe(Consumer<ProductInvalidation> subscriber) {
+    subscribers.add(subscriber);
+  }
+}
@@ -0,0 +1,230 @@
+package com.globomantics.products.cache;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductInvalidation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A per-instance cache of products by ID, enabled with products.cache.enabled. When a product changes, this instance
+ * drops its copy and broadcasts the product's new version over the {@link InvalidationChannel}; every other instance
+ * then drops its copy only if it is older, so a peer that has already loaded the new version keeps it.
+ *
+ * An invalidation leaves a marker with the new version behind, so that a load that started before the invalidation
+ * (from a lagging replica, say) cannot put the old version back. Invalidations are best effort: the time to live
+ * bounds how long a copy can be served after a lost invalidation.
+ *
+ * Products are copied on their way into and out of the cache, because the controller modifies the products it is
+ * given.
+ *
+ * When the cache is full, the oldest entries are evicted to make room, as in the review service's cache. Every entry
+ * has the same time to live, so the oldest entries are also the first to expire.
+ */
+@Component
+@ConditionalOnProperty(name = "products.cache.enabled", havingValue = "true")
+public class ProductNearCache implements MeterBinder {
+
+  /**
+   * Identifies this instance's invalidations, which it has already applied, when the channel delivers them back.
+   */
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private final Map<Integer, CachedProduct> productsById = new ConcurrentHashMap<>();
+
+  /**
+   * The cached products and markers in the order they were added. Entries that were replaced or removed remain in
+   * the queue until they reach its head, where they are skipped.
+   */
+  private final Queue<CachedProduct> addOrder = new ConcurrentLinkedQueue<>();
+
+  private final InvalidationChannel channel;
+
+  /**
+   * The maximum number of cached products and invalidation markers.
+   */
+  private final int maxSize;
+
+  /**
+   * How long a cached product is served before it is reloaded.
+   */
+  private final long timeToLiveNanos;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public ProductNearCache(InvalidationChannel channel,
+                          @Value("${products.cache.max-size:10000}") int maxSize,
+                          @Value("${products.cache.time-to-live:PT30S}") Duration timeToLive) {
+    this.channel = channel;
+    this.maxSize = maxSize;
+    this.timeToLiveNanos = timeToLive.toNanos();
+    channel.subscribe(this::onInvalidation);
+  }
+
+  /**
+   * Returns the product with the specified ID, loading it with the specified loader on a cache miss.
+   *
+   * @param id        The ID of the product to return.
+   * @param loader    The function used to load the product on a cache miss.
+   * @return          A copy of the product with the specified ID, if one exists.
+   */
+  public Optional<Product> get(Integer id, Function<Integer, Optional<Product>> loader) {
+    CachedProduct cached = productsById.get(id);
+    if (cached != null && cached.product != null && !cached.isExpired()) {
+      hits.incrementAndGet();
+      return Optional.of(copy(cached.product));
+    }
+
+    misses.incrementAndGet();
+    Optional<Product> product = loader.apply(id);
+    product.ifPresent(this::put);
+    return product.map(ProductNearCache::copy);
+  }
+
+  private void put(Product product) {
+    makeRoom();
+    CachedProduct loaded = new CachedProduct(product.getId(), copy(product), product.getVersion(), expiresAt());
+    CachedProduct cached = productsById.compute(product.getId(), (id, existing) ->
+        // Keep a newer product, or the marker of a newer version, that arrived while this one was loading
+        isNewer(existing, product.getVersion()) ? existing : loaded);
+    if (cached == loaded) {
+      addOrder.add(loaded);
+    }
+  }
+
+  /**
+   * Drops expired entries and, while the cache is full, the oldest entries, from the head of the add order.
+   */
+  private void makeRoom() {
+    CachedProduct oldest;
+    while ((oldest = addOrder.peek()) != null) {
+      boolean removed = productsById.get(oldest.productId) != oldest;
+      if (!removed && !oldest.isExpired() && productsById.size() < maxSize) {
+        return;
+      }
+      if (addOrder.remove(oldest)) {
+        productsById.remove(oldest.productId, oldest);
+      }
+    }
+  }
+
+  /**
+   * Drops this instance's copy of the specified product and tells the other instances to drop theirs.
+   *
+   * @param productId The ID of the product that changed.
+   * @param version   The product's new version, or null if the product was deleted or replaced.
+   */
+  public void invalidate(Integer productId, Integer version) {
+    apply(productId, version);
+    channel.publish(new ProductInvalidation(productId, version, instanceId));
+  }
+
+  /**
+   * Drops every product cached by this instance and tells the other instances to drop theirs, with a single
+   * invalidation however many products changed.
+   */
+  public void invalidateAll() {
+    clear();
+    channel.publish(new ProductInvalidation(null, null, instanceId));
+  }
+
+  private void onInvalidation(ProductInvalidation invalidation) {
+    if (instanceId.equals(invalidation.getOrigin())) {
+      return;
+    }
+    if (invalidation.getProductId() == null) {
+      clear();
+    } else {
+      apply(invalidation.getProductId(), invalidation.getVersion());
+    }
+  }
+
+  private void apply(Integer productId, Integer version) {
+    if (version == null) {
+      productsById.remove(productId);
+      return;
+    }
+    makeRoom();
+    CachedProduct marker = new CachedProduct(productId, null, version, expiresAt());
+    CachedProduct cached = productsById.compute(productId, (id, existing) ->
+        isNewer(existing, version - 1) ? existing : marker);
+    if (cached == marker) {
+      addOrder.add(marker);
+    }
+  }
+
+  /**
+   * Returns true if the specified entry is live and has a version greater than the specified version.
+   */
+  private static boolean isNewer(CachedProduct entry, int version) {
+    return entry != null && !entry.isExpired() && entry.version > version;
+  }
+
+  /**
+   * Drops every cached product on this instance.
+   */
+  public void clear() {
+    productsById.clear();
+    addOrder.clear();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("products.cache.requests", hits, AtomicLong::get)
+        .description("Product lookups served by the near-cache")
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("products.cache.requests", misses, AtomicLong::get)
+        .description("Product lookups served by the near-cache")
+        .tag("result", "miss")
+        .register(registry);
+  }
+
+  private long expiresAt() {
+    return System.nanoTime() + timeToLiveNanos;
+  }
+
+  private static Product copy(Product product) {
+    return Product.builder()
+        .id(product.getId())
+        .name(product.getName())
+        .quantity(product.getQuantity())
+        .version(product.getVersion()).build();
+  }
+
+  /**
+   * A cached product, or the marker of an invalidation (with no product), and the time, in System.nanoTime() units,
+   * at which it expires.
+   */
+  private static final class CachedProduct {
+    private final Integer productId;
+    private final Product product;
+    private final int version;
+    private final long expiresAt;
+
+    private CachedProduct(Integer productId, Product product, int version, long expiresAt) {
+      this.productId = productId;
+      this.product = product;
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired() {
+      return System.nanoTime() - expiresAt > 0;
+    }
+  }
+}
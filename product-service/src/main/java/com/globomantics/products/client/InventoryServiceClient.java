@@ -0,0 +1,46 @@
+package com.globomantics.products.client;
+
+import com.globomantics.products.model.InventoryRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A client of the inventory service.
+ */
+@Component
+public class InventoryServiceClient {
+
+  private final RestTemplate restTemplate;
+
+  private final String baseUrl;
+
+  public InventoryServiceClient(RestTemplateBuilder restTemplateBuilder,
+                                @Value("${inventoryservice.baseUrl:http://localhost:8083/inventory}") String baseUrl,
+                                @Value("${products.detail.inventory-timeout:PT0.5S}") Duration timeout) {
+    this.restTemplate = restTemplateBuilder
+        .setConnectTimeout(timeout)
+        .setReadTimeout(timeout)
+        .build();
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * Returns the inventory record of the specified product.
+   *
+   * @param productId The product ID of the inventory record.
+   * @return          The product's inventory record, or empty if the inventory service does not know the product.
+   */
+  public Optional<InventoryRecord> getInventoryRecord(Integer productId) {
+    try {
+      return Optional.ofNullable(restTemplate.getForObject(baseUrl + "/" + productId, InventoryRecord.class));
+    } catch (HttpClientErrorException.NotFound e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.globomantics.products.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.globomantics.products.model.ReviewSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A client of the review service.
+ */
+@Component
+public class ReviewServiceClient {
+
+  private final RestTemplate restTemplate;
+
+  private final String baseUrl;
+
+  public ReviewServiceClient(RestTemplateBuilder restTemplateBuilder,
+                             @Value("${reviewservice.baseUrl:http://localhost:8082/reviews}") String baseUrl,
+                             @Value("${products.detail.reviews-timeout:PT0.5S}") Duration timeout) {
+    this.restTemplate = restTemplateBuilder
+        .setConnectTimeout(timeout)
+        .setReadTimeout(timeout)
+        .build();
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * Returns a summary of the review for the specified product.
+   *
+   * @param productId The product ID of the review.
+   * @return          The summary of the product's review, or empty if the product has no review.
+   */
+  public Optional<ReviewSummary> getReviewSummary(Integer productId) {
+    // The review service returns a list holding the product's review, if it has one
+    JsonNode reviews = restTemplate.getForObject(baseUrl + "?productId=" + productId, JsonNode.class);
+    if (reviews == null || !reviews.isArray() || reviews.size() == 0) {
+      return Optional.empty();
+    }
+
+    JsonNode review = reviews.get(0);
+    return Optional.of(ReviewSummary.builder()
+        .reviewId(review.path("id").asText(null))
+        .productId(productId)
+        .version(review.path("version").asInt())
+        .entryCount(review.path("entries").size())
+        .build());
+  }
+}
@@ -0,0 +1,67 @@
+package com.globomantics.products.config;
+
+import com.globomantics.products.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes the saturation of the connection pool, the share of its connections in use, next to the pool metrics
+ * Hikari already publishes (active, idle and pending connections, and acquire, usage and creation times). A pool
+ * that runs close to 1.0 while threads are pending is the first thing to look at when latency spikes under load.
+ * With read/write splitting, the primary and each replica pool get a gauge of their own.
+ */
+@Configuration
+public class DataSourceMetricsConfig {
+
+  @Bean
+  public MeterBinder dataSourceSaturationMetrics(DataSource dataSource,
+                                                 ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource) {
+    return registry -> {
+      List<DataSource> pools = new ArrayList<>();
+      ReplicaRoutingDataSource routing = replicaRoutingDataSource.getIfAvailable();
+      if (routing != null) {
+        // Unwrapping the routing data source would only reach the pool of the current route
+        pools.addAll(routing.getResolvedDataSources().values());
+      } else {
+        pools.add(dataSource);
+      }
+      for (DataSource pool : pools) {
+        HikariDataSource hikariDataSource = unwrap(pool);
+        if (hikariDataSource == null) {
+          continue;
+        }
+        Gauge.builder("products.datasource.saturation", hikariDataSource, DataSourceMetricsConfig::saturation)
+            .description("The share of the pool's connections that are in use")
+            .tag("pool", String.valueOf(hikariDataSource.getPoolName()))
+            .register(registry);
+      }
+    };
+  }
+
+  private static double saturation(HikariDataSource dataSource) {
+    // The pool MXBean is only available once the pool has started
+    HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+    if (pool == null || dataSource.getMaximumPoolSize() == 0) {
+      return 0;
+    }
+    return (double) pool.getActiveConnections() / dataSource.getMaximumPoolSize();
+  }
+
+  private static HikariDataSource unwrap(DataSource dataSource) {
+    try {
+      return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+    } catch (SQLException e) {
+      return null;
+    }
+  }
+}
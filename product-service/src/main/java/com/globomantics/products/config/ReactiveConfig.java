@@ -0,0 +1,44 @@
+package com.globomantics.products.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Configures the reactive profile: products are served by ReactiveProductController on Netty and read with R2DBC
+ * from products.r2dbc.url. The default URL opens the same in-memory H2 database as spring.datasource, so both
+ * stacks see the same products and can be compared under the same load.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionPool connectionFactory(@Value("${products.r2dbc.url:r2dbc:h2:mem:///products?options=DB_CLOSE_DELAY=-1}") String url,
+                                          @Value("${products.r2dbc.pool-size:10}") int poolSize) {
+    return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+        .initialSize(poolSize)
+        .maxSize(poolSize)
+        .build());
+  }
+
+  @Bean
+  public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+    return DatabaseClient.create(connectionFactory);
+  }
+
+  /**
+   * Tomcat is also on the classpath and would otherwise be preferred, running WebFlux on servlet threads.
+   */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+}
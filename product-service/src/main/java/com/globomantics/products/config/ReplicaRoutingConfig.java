@@ -0,0 +1,59 @@
+package com.globomantics.products.config;
+
+import com.globomantics.products.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits reads from writes when products.datasource.routing.enabled is true: spring.datasource configures the
+ * primary, and products.datasource.replicas lists the JDBC URLs of the read replicas, which use the primary's
+ * credentials and pool settings. Repository methods marked @Transactional(readOnly = true) read from the replicas.
+ * The replica pools are not beans, so Spring Boot does not bind their metrics; they are given the meter registry
+ * here instead and publish the same hikaricp metrics as the primary, under their own pool names.
+ */
+@Configuration
+@ConditionalOnProperty(name = "products.datasource.routing.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                           @Value("${products.datasource.replicas}") List<String> replicaUrls,
+                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+    List<DataSource> replicas = new ArrayList<>();
+    for (int i = 0; i < replicaUrls.size(); i++) {
+      HikariDataSource replica = new HikariDataSource();
+      primaryDataSource.copyStateTo(replica);
+      replica.setJdbcUrl(replicaUrls.get(i));
+      replica.setPoolName(primaryDataSource.getPoolName() + "-replica-" + i);
+      replica.setReadOnly(true);
+      meterRegistry.ifAvailable(replica::setMetricRegistry);
+      replicas.add(replica);
+    }
+    return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+}
@@ -0,0 +1,44 @@
+package com.globomantics.products.config;
+
+import com.globomantics.products.repository.ShardedProductRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores products across several databases when products.sharding.enabled is true. products.sharding.shards lists
+ * the JDBC URLs of the shards, which use spring.datasource's credentials; each shard gets its own connection pool.
+ * The shards must already contain the products table and the product_ids sequence.
+ */
+@Configuration
+@ConditionalOnProperty(name = "products.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+  @Bean
+  @Primary
+  public ShardedProductRepository shardedProductRepository(DataSourceProperties properties,
+                                                           @Value("${products.sharding.shards}") List<String> shardUrls,
+                                                           @Value("${products.sharding.pool-size:10}") int poolSize,
+                                                           @Value("${products.sharding.page-size:1000}") int pageSize,
+                                                           @Value("${products.ids.block-size:100}") int idBlockSize) {
+    List<DataSource> shards = new ArrayList<>();
+    for (int i = 0; i < shardUrls.size(); i++) {
+      HikariDataSource shard = properties.initializeDataSourceBuilder()
+          .type(HikariDataSource.class)
+          .url(shardUrls.get(i))
+          .build();
+      shard.setPoolName("products-shard-" + i);
+      shard.setMaximumPoolSize(poolSize);
+      shards.add(shard);
+    }
+    return new ShardedProductRepository(shards, pageSize, idBlockSize);
+  }
+}
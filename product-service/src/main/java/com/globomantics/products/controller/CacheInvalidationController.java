@@ -0,0 +1,39 @@
+package com.globomantics.products.controller;
+
+import com.globomantics.products.cache.HttpInvalidationChannel;
+import com.globomantics.products.model.ProductInvalidation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Receives the product invalidations that peer instances send through their HttpInvalidationChannel.
+ */
+@RestController
+@ConditionalOnProperty(name = "products.cache.channel", havingValue = "http")
+@RequestMapping(ProductController.REQUEST_MAPPING + "/cache/invalidations")
+public class CacheInvalidationController {
+
+  private final HttpInvalidationChannel channel;
+
+  public CacheInvalidationController(HttpInvalidationChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Applies a batch of invalidations sent by a peer to this instance's near-cache, in order.
+   *
+   * @param invalidations The invalidations.
+   * @return 204 No Content.
+   */
+  @PostMapping
+  public ResponseEntity<Void> invalidate(@RequestBody List<ProductInvalidation> invalidations) {
+    invalidations.forEach(channel::deliver);
+    return ResponseEntity.noContent().build();
+  }
+}
@@ -0,0 +1,129 @@
+package com.globomantics.products.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * Answers conditional GET requests. Controllers compute the ETag of what they are about to return, either the
+ * strong ETag of a versioned resource from {@link ResourceHeaders#eTag(int)} or a weak ETag hashed from the content
+ * of a collection, and a matching If-None-Match header is answered with 304 Not Modified before the body is
+ * serialized or sent.
+ *
+ * Collection ETags are weak because they are hashed from the fields of the elements, not from the bytes of the
+ * response, so two responses with the same ETag are equivalent but not necessarily byte-for-byte identical.
+ */
+public final class ConditionalRequests {
+
+  private ConditionalRequests() {
+  }
+
+  /**
+   * Returns 304 Not Modified if the specified If-None-Match header matches the specified ETag, otherwise 200 OK with
+   * the specified body. Both responses carry the ETag.
+   *
+   * @param ifNoneMatch The If-None-Match header value, or null if there is none.
+   * @param eTag        The quoted ETag of the body, which may be weak.
+   * @param body        The body to return if the client's copy is not current.
+   * @return            The response.
+   */
+  public static <T> ResponseEntity<T> ok(String ifNoneMatch, String eTag, T body) {
+    if (notModified(ifNoneMatch, eTag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, eTag).build();
+    }
+    return ResponseEntity.ok().header(HttpHeaders.ETAG, eTag).body(body);
+  }
+
+  /**
+   * Returns true if the specified If-None-Match header matches the specified ETag. As If-None-Match uses the weak
+   * comparison, weak validator prefixes are ignored; the header may list several ETags or be *.
+   *
+   * @param ifNoneMatch The If-None-Match header value, or null if there is none.
+   * @param eTag        The ETag to compare against, quoted or not.
+   * @return            True if the client's copy is current.
+   */
+  public static boolean notModified(String ifNoneMatch, String eTag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    String value = opaqueTag(eTag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if ("*".equals(trimmed) || opaqueTag(trimmed).equals(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the value of the specified ETag without its quotes or weak validator prefix.
+   *
+   * @param eTag  An ETag, such as W/"1", "1" or 1.
+   * @return      The unquoted ETag value.
+   */
+  public static String opaqueTag(String eTag) {
+    String value = eTag.trim();
+    if (value.startsWith("W/")) {
+      value = value.substring(2);
+    }
+    if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+      value = value.substring(1, value.length() - 1);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the weak ETag of the specified collection, hashed from the number of elements and the fields that each
+   * element adds to the hash.
+   *
+   * @param elements  The elements of the collection, in the order they are returned.
+   * @param fields    Adds the fields of an element that appear in the response to the hash.
+   * @return          The weak ETag, such as W/"3-1a2b3c4d5e6f7a8b".
+   */
+  public static <T> String weakETag(Collection<T> elements, BiConsumer<ContentHash, T> fields) {
+    ContentHash hash = new ContentHash();
+    elements.forEach(element -> fields.accept(hash, element));
+    return "W/\"" + elements.size() + "-" + Long.toHexString(hash.value) + "\"";
+  }
+
+  /**
+   * A 64-bit FNV-1a hash of the fields of a collection's elements. It is not cryptographic; it only has to change
+   * when the content does.
+   */
+  public static final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private long value = OFFSET_BASIS;
+
+    public ContentHash add(long field) {
+      for (int i = 0; i < Long.BYTES; i++) {
+        value = (value ^ (field & 0xff)) * PRIME;
+        field >>>= 8;
+      }
+      return this;
+    }
+
+    public ContentHash add(Integer field) {
+      return field == null ? add(Long.MIN_VALUE) : add(field.longValue());
+    }
+
+    public ContentHash add(String field) {
+      if (field == null) {
+        return add(Long.MIN_VALUE);
+      }
+      // The length keeps adjacent fields apart, so that "ab" + "c" and "a" + "bc" hash differently
+      add(field.length());
+      for (int i = 0; i < field.length(); i++) {
+        value = (value ^ field.charAt(i)) * PRIME;
+      }
+      return this;
+    }
+  }
+}
@@ -1,66 +1,307 @@
 package com.globomantics.products.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductChange;
+import com.globomantics.products.model.ProductImportResult;
 import com.globomantics.products.service.ProductService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static com.globomantics.products.logging.SampledLogFilter.SAMPLED;
 
 @RestController
 @Slf4j
+@Profile("!reactive")
 @RequestMapping(ProductController.REQUEST_MAPPING)
 public class ProductController {
 
   public static final String REQUEST_MAPPING = "/products";
 
+  /**
+   * The Location and ETag values of product responses, shared with the other product controllers.
+   */
+  static final ResourceHeaders HEADERS = new ResourceHeaders(REQUEST_MAPPING);
+
+  /**
+   * The largest page of search results that can be requested.
+   */
+  static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+  /**
+   * The largest number of changes returned by one request to the change feed.
+   */
+  static final int MAX_CHANGES_LIMIT = 10_000;
+
+  /**
+   * The maximum number of failed line numbers reported by an import.
+   */
+  private static final int MAX_REPORTED_FAILURES = 100;
+
   private final ProductService productService;
 
+  private final ObjectReader productReader;
+
+  private final ObjectWriter productWriter;
+
+  private final ObjectWriter changeWriter;
 
-  public ProductController(ProductService productService) {
+  private final int importBatchSize;
+
+  public ProductController(ProductService productService,
+                           ObjectMapper objectMapper,
+                           @Value("${products.import.batch-size:1000}") int importBatchSize) {
     this.productService = productService;
+    this.productReader = objectMapper.readerFor(Product.class);
+    // Each product is written to the same response stream, which must stay open between products
+    this.productWriter = objectMapper.writerFor(Product.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.changeWriter = objectMapper.writerFor(ProductChange.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.importBatchSize = importBatchSize;
   }
 
   /**
    * Returns the product with the specified ID.
    *
-   * @param id The ID of the product to retrieve.
-   * @return The product with the specified ID.
+   * @param id          The ID of the product to retrieve.
+   * @param ifNoneMatch The ETag of the product that the client already has.
+   * @return The product with the specified ID, or 304 Not Modified if the client's copy is current.
    */
   @GetMapping("/{id}")
-  public ResponseEntity<?> getProduct(@PathVariable Integer id, @RequestHeader(value = "If-None-Match", required = false) Integer ifNoneMatch) {
+  public ResponseEntity<?> getProduct(@PathVariable Integer id, @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
 
     return productService.findById(id)
         .map(product -> {
-          try {
-            if (product.getVersion().equals(ifNoneMatch)) {
-              return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
-            }
-
-            return ResponseEntity
-                .ok()
-                .eTag(Integer.toString(product.getVersion()))
-                .location(new URI(ProductController.REQUEST_MAPPING +"/" + product.getId()))
-                .body(product);
-          } catch (URISyntaxException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+          String eTag = ResourceHeaders.eTag(product.getVersion());
+          if (ConditionalRequests.notModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, eTag).build();
           }
+
+          return ResponseEntity
+              .ok()
+              .header(HttpHeaders.ETAG, eTag)
+              .header(HttpHeaders.LOCATION, HEADERS.location(product.getId()))
+              .body(product);
         })
         .orElse(ResponseEntity.notFound().build());
   }
 
   /**
-   * Returns all products in the database.
+   * Returns all products in the database, with a weak ETag hashed from their fields. If the If-None-Match header
+   * matches, 304 Not Modified is returned without serializing the products.
    *
-   * @return All products in the database.
+   * @param ifNoneMatch The ETag of the product list that the client already has.
+   * @return All products in the database, or 304 Not Modified if the client's copy is current.
    */
   @GetMapping
-  public Iterable<Product> getProducts() {
-    return productService.findAll();
+  public ResponseEntity<List<Product>> getProducts(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    List<Product> products = productService.findAll();
+    return ConditionalRequests.ok(ifNoneMatch, ConditionalRequests.weakETag(products, ProductController::hashFields), products);
+  }
+
+  /**
+   * Searches product names; the last word of the query matches as a prefix.
+   *
+   * @param q    The words to search for.
+   * @param page The zero-based page of results.
+   * @param size The number of results per page, at most 100.
+   * @param ifNoneMatch The ETag of the results that the client already has.
+   * @return The matching products, 304 Not Modified if the client's copy is current, or 400 Bad Request if the page
+   * or size is invalid.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<List<Product>> searchProducts(@RequestParam String q,
+                                                      @RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "20") int size,
+                                                      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    if (page < 0 || size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+    List<Product> products = productService.search(q, page, size);
+    return ConditionalRequests.ok(ifNoneMatch, ConditionalRequests.weakETag(products, ProductController::hashFields), products);
+  }
+
+  /**
+   * Streams all products in the database as NDJSON, one product per line. Rows are read from the database as they
+   * are written to the response, so the catalog is never held in memory; a slow client slows down the reads.
+   *
+   * @return The NDJSON stream of products.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportProducts() {
+    log.info("Exporting products");
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(ndjson(productWriter, productService::forEach));
+  }
+
+  /**
+   * Streams the product changes after the specified sequence number as NDJSON, one change per line, in the order
+   * they were committed. Consumers pass the seq of the last change they processed to fetch only newer changes, and
+   * repeat until a response has fewer than limit changes; a change never appears behind a seq already returned.
+   *
+   * @param since The sequence number of the last change already processed, 0 for every change.
+   * @param limit The maximum number of changes to return, at most 10,000.
+   * @return The NDJSON stream of changes, 400 Bad Request if since or limit is invalid, or 501 Not Implemented if
+   * the product repository does not log changes.
+   */
+  @GetMapping(value = "/changes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                          @RequestParam(defaultValue = "1000") int limit) {
+    if (since < 0 || limit < 1 || limit > MAX_CHANGES_LIMIT) {
+      return ResponseEntity.badRequest().build();
+    }
+    if (!productService.logsChanges()) {
+      // An empty feed would tell consumers that nothing has changed
+      return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+    }
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(ndjson(changeWriter,
+            (Consumer<ProductChange> consumer) -> productService.forEachChange(since, limit, consumer)));
+  }
+
+  /**
+   * Adds the fields of a product to a collection ETag: its ID, version, name and quantity.
+   */
+  static void hashFields(ConditionalRequests.ContentHash hash, Product product) {
+    hash.add(product.getId()).add(product.getVersion()).add(product.getName()).add(product.getQuantity());
+  }
+
+  /**
+   * Returns the specified request body, decompressed as it is read if it has a supported Content-Encoding, or null
+   * if its encoding is not supported.
+   */
+  private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+    String encoding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase();
+    switch (encoding) {
+      case "identity":
+        return body;
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(body);
+      case "deflate":
+        return new InflaterInputStream(body);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns the product version in the specified If-Match header, which may be quoted, or null if it is not one.
+   */
+  static Integer ifMatchVersion(String ifMatch) {
+    try {
+      return Integer.valueOf(ConditionalRequests.opaqueTag(ifMatch));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns a response body that writes every value the specified source produces as one line of JSON, as the
+   * source produces it.
+   */
+  private static <T> StreamingResponseBody ndjson(ObjectWriter writer, Consumer<Consumer<T>> source) {
+    return outputStream -> {
+      OutputStream out = new BufferedOutputStream(outputStream);
+      try {
+        source.accept(value -> {
+          try {
+            writer.writeValue(out, value);
+            out.write('\n');
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      out.flush();
+    };
+  }
+
+  /**
+   * Imports products from an NDJSON stream, one product per line. The stream is parsed incrementally and saved in
+   * batches, so only one batch is held in memory. Products with an ID replace the product with that ID. The body may
+   * be compressed with gzip or deflate, as given by its Content-Encoding header, and is then decompressed as it is read.
+   *
+   * @param body            The NDJSON request body.
+   * @param contentEncoding The encoding of the request body, if it is compressed.
+   * @return The number of products received, imported and failed, and the line numbers of failed lines;
+   * 415 Unsupported Media Type if the body has an unsupported encoding.
+   * @throws IOException If the request body cannot be read.
+   */
+  @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<ProductImportResult> importProducts(InputStream body,
+                                                            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING,
+                                                                required = false) String contentEncoding)
+      throws IOException {
+    log.info("Importing products");
+
+    InputStream decoded = decode(body, contentEncoding);
+    if (decoded == null) {
+      return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+    }
+
+    ProductImportResult result = new ProductImportResult();
+    List<Product> batch = new ArrayList<>(importBatchSize);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(decoded, StandardCharsets.UTF_8));
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      result.setReceived(result.getReceived() + 1);
+
+      try {
+        batch.add(productReader.readValue(line));
+      } catch (JsonProcessingException e) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getFailedLines().size() < MAX_REPORTED_FAILURES) {
+          result.getFailedLines().add(lineNumber);
+        }
+        continue;
+      }
+
+      if (batch.size() == importBatchSize) {
+        result.setImported(result.getImported() + productService.saveAll(batch));
+        batch = new ArrayList<>(importBatchSize);
+      }
+    }
+    if (!batch.isEmpty()) {
+      result.setImported(result.getImported() + productService.saveAll(batch));
+    }
+
+    log.info("Imported {} of {} products", result.getImported(), result.getReceived());
+    return ResponseEntity.ok(result);
   }
 
   /**
@@ -71,77 +312,64 @@ public class ProductController {
    */
   @PostMapping
   public ResponseEntity<Product> createProduct(@RequestBody Product product) {
-    log.info("Creating new product with name: {}, quantity: {}", product.getName(), product.getQuantity());
+    log.info(SAMPLED, "Creating new product with name: {}, quantity: {}", product.getName(), product.getQuantity());
 
     // Create the new product
     Product newProduct = productService.save(product);
 
-    try {
-      // Build a created response
-      return ResponseEntity
-          .created(new URI(ProductController.REQUEST_MAPPING +"/" + newProduct.getId()))//TODO UriComponentsBuilder
-          .eTag(Integer.toString(newProduct.getVersion()))
-          .body(newProduct);
-    } catch (URISyntaxException e) {
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+    // Build a created response
+    return ResponseEntity
+        .status(HttpStatus.CREATED)
+        .header(HttpHeaders.LOCATION, HEADERS.location(newProduct.getId()))
+        .header(HttpHeaders.ETAG, ResourceHeaders.eTag(newProduct.getVersion()))
+        .body(newProduct);
   }
 
   /**
-   * Updates the fields in the specified product with the specified ID.
+   * Updates the fields in the specified product with the specified ID. The If-Match header is compared by the update
+   * itself rather than against a cached copy, so an update never overwrites a version it did not see.
    *
    * @param product The product field values to update.
    * @param id      The ID of the product to update.
-   * @param ifMatch The eTag version of the product.
+   * @param ifMatch The ETag of the product, quoted as it was returned or as a bare version.
    * @return A ResponseEntity that contains the updated product or one of the following error statuses:
    * NOT_FOUND if there is no product in the database with the specified ID
    * CONFLICT if the eTag does not match the version of the product to update
-   * INTERNAL_SERVICE_ERROR if there is a problem creating the location URI
+   * PRECONDITION_FAILED if the eTag is not a product version
    */
   @PutMapping("/{id}")
   public ResponseEntity<?> updateProduct(@RequestBody Product product,
                                          @PathVariable Integer id,
-                                         @RequestHeader("If-Match") Integer ifMatch) {
-    log.info("Updating product with id: {}, name: {}, quantity: {}",
-        id, product.getName(), product.getQuantity());
+                                         @RequestHeader("If-Match") String ifMatch) {
+    log.info(SAMPLED, "Updating product with id: {}, quantity: {}", id, product.getQuantity());
 
-    // Get the existing product
-    Optional<Product> existingProduct = productService.findById(id);
-
-    return existingProduct.map(p -> {
-      // Compare the etags
-      log.info("Product with ID: " + id + " has a version of " + p.getVersion()
-          + ". Update is for If-Match: " + ifMatch);
-      if (!p.getVersion().equals(ifMatch)) {
-        return ResponseEntity.status(HttpStatus.CONFLICT).build();
-      }
+    Integer version = ifMatchVersion(ifMatch);
+    if (version == null) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
 
-      // Update the product
-      p.setName(product.getName());
-      p.setQuantity(product.getQuantity());
-      p.setVersion(p.getVersion() + 1);
+    // Update the product if its stored version still matches the etag
+    Product p = Product.builder()
+        .id(id)
+        .name(product.getName())
+        .quantity(product.getQuantity())
+        .version(version + 1)
+        .build();
 
-      log.info("Updating product with ID: " + p.getId()
-          + " -> name=" + p.getName()
-          + ", quantity=" + p.getQuantity()
-          + ", version=" + p.getVersion());
+    log.debug("Updating product {} to version {}", p.getId(), p.getVersion());
 
-      try {
-        // Update the product and return an ok response
-        if (productService.update(p)) {
-          return ResponseEntity.ok()
-              .location(new URI(ProductController.REQUEST_MAPPING +"/" + p.getId()))
-              .eTag(Integer.toString(p.getVersion()))
-              .body(p);
-        } else {
-          return ResponseEntity.notFound().build();
-        }
-      } catch (URISyntaxException e) {
-        // An error occurred trying to create the location URI, return an error
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-      }
+    if (productService.update(p)) {
+      return ResponseEntity.ok()
+          .header(HttpHeaders.LOCATION, HEADERS.location(p.getId()))
+          .header(HttpHeaders.ETAG, ResourceHeaders.eTag(p.getVersion()))
+          .body(p);
+    }
 
-    }).orElse(ResponseEntity.notFound().build());
+    // The update did not match: either the product does not exist or its version has changed
+    if (productService.findById(id).isPresent()) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    return ResponseEntity.notFound().build();
   }
 
   /**
@@ -156,7 +384,7 @@ public class ProductController {
   @DeleteMapping("/{id}")
   public ResponseEntity<?> deleteProduct(@PathVariable Integer id) {
 
-    log.info("Deleting product with ID {}", id);
+    log.info(SAMPLED, "Deleting product with ID {}", id);
 
     // Get the existing product
     Optional<Product> existingProduct = productService.findById(id);
@@ -0,0 +1,48 @@
+package com.globomantics.products.controller;
+
+import com.globomantics.products.service.ProductDetailService;
+import com.globomantics.products.service.ProductDetailUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Slf4j
+@RequestMapping(ProductController.REQUEST_MAPPING)
+public class ProductDetailController {
+
+  private final ProductDetailService productDetailService;
+
+  public ProductDetailController(ProductDetailService productDetailService) {
+    this.productDetailService = productDetailService;
+  }
+
+  /**
+   * Returns the product with the specified ID together with its review summary and inventory, so that a product
+   * page needs a single request. If the review service or inventory service does not answer in time, the detail is
+   * returned without that part and the part is listed in the detail's unavailable field.
+   *
+   * @param id The ID of the product to retrieve.
+   * @return The product detail, 404 Not Found if there is no such product, or 503 Service Unavailable if the product
+   * itself could not be retrieved.
+   */
+  @GetMapping("/{id}/detail")
+  public ResponseEntity<?> getProductDetail(@PathVariable Integer id) {
+    try {
+      return productDetailService.findById(id)
+          .map(detail -> ResponseEntity
+              .ok()
+              .header(HttpHeaders.LOCATION, ProductController.HEADERS.location(id) + "/detail")
+              .body(detail))
+          .orElse(ResponseEntity.notFound().build());
+    } catch (ProductDetailUnavailableException e) {
+      log.warn(e.getMessage(), e.getCause());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+  }
+}
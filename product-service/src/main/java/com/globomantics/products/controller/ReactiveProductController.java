@@ -0,0 +1,203 @@
+package com.globomantics.products.controller;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.service.ReactiveProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.globomantics.products.logging.SampledLogFilter.SAMPLED;
+
+/**
+ * The WebFlux variant of {@link ProductController}, active with the reactive profile. It serves the same product
+ * endpoints with the same ETag, If-None-Match and If-Match semantics, but on R2DBC, so that no request holds a
+ * thread while it waits for the database. Imports are only supported by the servlet controller.
+ */
+@RestController
+@Slf4j
+@Profile("reactive")
+@RequestMapping(ProductController.REQUEST_MAPPING)
+public class ReactiveProductController {
+
+  private final ReactiveProductService productService;
+
+  public ReactiveProductController(ReactiveProductService productService) {
+    this.productService = productService;
+  }
+
+  /**
+   * Returns the product with the specified ID.
+   *
+   * @param id          The ID of the product to retrieve.
+   * @param ifNoneMatch The ETag of the product that the client already has.
+   * @return The product with the specified ID, or 304 Not Modified if the client's copy is current.
+   */
+  @GetMapping("/{id}")
+  public Mono<ResponseEntity<Product>> getProduct(@PathVariable Integer id,
+                                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    return productService.findById(id)
+        .map(product -> {
+          String eTag = ResourceHeaders.eTag(product.getVersion());
+          if (ConditionalRequests.notModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, eTag).<Product>build();
+          }
+
+          return ResponseEntity
+              .ok()
+              .header(HttpHeaders.ETAG, eTag)
+              .header(HttpHeaders.LOCATION, ProductController.HEADERS.location(product.getId()))
+              .body(product);
+        })
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
+  /**
+   * Returns all products in the database, with a weak ETag hashed from their fields. The products are collected
+   * before the response is written, because the ETag header has to precede the body.
+   *
+   * @param ifNoneMatch The ETag of the product list that the client already has.
+   * @return All products in the database, or 304 Not Modified if the client's copy is current.
+   */
+  @GetMapping
+  public Mono<ResponseEntity<List<Product>>> getProducts(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    return productService.findAll()
+        .collectList()
+        .map(products -> ConditionalRequests.ok(ifNoneMatch,
+            ConditionalRequests.weakETag(products, ProductController::hashFields), products));
+  }
+
+  /**
+   * Searches product names; the last word of the query matches as a prefix.
+   *
+   * @param q    The words to search for.
+   * @param page The zero-based page of results.
+   * @param size The number of results per page, at most 100.
+   * @param ifNoneMatch The ETag of the page that the client already has.
+   * @return The matching products, 304 Not Modified if the client's copy is current, or 400 Bad Request if the page
+   * or size is invalid.
+   */
+  @GetMapping("/search")
+  public Mono<ResponseEntity<List<Product>>> searchProducts(@RequestParam String q,
+                                                            @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "20") int size,
+                                                            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    if (page < 0 || size < 1 || size > ProductController.MAX_SEARCH_PAGE_SIZE) {
+      return Mono.just(ResponseEntity.badRequest().build());
+    }
+    return productService.search(q, page, size)
+        .collectList()
+        .map(products -> ConditionalRequests.ok(ifNoneMatch,
+            ConditionalRequests.weakETag(products, ProductController::hashFields), products));
+  }
+
+  /**
+   * The reactive repository does not log changes to product_changes, so the change feed is not available.
+   *
+   * @return 501 Not Implemented.
+   */
+  @GetMapping("/changes")
+  public Mono<ResponseEntity<Void>> getChanges() {
+    return Mono.just(ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build());
+  }
+
+  /**
+   * Streams all products in the database as NDJSON, one product per line, as they are read from the database.
+   *
+   * @return The NDJSON stream of products.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Product> exportProducts() {
+    log.info("Exporting products");
+    return productService.findAll();
+  }
+
+  /**
+   * Creates a new product.
+   *
+   * @param product The product to create.
+   * @return The created product.
+   */
+  @PostMapping
+  public Mono<ResponseEntity<Product>> createProduct(@RequestBody Product product) {
+    log.info(SAMPLED, "Creating new product with name: {}, quantity: {}", product.getName(), product.getQuantity());
+
+    return productService.save(product)
+        .map(newProduct -> ResponseEntity
+            .status(HttpStatus.CREATED)
+            .header(HttpHeaders.LOCATION, ProductController.HEADERS.location(newProduct.getId()))
+            .header(HttpHeaders.ETAG, ResourceHeaders.eTag(newProduct.getVersion()))
+            .body(newProduct));
+  }
+
+  /**
+   * Updates the fields in the specified product with the specified ID. The If-Match header is compared by the update
+   * itself, so an update never overwrites a version it did not see.
+   *
+   * @param product The product field values to update.
+   * @param id      The ID of the product to update.
+   * @param ifMatch The ETag of the product, quoted as it was returned or as a bare version.
+   * @return A ResponseEntity that contains the updated product or one of the following error statuses:
+   * NOT_FOUND if there is no product in the database with the specified ID
+   * CONFLICT if the eTag does not match the version of the product to update
+   * PRECONDITION_FAILED if the eTag is not a product version
+   */
+  @PutMapping("/{id}")
+  public Mono<ResponseEntity<Product>> updateProduct(@RequestBody Product product,
+                                                     @PathVariable Integer id,
+                                                     @RequestHeader("If-Match") String ifMatch) {
+    log.info(SAMPLED, "Updating product with id: {}, quantity: {}", id, product.getQuantity());
+
+    Integer version = ProductController.ifMatchVersion(ifMatch);
+    if (version == null) {
+      return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+    }
+
+    // Update the product if its stored version still matches the etag
+    Product p = Product.builder()
+        .id(id)
+        .name(product.getName())
+        .quantity(product.getQuantity())
+        .version(version + 1)
+        .build();
+
+    return productService.update(p)
+        .flatMap(updated -> updated
+            ? Mono.just(ResponseEntity.ok()
+                .header(HttpHeaders.LOCATION, ProductController.HEADERS.location(p.getId()))
+                .header(HttpHeaders.ETAG, ResourceHeaders.eTag(p.getVersion()))
+                .body(p))
+            // The update did not match: either the product does not exist or its version has changed
+            : productService.findById(id)
+                .map(existing -> ResponseEntity.status(HttpStatus.CONFLICT).<Product>build())
+                .defaultIfEmpty(ResponseEntity.notFound().build()));
+  }
+
+  /**
+   * Deletes the product with the specified ID.
+   *
+   * @param id The ID of the product to delete.
+   * @return A ResponseEntity with one of the following status codes:
+   * 200 OK if the delete was successful
+   * 404 Not Found if a product with the specified ID is not found
+   * 500 Internal Service Error if an error occurs during deletion
+   */
+  @DeleteMapping("/{id}")
+  public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable Integer id) {
+    log.info(SAMPLED, "Deleting product with ID {}", id);
+
+    return productService.findById(id)
+        .flatMap(p -> productService.delete(p.getId())
+            .map(deleted -> deleted
+                ? ResponseEntity.ok().<Void>build()
+                : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<Void>build()))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+}
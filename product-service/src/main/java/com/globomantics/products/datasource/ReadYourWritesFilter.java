@@ -0,0 +1,88 @@
+package com.globomantics.products.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Gives each client read-your-writes consistency while reads are served by replicas. A request that writes sets a
+ * cookie with the time of the write, and for products.datasource.stickiness after that, the client's requests read
+ * from the primary. The cookie keeps the filter stateless, so it works whichever instance serves the client.
+ *
+ * Service clients such as RestTemplate do not keep cookies, so the time of the write is also returned in the
+ * Products-Last-Write header, and a request that sends it back in that header is routed the same way. A client that
+ * keeps neither reads from the replicas and may not see its own writes until they have replicated.
+ */
+@Component
+@ConditionalOnProperty(name = "products.datasource.routing.enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  public static final String LAST_WRITE_COOKIE = "products-last-write";
+
+  public static final String LAST_WRITE_HEADER = "Products-Last-Write";
+
+  private final long stickinessMillis;
+
+  public ReadYourWritesFilter(@Value("${products.datasource.stickiness:PT5S}") Duration stickiness) {
+    this.stickinessMillis = stickiness.toMillis();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    long now = System.currentTimeMillis();
+    boolean write = !isRead(request.getMethod());
+    if (write) {
+      // Set before the request is handled, while the response can still take headers
+      Cookie cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(now));
+      cookie.setMaxAge((int) Math.max(1, stickinessMillis / 1000));
+      cookie.setPath("/");
+      cookie.setHttpOnly(true);
+      response.addCookie(cookie);
+      response.setHeader(LAST_WRITE_HEADER, cookie.getValue());
+    }
+
+    ReplicaRoutingDataSource.setPrimaryRequired(write || now - lastWrite(request) < stickinessMillis);
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      ReplicaRoutingDataSource.setPrimaryRequired(false);
+    }
+  }
+
+  private static boolean isRead(String method) {
+    return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+  }
+
+  private static long lastWrite(HttpServletRequest request) {
+    String header = request.getHeader(LAST_WRITE_HEADER);
+    if (header != null) {
+      return parse(header);
+    }
+    if (request.getCookies() != null) {
+      for (Cookie cookie : request.getCookies()) {
+        if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+          return parse(cookie.getValue());
+        }
+      }
+    }
+    return 0;
+  }
+
+  private static long parse(String lastWrite) {
+    try {
+      return Long.parseLong(lastWrite);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
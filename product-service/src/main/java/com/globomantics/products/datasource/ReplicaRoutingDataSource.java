@@ -0,0 +1,107 @@
+package com.globomantics.products.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the read replicas, round robin, and everything else to the primary database.
+ *
+ * The routing decision is made when a connection is requested, so this data source must be wrapped in a
+ * LazyConnectionDataSourceProxy: the transaction manager asks for a connection before it marks the transaction as
+ * read-only, and the proxy defers the real request until the first statement.
+ *
+ * A thread that has been marked as requiring the primary (see ReadYourWritesFilter) reads from the primary as well,
+ * so that a client sees its own writes even while the replicas lag behind. The mark belongs to the request thread, so
+ * work that a request hands to another thread carries it over with {@link #withPrimaryRequirement(Supplier)}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+  private static final String PRIMARY = "primary";
+
+  private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+  private final List<DataSource> replicas;
+
+  private final List<String> replicaKeys = new ArrayList<>();
+
+  private final AtomicInteger nextReplica = new AtomicInteger();
+
+  public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+    this.replicas = replicas;
+
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    for (int i = 0; i < replicas.size(); i++) {
+      replicaKeys.add("replica-" + i);
+      targets.put(replicaKeys.get(i), replicas.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  /**
+   * Marks the current thread as requiring the primary for reads as well, or clears the mark.
+   */
+  public static void setPrimaryRequired(boolean primaryRequired) {
+    if (primaryRequired) {
+      PRIMARY_REQUIRED.set(Boolean.TRUE);
+    } else {
+      PRIMARY_REQUIRED.remove();
+    }
+  }
+
+  /**
+   * Returns true if the current thread has been marked as requiring the primary.
+   */
+  public static boolean isPrimaryRequired() {
+    return PRIMARY_REQUIRED.get() != null;
+  }
+
+  /**
+   * Returns a supplier that runs the specified supplier with the current thread's mark, for work that is handed to
+   * another thread, such as an executor's. The mark is cleared from that thread afterwards.
+   */
+  public static <T> Supplier<T> withPrimaryRequirement(Supplier<T> supplier) {
+    boolean primaryRequired = isPrimaryRequired();
+    return () -> {
+      setPrimaryRequired(primaryRequired);
+      try {
+        return supplier.get();
+      } finally {
+        setPrimaryRequired(false);
+      }
+    };
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (replicaKeys.isEmpty()
+        || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        || PRIMARY_REQUIRED.get() != null) {
+      return PRIMARY;
+    }
+    return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    // The replica pools are not beans of their own, so they are closed here
+    for (DataSource replica : replicas) {
+      if (replica instanceof Closeable) {
+        ((Closeable) replica).close();
+      }
+    }
+  }
+}
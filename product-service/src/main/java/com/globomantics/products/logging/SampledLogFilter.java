@@ -0,0 +1,40 @@
+package com.globomantics.products.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one in every rate log events marked {@link #SAMPLED}, so that per-request log lines on hot paths cost
+ * a fraction of their full volume. Warnings and errors are never sampled. Configured in logback-spring.xml, with the
+ * rate taken from logging.sampling.rate.
+ *
+ * As a turbo filter it runs before the event is created, so a sampled-out call allocates nothing.
+ */
+public class SampledLogFilter extends TurboFilter {
+
+  public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+  private final AtomicLong events = new AtomicLong();
+
+  private int rate = 1;
+
+  public void setRate(int rate) {
+    this.rate = Math.max(1, rate);
+  }
+
+  @Override
+  public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+    // A null format is an isXxxEnabled() check, which should not use up a sample
+    if (marker == null || format == null || rate == 1 || level.isGreaterOrEqual(Level.WARN)
+        || !marker.contains(SAMPLED)) {
+      return FilterReply.NEUTRAL;
+    }
+    return events.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+  }
+}
@@ -0,0 +1,19 @@
+package com.globomantics.products.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * A product's inventory, as returned by the inventory service.
+ */
+@Data
+@Builder
+@Jacksonized
+public class InventoryRecord {
+
+    private Integer productId;
+    private Integer quantity;
+    private String productName;
+    private String productCategory;
+}
@@ -0,0 +1,40 @@
+package com.globomantics.products.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Instant;
+
+/**
+ * An entry of the product change log: one save, update or delete, with the product's state after the change.
+ */
+@Data
+@Builder
+@Jacksonized
+public class ProductChange {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        /**
+         * Saved with an ID by an import, which either created or replaced the product.
+         */
+        REPLACED,
+        DELETED
+    }
+
+    /**
+     * The position of the change in the log; consumers pass the last one they processed as the since parameter.
+     */
+    private Long seq;
+    private Type type;
+    private Integer productId;
+
+    // The product's fields after the change, null for deletes
+    private String name;
+    private Integer quantity;
+    private Integer version;
+
+    private Instant changedAt;
+}
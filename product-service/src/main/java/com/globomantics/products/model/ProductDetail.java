@@ -0,0 +1,25 @@
+package com.globomantics.products.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/**
+ * Everything a product page shows about a product: the product, its review summary and its inventory.
+ */
+@Data
+@Builder
+@Jacksonized
+public class ProductDetail {
+
+    private Product product;
+    private ReviewSummary reviews;
+    private InventoryRecord inventory;
+
+    /**
+     * The parts of the detail ("reviews", "inventory") that could not be retrieved in time and are therefore null.
+     */
+    private List<String> unavailable;
+}
@@ -0,0 +1,22 @@
+package com.globomantics.products.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of an NDJSON product import.
+ */
+@Data
+public class ProductImportResult {
+
+    private int received;
+    private int imported;
+    private int failed;
+
+    /**
+     * The line numbers of the first lines that could not be parsed.
+     */
+    private List<Integer> failedLines = new ArrayList<>();
+}
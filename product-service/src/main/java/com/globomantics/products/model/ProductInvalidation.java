@@ -0,0 +1,31 @@
+package com.globomantics.products.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tells the product near-caches of other instances that a product has changed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductInvalidation {
+
+    /**
+     * The ID of the product that changed, or null if any product may have changed, in which case every cached copy
+     * is dropped.
+     */
+    private Integer productId;
+
+    /**
+     * The product's new version; only cached copies with an older version are dropped. Null if the product was
+     * deleted or replaced, in which case any cached copy is dropped.
+     */
+    private Integer version;
+
+    /**
+     * The ID of the instance that changed the product, which has already invalidated its own cache.
+     */
+    private String origin;
+}
@@ -0,0 +1,19 @@
+package com.globomantics.products.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * A summary of a product's review, as returned by the review service.
+ */
+@Data
+@Builder
+@Jacksonized
+public class ReviewSummary {
+
+    private String reviewId;
+    private Integer productId;
+    private Integer version;
+    private Integer entryCount;
+}
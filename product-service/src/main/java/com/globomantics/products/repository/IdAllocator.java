@@ -0,0 +1,24 @@
+package com.globomantics.products.repository;
+
+/**
+ * Assigns product IDs before products are inserted, so that inserts do not have to read generated keys back and
+ * can be batched.
+ */
+public interface IdAllocator {
+
+  /**
+   * Returns a new, unused product ID.
+   *
+   * @return          The allocated product ID.
+   */
+  int nextId();
+
+  /**
+   * Makes sure that no ID up to and including the specified ID is allocated from now on. This is called with the
+   * highest existing ID before the first allocation, and with the highest imported ID after products are imported
+   * with their IDs.
+   *
+   * @param id        An ID that is already taken.
+   */
+  void advancePast(int id);
+}
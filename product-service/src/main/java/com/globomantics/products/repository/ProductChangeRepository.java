@@ -0,0 +1,18 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.ProductChange;
+
+import java.util.function.Consumer;
+
+public interface ProductChangeRepository {
+
+  /**
+   * Passes the changes after the specified sequence number to the specified consumer, in sequence order, one row at
+   * a time.
+   *
+   * @param since     The sequence number of the last change already processed, 0 for the whole log.
+   * @param limit     The maximum number of changes to pass.
+   * @param consumer  The consumer of the changes.
+   */
+  void forEachSince(long since, int limit, Consumer<ProductChange> consumer);
+}
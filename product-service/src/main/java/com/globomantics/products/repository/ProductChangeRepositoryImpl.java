@@ -0,0 +1,62 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.ProductChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * Reads the product_changes table, which ProductRepositoryImpl appends to in the transaction of every write.
+ *
+ * Writers hold the change log's lock from their append until they commit, so sequence numbers become visible in
+ * order: once a change is visible, every change with a smaller sequence number is visible too, and a consumer that
+ * resumes after the last sequence number it read does not miss any.
+ */
+@Repository
+public class ProductChangeRepositoryImpl implements ProductChangeRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final int fetchSize;
+
+  public ProductChangeRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                     @Value("${products.export.fetch-size:1000}") int fetchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.fetchSize = fetchSize;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void forEachSince(long since, int limit, Consumer<ProductChange> consumer) {
+    jdbcTemplate.query(connection -> {
+          PreparedStatement statement = connection.prepareStatement(
+              "SELECT * FROM product_changes WHERE seq > ? ORDER BY seq LIMIT ?",
+              ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          statement.setLong(1, since);
+          statement.setInt(2, limit);
+          statement.setFetchSize(Math.min(fetchSize, limit));
+          return statement;
+        },
+        (RowCallbackHandler) rs -> consumer.accept(toChange(rs)));
+  }
+
+  private static ProductChange toChange(ResultSet rs) throws SQLException {
+    Timestamp changedAt = rs.getTimestamp("changed_at");
+    return ProductChange.builder()
+        .seq(rs.getLong("seq"))
+        .type(ProductChange.Type.valueOf(rs.getString("type")))
+        .productId(rs.getInt("product_id"))
+        .name(rs.getString("name"))
+        .quantity(rs.getObject("quantity", Integer.class))
+        .version(rs.getObject("version", Integer.class))
+        .changedAt(changedAt == null ? null : changedAt.toInstant()).build();
+  }
+}
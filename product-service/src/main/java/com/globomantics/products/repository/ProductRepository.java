@@ -4,6 +4,7 @@ import com.globomantics.products.model.Product;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductRepository {
 
@@ -23,7 +24,24 @@ public interface ProductRepository {
   List<Product> findAll();
 
   /**
-   * Updates the specified product, identified by its id.
+   * Passes every product in the database to the specified consumer, one row at a time, without loading them all
+   * into memory.
+   *
+   * @param consumer  The consumer of the products, called in ID order.
+   */
+  void forEach(Consumer<Product> consumer);
+
+  /**
+   * Returns the products with the specified ids, in the order of the ids. Ids without a product are skipped.
+   *
+   * @param ids       The IDs of the products to retrieve.
+   * @return          The products that were found.
+   */
+  List<Product> findAllById(List<Integer> ids);
+
+  /**
+   * Updates the specified product, identified by its id. The product's version is the new version, and the update
+   * only succeeds if the stored version is the one before it, so a concurrent update of the same version fails.
    *
    * @param product   The product to update.
    * @return          True if the update succeeded, otherwise false.
@@ -38,10 +56,28 @@ public interface ProductRepository {
    */
   Product save(Product product);
 
+  /**
+   * Saves the specified products to the database in one JDBC batch. Products with an ID are inserted with that ID,
+   * replacing any existing product with the same ID; products without an ID are inserted with a generated one.
+   * Imported versions are not kept: a replaced product moves to its next version and a new one starts at version 1,
+   * and the products are given their saved versions.
+   *
+   * @param products  The products to save.
+   * @return          The number of products saved.
+   */
+  int saveAll(List<Product> products);
+
   /**
    * Deletes the product with the specified id.
    * @param id        The id of the product to delete.
    * @return          True if the operation was successful.
    */
   boolean delete(Integer id);
+
+  /**
+   * Returns true if every write through this repository is appended to the product_changes table.
+   */
+  default boolean logsChanges() {
+    return false;
+  }
 }
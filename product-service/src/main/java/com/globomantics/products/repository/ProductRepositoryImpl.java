@@ -1,35 +1,120 @@
 package com.globomantics.products.repository;
 
 import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductChange;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static com.globomantics.products.logging.SampledLogFilter.SAMPLED;
+
+/**
+ * Stores products in the products table. Every write also appends the change to the product_changes table in the
+ * same transaction, so the change log holds exactly the committed writes.
+ *
+ * Before appending, a write locks the single row of product_changes_lock, which it holds until it commits. Writes
+ * therefore take their sequence numbers in the order they commit, and a consumer that has read up to a sequence
+ * number never sees a smaller one appear later. Only the append is serialized; the product writes before it are not.
+ */
 @Repository
 @Slf4j
 public class ProductRepositoryImpl implements ProductRepository {
 
+  private static final String INSERT_CHANGE = "INSERT INTO product_changes "
+      + "(type, product_id, name, quantity, version, changed_at) VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+  /**
+   * Locks the change log until the end of the transaction. Updating the row is the portable way to lock it.
+   */
+  private static final String LOCK_CHANGES = "UPDATE product_changes_lock SET id = id WHERE id = 1";
+
+  /**
+   * Updates a product if its stored version is the one before the new version. The parameters are the name,
+   * quantity, new version, ID and previous version.
+   */
+  static final String UPDATE_PRODUCT = "UPDATE products SET name = ?, quantity = ?, version = ? "
+      + "WHERE id = ? AND version = ?";
+
+  /**
+   * Replaces an imported product's name and quantity and moves it to its next version, whatever version it is at.
+   * The parameters are the name, quantity and ID; a product that does not exist yet updates no row.
+   */
+  static final String REPLACE_PRODUCT = "UPDATE products SET name = ?, quantity = ?, version = version + 1 "
+      + "WHERE id = ?";
+
+  /**
+   * Inserts a new product unless its allocated ID is already taken, which happens when products imported with
+   * their IDs land in a block that an instance had already reserved. The parameters are the ID, name, quantity,
+   * version and the ID again; a taken ID inserts no row instead of failing the transaction.
+   */
+  static final String INSERT_NEW_PRODUCT = "INSERT INTO products (id, name, quantity, version) "
+      + "SELECT ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM products WHERE id = ?)";
+
   private final JdbcTemplate jdbcTemplate;
-  private final SimpleJdbcInsert simpleJdbcInsert;
+  private final IdAllocator idAllocator;
+
+  /**
+   * The number of rows fetched per round trip when streaming products, so that the driver does not buffer them all.
+   */
+  private final int fetchSize;
+
+  /**
+   * Whether the ID allocator has been moved past the existing products. That is done on the first allocation rather
+   * than at startup, so that the application can start before the schema has been applied.
+   */
+  private volatile boolean idsAdvanced;
 
-  public ProductRepositoryImpl(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+  public ProductRepositoryImpl(JdbcTemplate jdbcTemplate,
+                               IdAllocator idAllocator,
+                               @Value("${products.export.fetch-size:1000}") int fetchSize) {
     this.jdbcTemplate = jdbcTemplate;
+    this.idAllocator = idAllocator;
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Moves the ID allocator past the products that already exist, such as rows inserted with AUTO_INCREMENT before
+   * IDs were allocated from the sequence.
+   */
+  private void advanceIdsPastExistingProducts() {
+    Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM products", Integer.class);
+    if (maxId != null) {
+      idAllocator.advancePast(maxId);
+    }
+  }
 
-    // Build a SimpleJdbcInsert object from the specified data source
-    this.simpleJdbcInsert = new SimpleJdbcInsert(dataSource)//TODO get DataSource from jdbcTemplate?
-        .withTableName("products")
-        .usingGeneratedKeyColumns("id");
+  /**
+   * Allocates a product ID, first moving the allocator past the existing products if no ID has been allocated yet.
+   */
+  private int nextId() {
+    if (!idsAdvanced) {
+      synchronized (this) {
+        if (!idsAdvanced) {
+          advanceIdsPastExistingProducts();
+          idsAdvanced = true;
+        }
+      }
+    }
+    return idAllocator.nextId();
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Optional<Product> findById(Integer id) {
     try {
       Product product = jdbcTemplate.queryForObject("SELECT * FROM products WHERE id = ?",
@@ -47,6 +132,7 @@ public class ProductRepositoryImpl implements ProductRepository {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Product> findAll() {
     return jdbcTemplate.query("SELECT * FROM products",
         (rs, rowNumber) -> Product.builder()
@@ -57,36 +143,243 @@ public class ProductRepositoryImpl implements ProductRepository {
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public void forEach(Consumer<Product> consumer) {
+    jdbcTemplate.query(connection -> {
+          PreparedStatement statement = connection.prepareStatement("SELECT * FROM products ORDER BY id",
+              ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          statement.setFetchSize(fetchSize);
+          return statement;
+        },
+        (RowCallbackHandler) rs -> consumer.accept(toProduct(rs)));
+  }
+
+  @Override
+  @Transactional
   public boolean update(Product product) {
-    return jdbcTemplate.update("UPDATE products SET name = ?, quantity = ?, version = ? WHERE id = ?",
+    boolean updated = jdbcTemplate.update(UPDATE_PRODUCT,
         product.getName(),
         product.getQuantity(),
         product.getVersion(),
-        product.getId()) == 1;
+        product.getId(),
+        product.getVersion() - 1) == 1;
+    if (updated) {
+      appendChanges(Collections.singletonList(change(ProductChange.Type.UPDATED, product)));
+    }
+    return updated;
   }
 
   @Override
+  @Transactional
   public Product save(Product product) {
-    // Build the product parameters we want to save
-    Map<String, Object> parameters = new HashMap<>(1);
-    parameters.put("name", product.getName());
-    parameters.put("quantity", product.getQuantity());
-    parameters.put("version", product.getVersion());
-
-    // Execute the query and get the generated key
-    Number newId = simpleJdbcInsert.executeAndReturnKey(parameters);
+    // Allocate the ID up front, so there is no generated key to read back
+    insertNew(product);
 
-    log.info("Inserting product into database, generated key is: {}", newId);
+    log.info(SAMPLED, "Inserting product into database, allocated key is: {}", product.getId());
 
-    // Update the product's ID with the new key
-    product.setId((Integer)newId);
+    appendChanges(Collections.singletonList(change(ProductChange.Type.CREATED, product)));
 
     // Return the complete product
     return product;
   }
 
   @Override
+  @Transactional
+  public int saveAll(List<Product> products) {
+    // Imported IDs must never be allocated to new products, so move past them before allocating
+    int maxImportedId = -1;
+    for (Product product : products) {
+      if (product.getId() != null) {
+        maxImportedId = Math.max(maxImportedId, product.getId());
+      }
+    }
+    if (maxImportedId >= 0) {
+      idAllocator.advancePast(maxImportedId);
+    }
+
+    List<Product> withId = new ArrayList<>();
+    List<Product> newProducts = new ArrayList<>();
+    List<Object[]> withoutId = new ArrayList<>();
+    List<ProductChange.Type> changeTypes = new ArrayList<>(products.size());
+    for (Product product : products) {
+      if (product.getId() != null) {
+        withId.add(product);
+        changeTypes.add(ProductChange.Type.REPLACED);
+      } else {
+        // New products get their IDs in memory, so they are inserted in a plain batch
+        product.setId(nextId());
+        product.setVersion(1);
+        newProducts.add(product);
+        withoutId.add(newProductParameters(product));
+        changeTypes.add(ProductChange.Type.CREATED);
+      }
+    }
+
+    int saved = 0;
+    if (!withId.isEmpty()) {
+      saved += upsert(jdbcTemplate, withId);
+    }
+    if (!withoutId.isEmpty()) {
+      int[] inserted = jdbcTemplate.batchUpdate(INSERT_NEW_PRODUCT, withoutId);
+      for (int i = 0; i < inserted.length; i++) {
+        if (inserted[i] == 0) {
+          // The allocated ID was taken by a product imported through another instance
+          insertNew(newProducts.get(i));
+        }
+      }
+      saved += newProducts.size();
+    }
+
+    // The changes are built last, because a new product may have been given another ID above
+    List<Object[]> changes = new ArrayList<>(products.size());
+    for (int i = 0; i < products.size(); i++) {
+      changes.add(change(changeTypes.get(i), products.get(i)));
+    }
+    if (!changes.isEmpty()) {
+      appendChanges(changes);
+    }
+    log.info("Saved a batch of {} products", saved);
+    return saved;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Product> findAllById(List<Integer> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+    Map<Integer, Product> productsById = new HashMap<>();
+    jdbcTemplate.query("SELECT * FROM products WHERE id IN (" + placeholders + ")",
+        (RowCallbackHandler) rs -> productsById.put(rs.getInt("id"), toProduct(rs)),
+        ids.toArray());
+
+    // Return the products in the order of the requested IDs
+    List<Product> products = new ArrayList<>(ids.size());
+    for (Integer id : ids) {
+      Product product = productsById.get(id);
+      if (product != null) {
+        products.add(product);
+      }
+    }
+    return products;
+  }
+
+  @Override
+  @Transactional
   public boolean delete(Integer id) {
-    return jdbcTemplate.update("DELETE FROM products WHERE id = ?", id) == 1;
+    boolean deleted = jdbcTemplate.update("DELETE FROM products WHERE id = ?", id) == 1;
+    if (deleted) {
+      appendChanges(Collections.singletonList(
+          new Object[]{ProductChange.Type.DELETED.name(), id, null, null, null}));
+    }
+    return deleted;
+  }
+
+  @Override
+  public boolean logsChanges() {
+    return true;
+  }
+
+  /**
+   * Appends the specified INSERT_CHANGE parameters to the change log, after locking it until the transaction commits.
+   */
+  private void appendChanges(List<Object[]> changes) {
+    jdbcTemplate.update(LOCK_CHANGES);
+    jdbcTemplate.batchUpdate(INSERT_CHANGE, changes);
+  }
+
+  /**
+   * Inserts the specified product with a newly allocated ID, skipping IDs that are already taken, and sets the ID.
+   */
+  private void insertNew(Product product) {
+    while (true) {
+      product.setId(nextId());
+      if (jdbcTemplate.update(INSERT_NEW_PRODUCT, newProductParameters(product)) == 1) {
+        return;
+      }
+      log.warn("Product ID {} is already taken, moving the ID allocator past the existing products", product.getId());
+      advanceIdsPastExistingProducts();
+    }
+  }
+
+  /**
+   * Upserts products that have IDs: replaces the stored products in one batch, then inserts the products that the
+   * replacement did not find in a second batch. Standard SQL has no portable single-statement upsert, so this keeps
+   * saveAll off dialect-specific MERGE syntax.
+   *
+   * The versions of the imported products are ignored: a replaced product moves to its next version and an inserted
+   * one starts at version 1, so that a version, and the ETag made from it, never stands for two different contents.
+   * The products are given their stored versions afterwards.
+   *
+   * @return The number of products saved.
+   */
+  static int upsert(JdbcTemplate jdbcTemplate, List<Product> products) {
+    List<Object[]> replacements = new ArrayList<>(products.size());
+    for (Product product : products) {
+      replacements.add(replaceProductParameters(product));
+    }
+    int[] replaced = jdbcTemplate.batchUpdate(REPLACE_PRODUCT, replacements);
+
+    List<Product> missing = new ArrayList<>();
+    List<Object[]> insertions = new ArrayList<>();
+    for (int i = 0; i < replaced.length; i++) {
+      // Drivers may report SUCCESS_NO_INFO (-2) instead of a row count, which is taken as a replacement
+      if (replaced[i] == 0) {
+        products.get(i).setVersion(1);
+        missing.add(products.get(i));
+        insertions.add(newProductParameters(products.get(i)));
+      }
+    }
+    if (!insertions.isEmpty()) {
+      int[] inserted = jdbcTemplate.batchUpdate(INSERT_NEW_PRODUCT, insertions);
+      for (int i = 0; i < inserted.length; i++) {
+        if (inserted[i] == 0) {
+          // Inserted since the replacement, by another instance or earlier in this batch
+          jdbcTemplate.update(REPLACE_PRODUCT, replaceProductParameters(missing.get(i)));
+        }
+      }
+    }
+    readVersions(jdbcTemplate, products);
+    return products.size();
+  }
+
+  private static Object[] replaceProductParameters(Product product) {
+    return new Object[]{product.getName(), product.getQuantity(), product.getId()};
+  }
+
+  /**
+   * Sets the version of each of the specified products to its stored version.
+   */
+  private static void readVersions(JdbcTemplate jdbcTemplate, List<Product> products) {
+    Map<Integer, Integer> versions = new HashMap<>();
+    Object[] ids = products.stream().map(Product::getId).toArray();
+    jdbcTemplate.query("SELECT id, version FROM products WHERE id IN ("
+            + String.join(", ", Collections.nCopies(ids.length, "?")) + ")",
+        (RowCallbackHandler) rs -> versions.put(rs.getInt("id"), rs.getInt("version")), ids);
+    for (Product product : products) {
+      product.setVersion(versions.get(product.getId()));
+    }
+  }
+
+  static Object[] newProductParameters(Product product) {
+    return new Object[]{product.getId(), product.getName(), product.getQuantity(), product.getVersion(),
+        product.getId()};
+  }
+
+  /**
+   * Returns the parameters of INSERT_CHANGE for the specified change of the specified product.
+   */
+  private static Object[] change(ProductChange.Type type, Product product) {
+    return new Object[]{type.name(), product.getId(), product.getName(), product.getQuantity(), product.getVersion()};
+  }
+
+  static Product toProduct(ResultSet rs) throws SQLException {
+    return Product.builder()
+        .id(rs.getInt("id"))
+        .name(rs.getString("name"))
+        .quantity(rs.getInt("quantity"))
+        .version(rs.getInt("version")).build();
   }
 }
@@ -0,0 +1,59 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The non-blocking counterpart of {@link ProductRepository}, used by the reactive profile.
+ */
+public interface ReactiveProductRepository {
+
+  /**
+   * Returns the product with the specified id.
+   *
+   * @param id        ID of the product to retrieve.
+   * @return          The requested Product, or an empty Mono if not found.
+   */
+  Mono<Product> findById(Integer id);
+
+  /**
+   * Returns all products in the database, in ID order, as they are read.
+   *
+   * @return          All products in the database.
+   */
+  Flux<Product> findAll();
+
+  /**
+   * Returns the products with the specified ids, in the order of the ids. Ids without a product are skipped.
+   *
+   * @param ids       The IDs of the products to retrieve.
+   * @return          The products that were found.
+   */
+  Flux<Product> findAllById(List<Integer> ids);
+
+  /**
+   * Updates the specified product, identified by its id, if its stored version is the one before the product's.
+   *
+   * @param product   The product to update.
+   * @return          True if the update succeeded, otherwise false.
+   */
+  Mono<Boolean> update(Product product);
+
+  /**
+   * Saves the specified product to the database.
+   *
+   * @param product   The product to save to the database.
+   * @return          The saved product.
+   */
+  Mono<Product> save(Product product);
+
+  /**
+   * Deletes the product with the specified id.
+   * @param id        The id of the product to delete.
+   * @return          True if the operation was successful.
+   */
+  Mono<Boolean> delete(Integer id);
+}
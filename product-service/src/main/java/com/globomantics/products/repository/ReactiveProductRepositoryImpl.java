@@ -0,0 +1,164 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.Product;
+import io.r2dbc.spi.Row;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.globomantics.products.logging.SampledLogFilter.SAMPLED;
+
+/**
+ * Reads and writes products with R2DBC. New products get their IDs from the IdAllocator and are inserted only if
+ * the ID is still free, as in ProductRepositoryImpl, so a product imported with its ID through another instance
+ * moves the allocator past it instead of failing the insert.
+ *
+ * Writes are not logged to product_changes, so the reactive profile is meant for read-mostly use: products
+ * created, updated or deleted here do not appear in the change feed of the JDBC instances.
+ */
+@Repository
+@Slf4j
+@Profile("reactive")
+public class ReactiveProductRepositoryImpl implements ReactiveProductRepository {
+
+  /**
+   * Inserts a new product with an allocated ID, unless that ID has been taken in the meantime.
+   */
+  private static final String INSERT_NEW_PRODUCT = "INSERT INTO products (id, name, quantity, version) "
+      + "SELECT :id, :name, :quantity, :version WHERE NOT EXISTS (SELECT 1 FROM products WHERE id = :id)";
+
+  private final DatabaseClient databaseClient;
+
+  private final IdAllocator idAllocator;
+
+  /**
+   * Whether the ID allocator has been moved past the products that were in the database before the first insert.
+   */
+  private volatile boolean idsAdvanced;
+
+  public ReactiveProductRepositoryImpl(DatabaseClient databaseClient, IdAllocator idAllocator) {
+    this.databaseClient = databaseClient;
+    this.idAllocator = idAllocator;
+  }
+
+  @Override
+  public Mono<Product> findById(Integer id) {
+    return databaseClient.sql("SELECT * FROM products WHERE id = :id")
+        .bind("id", id)
+        .map(ReactiveProductRepositoryImpl::toProduct)
+        .one();
+  }
+
+  @Override
+  public Flux<Product> findAll() {
+    return databaseClient.sql("SELECT * FROM products ORDER BY id")
+        .map(ReactiveProductRepositoryImpl::toProduct)
+        .all();
+  }
+
+  @Override
+  public Flux<Product> findAllById(List<Integer> ids) {
+    if (ids.isEmpty()) {
+      return Flux.empty();
+    }
+
+    // Return the products in the order of the requested IDs
+    return databaseClient.sql("SELECT * FROM products WHERE id IN (:ids)")
+        .bind("ids", ids)
+        .map(ReactiveProductRepositoryImpl::toProduct)
+        .all()
+        .collect(Collectors.toMap(Product::getId, Function.identity()))
+        .flatMapIterable(productsById -> ids.stream()
+            .map(productsById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList()));
+  }
+
+  @Override
+  public Mono<Boolean> update(Product product) {
+    return databaseClient.sql("UPDATE products SET name = :name, quantity = :quantity, version = :version "
+            + "WHERE id = :id AND version = :previousVersion")
+        .bind("name", product.getName())
+        .bind("quantity", product.getQuantity())
+        .bind("version", product.getVersion())
+        .bind("id", product.getId())
+        .bind("previousVersion", product.getVersion() - 1)
+        .fetch()
+        .rowsUpdated()
+        .map(rows -> rows == 1);
+  }
+
+  @Override
+  public Mono<Product> save(Product product) {
+    return (idsAdvanced ? Mono.<Void>empty() : advanceIdsPastExistingProducts())
+        .then(insertNew(product))
+        .map(id -> {
+          log.info(SAMPLED, "Inserting product into database, allocated key is: {}", id);
+          product.setId(id);
+          return product;
+        });
+  }
+
+  @Override
+  public Mono<Boolean> delete(Integer id) {
+    return databaseClient.sql("DELETE FROM products WHERE id = :id")
+        .bind("id", id)
+        .fetch()
+        .rowsUpdated()
+        .map(rows -> rows == 1);
+  }
+
+  /**
+   * Inserts the product with a newly allocated ID, allocating again while the ID turns out to be taken.
+   */
+  private Mono<Integer> insertNew(Product product) {
+    // The allocator only blocks when it reserves a new block of IDs, so it runs off the event loop
+    return Mono.fromCallable(idAllocator::nextId)
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(id -> databaseClient.sql(INSERT_NEW_PRODUCT)
+            .bind("id", id)
+            .bind("name", product.getName())
+            .bind("quantity", product.getQuantity())
+            .bind("version", product.getVersion())
+            .fetch()
+            .rowsUpdated()
+            .flatMap(rows -> {
+              if (rows == 1) {
+                return Mono.just(id);
+              }
+              log.warn("Product ID {} is already taken, moving the ID allocator past the existing products", id);
+              return advanceIdsPastExistingProducts().then(Mono.defer(() -> insertNew(product)));
+            }));
+  }
+
+  /**
+   * Moves the ID allocator past the highest product ID in the database, including IDs of imported products.
+   */
+  private Mono<Void> advanceIdsPastExistingProducts() {
+    return databaseClient.sql("SELECT MAX(id) AS max_id FROM products")
+        .map(row -> Optional.ofNullable(row.get("max_id", Integer.class)))
+        .one()
+        .publishOn(Schedulers.boundedElastic())
+        .doOnNext(maxId -> maxId.ifPresent(idAllocator::advancePast))
+        .doOnSuccess(maxId -> idsAdvanced = true)
+        .then();
+  }
+
+  private static Product toProduct(Row row) {
+    return Product.builder()
+        .id(row.get("id", Integer.class))
+        .name(row.get("name", String.class))
+        .quantity(row.get("quantity", Integer.class))
+        .version(row.get("version", Integer.class)).build();
+  }
+}
@@ -0,0 +1,96 @@
+package com.globomantics.products.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allocates product IDs in blocks reserved from a database sequence (hi/lo). Each value taken from the sequence
+ * (the hi) reserves the block of IDs {@code [hi * blockSize, (hi + 1) * blockSize)}, which is then handed out from
+ * memory, so the sequence is hit once per block instead of once per product.
+ *
+ * IDs are unique across instances sharing the sequence, but not contiguous: each instance allocates from its own
+ * block, and the unused part of a block is lost on restart.
+ *
+ * The sequence is only ever moved forward with NEXT VALUE FOR, never restarted, so that instances advancing it
+ * concurrently cannot hand out a block twice. See db/schema.sql for the DDL and for seeding the sequence of an
+ * existing catalog.
+ */
+@Component
+@Slf4j
+public class SequenceIdAllocator implements IdAllocator {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final String nextValueQuery;
+
+  private final int blockSize;
+
+  /**
+   * The next ID to hand out, and the end (exclusive) of the current block.
+   */
+  private long nextId;
+  private long blockEnd;
+
+  public SequenceIdAllocator(JdbcTemplate jdbcTemplate,
+                             @Value("${products.ids.sequence:product_ids}") String sequence,
+                             @Value("${products.ids.block-size:100}") int blockSize) {
+    if (!sequence.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+      throw new IllegalArgumentException("Invalid sequence name: " + sequence);
+    }
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("The block size must be positive: " + blockSize);
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.nextValueQuery = "SELECT NEXT VALUE FOR " + sequence;
+    this.blockSize = blockSize;
+  }
+
+  @Override
+  public synchronized int nextId() {
+    if (nextId == blockEnd) {
+      reserveBlock(nextHi());
+    }
+    if (nextId > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Product IDs are exhausted");
+    }
+    return (int) nextId++;
+  }
+
+  @Override
+  public synchronized void advancePast(int id) {
+    if (id < nextId) {
+      // The rest of the current block, and every block reserved after it, is above the ID
+      return;
+    }
+    if (id < blockEnd) {
+      nextId = id + 1L;
+      return;
+    }
+
+    // Draw values until one reserves a block after the ID. Each draw is a single query, and a large gap only
+    // occurs once, when an existing catalog is migrated to a sequence that was not seeded.
+    long minHi = id / blockSize + 1;
+    long hi = nextHi();
+    long skipped = 0;
+    while (hi < minHi) {
+      hi = nextHi();
+      skipped++;
+    }
+    reserveBlock(hi);
+    if (skipped > 0) {
+      log.info("Skipped {} blocks of product IDs to move past ID {}", skipped, id);
+    }
+  }
+
+  private long nextHi() {
+    return jdbcTemplate.queryForObject(nextValueQuery, Long.class);
+  }
+
+  private void reserveBlock(long hi) {
+    nextId = hi * blockSize;
+    blockEnd = nextId + blockSize;
+    log.debug("Reserved product IDs {} to {}", nextId, blockEnd - 1);
+  }
+}
@@ -0,0 +1,55 @@
+package com.globomantics.products.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates product IDs that identify the shard a product is stored on. Each shard allocates from its own
+ * product_ids sequence through a {@link SequenceIdAllocator}, and its IDs are {@code allocated * shardCount + shard},
+ * so shards never hand out the same ID and any ID is routed with {@code id % shardCount} without a lookup.
+ *
+ * The mapping depends on the number of shards, so adding a shard means re-distributing the existing products.
+ */
+public class ShardIdGenerator {
+
+  private final List<IdAllocator> allocators = new ArrayList<>();
+
+  public ShardIdGenerator(List<JdbcTemplate> shards, int blockSize) {
+    shards.forEach(shard -> allocators.add(new SequenceIdAllocator(shard, "product_ids", blockSize)));
+  }
+
+  /**
+   * Returns a new product ID on the specified shard.
+   *
+   * @param shard     The index of the shard that will store the product.
+   * @return          A product ID that routes to the specified shard.
+   */
+  public int nextId(int shard) {
+    long id = (long) allocators.get(shard).nextId() * allocators.size() + shard;
+    if (id > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Product IDs on shard " + shard + " are exhausted");
+    }
+    return (int) id;
+  }
+
+  /**
+   * Makes sure that the shard of the specified ID never generates an ID up to and including it.
+   *
+   * @param id        An ID that is already taken.
+   */
+  public void advancePast(int id) {
+    allocators.get(shardOf(id)).advancePast(Math.floorDiv(id, allocators.size()));
+  }
+
+  /**
+   * Returns the index of the shard that stores the product with the specified ID.
+   *
+   * @param id        The product ID.
+   * @return          The index of the product's shard.
+   */
+  public int shardOf(int id) {
+    return Math.floorMod(id, allocators.size());
+  }
+}
@@ -0,0 +1,315 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.globomantics.products.logging.SampledLogFilter.SAMPLED;
+
+/**
+ * A product repository that partitions products across several databases by ID, so that writes scale with the
+ * number of shards. IDs come from a {@link ShardIdGenerator}, which encodes the shard in the ID: reads, updates and
+ * deletes by ID go to a single shard, and new products are spread across the shards round robin.
+ *
+ * Queries over all products are scatter-gather: every shard is read in keyset pages ordered by ID, and the pages
+ * are merged so that products are returned in ID order without loading any shard in full.
+ *
+ * Each shard needs the products table and a product_ids sequence. Writes are not logged to product_changes, which
+ * would need a transaction across shards, so the change feed is not available with sharding.
+ */
+@Slf4j
+public class ShardedProductRepository implements ProductRepository {
+
+  private final List<DataSource> dataSources;
+
+  private final List<JdbcTemplate> shards = new ArrayList<>();
+
+  private final ShardIdGenerator idGenerator;
+
+  /**
+   * The number of products read from a shard per query when reading all products.
+   */
+  private final int pageSize;
+
+  /**
+   * Runs the per-shard queries of a scatter-gather read in parallel.
+   */
+  private final ExecutorService shardExecutor;
+
+  private final AtomicInteger nextShard = new AtomicInteger();
+
+  private volatile boolean idsAdvanced;
+
+  public ShardedProductRepository(List<DataSource> dataSources, int pageSize, int idBlockSize) {
+    this.dataSources = dataSources;
+    this.pageSize = pageSize;
+    dataSources.forEach(dataSource -> shards.add(new JdbcTemplate(dataSource)));
+    this.idGenerator = new ShardIdGenerator(shards, idBlockSize);
+    this.shardExecutor = Executors.newFixedThreadPool(dataSources.size(), runnable -> {
+      Thread thread = new Thread(runnable, "product-shards");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Moves each shard's ID allocator past the products the shard already stores.
+   */
+  private void advanceIdsPastExistingProducts() {
+    for (JdbcTemplate shard : shards) {
+      Integer maxId = shard.queryForObject("SELECT MAX(id) FROM products", Integer.class);
+      if (maxId != null) {
+        idGenerator.advancePast(maxId);
+      }
+    }
+  }
+
+  /**
+   * Generates a product ID on the specified shard, first moving the ID allocators past the existing products if no
+   * ID has been generated yet. That is not done at startup, so that the application can start before the shards'
+   * schema has been applied.
+   */
+  private int nextId(int shard) {
+    if (!idsAdvanced) {
+      synchronized (this) {
+        if (!idsAdvanced) {
+          advanceIdsPastExistingProducts();
+          idsAdvanced = true;
+        }
+      }
+    }
+    return idGenerator.nextId(shard);
+  }
+
+  @Override
+  public Optional<Product> findById(Integer id) {
+    try {
+      return Optional.ofNullable(shardFor(id).queryForObject("SELECT * FROM products WHERE id = ?",
+          (rs, rowNum) -> ProductRepositoryImpl.toProduct(rs), id));
+    } catch (EmptyResultDataAccessException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public List<Product> findAll() {
+    List<Product> products = new ArrayList<>();
+    forEach(products::add);
+    return products;
+  }
+
+  @Override
+  public void forEach(Consumer<Product> consumer) {
+    // Read the first page of every shard in parallel, then merge the shards' pages by ID
+    List<CompletableFuture<ShardPage>> firstPages = new ArrayList<>();
+    for (int shard = 0; shard < shards.size(); shard++) {
+      int s = shard;
+      firstPages.add(CompletableFuture.supplyAsync(() -> fetchPage(s, Integer.MIN_VALUE), shardExecutor));
+    }
+
+    PriorityQueue<ShardPage> pages = new PriorityQueue<>(Comparator.comparing(ShardPage::peekId));
+    firstPages.stream()
+        .map(CompletableFuture::join)
+        .filter(ShardPage::hasNext)
+        .forEach(pages::add);
+
+    while (!pages.isEmpty()) {
+      ShardPage page = pages.poll();
+      Product product = page.next();
+      consumer.accept(product);
+
+      if (!page.hasNext() && page.isFull()) {
+        // Continue the shard after the last product it returned
+        page = fetchPage(page.shard, product.getId());
+      }
+      if (page.hasNext()) {
+        pages.add(page);
+      }
+    }
+  }
+
+  /**
+   * Returns the page of products that follows the specified ID on the specified shard.
+   */
+  private ShardPage fetchPage(int shard, int afterId) {
+    List<Product> products = shards.get(shard).query("SELECT * FROM products WHERE id > ? ORDER BY id LIMIT ?",
+        (rs, rowNum) -> ProductRepositoryImpl.toProduct(rs), afterId, pageSize);
+    return new ShardPage(shard, products, products.size() == pageSize);
+  }
+
+  @Override
+  public List<Product> findAllById(List<Integer> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Map<Integer, Product> productsById = new ConcurrentHashMap<>();
+    List<CompletableFuture<Void>> queries = new ArrayList<>();
+    groupByShard(ids, id -> id).forEach((shard, shardIds) -> queries.add(CompletableFuture.runAsync(() -> {
+      String placeholders = String.join(", ", Collections.nCopies(shardIds.size(), "?"));
+      shards.get(shard).query("SELECT * FROM products WHERE id IN (" + placeholders + ")",
+          (RowCallbackHandler) rs -> productsById.put(rs.getInt("id"), ProductRepositoryImpl.toProduct(rs)),
+          shardIds.toArray());
+    }, shardExecutor)));
+    queries.forEach(CompletableFuture::join);
+
+    // Return the products in the order of the requested IDs
+    List<Product> products = new ArrayList<>(ids.size());
+    for (Integer id : ids) {
+      Product product = productsById.get(id);
+      if (product != null) {
+        products.add(product);
+      }
+    }
+    return products;
+  }
+
+  @Override
+  public boolean update(Product product) {
+    return shardFor(product.getId()).update(ProductRepositoryImpl.UPDATE_PRODUCT,
+        product.getName(),
+        product.getQuantity(),
+        product.getVersion(),
+        product.getId(),
+        product.getVersion() - 1) == 1;
+  }
+
+  @Override
+  public Product save(Product product) {
+    int shard = nextShard();
+    while (true) {
+      product.setId(nextId(shard));
+      if (shards.get(shard).update(ProductRepositoryImpl.INSERT_NEW_PRODUCT,
+          ProductRepositoryImpl.newProductParameters(product)) == 1) {
+        break;
+      }
+      log.warn("Product ID {} is already taken, moving the ID allocators past the existing products", product.getId());
+      advanceIdsPastExistingProducts();
+    }
+
+    log.info(SAMPLED, "Inserting product into shard {}, generated key is: {}", shard, product.getId());
+    return product;
+  }
+
+  @Override
+  public int saveAll(List<Product> products) {
+    // Imported IDs must never be generated for new products, so move each shard past its highest imported ID
+    Map<Integer, Integer> maxImportedIds = new HashMap<>();
+    for (Product product : products) {
+      if (product.getId() != null) {
+        maxImportedIds.merge(idGenerator.shardOf(product.getId()), product.getId(), Math::max);
+      }
+    }
+    maxImportedIds.values().forEach(idGenerator::advancePast);
+
+    for (Product product : products) {
+      if (product.getId() == null) {
+        product.setId(nextId(nextShard()));
+      }
+    }
+
+    // Every product now has an ID, so each shard's products are upserted together
+    int saved = 0;
+    for (Map.Entry<Integer, List<Product>> shardProducts : groupByShard(products, Product::getId).entrySet()) {
+      saved += ProductRepositoryImpl.upsert(shards.get(shardProducts.getKey()), shardProducts.getValue());
+    }
+    log.info("Saved a batch of {} products across {} shards", saved, shards.size());
+    return saved;
+  }
+
+  @Override
+  public boolean delete(Integer id) {
+    return shardFor(id).update("DELETE FROM products WHERE id = ?", id) == 1;
+  }
+
+  private JdbcTemplate shardFor(Integer id) {
+    return shards.get(idGenerator.shardOf(id));
+  }
+
+  private int nextShard() {
+    return Math.floorMod(nextShard.getAndIncrement(), shards.size());
+  }
+
+  private <T> Map<Integer, List<T>> groupByShard(List<T> values, Function<T, Integer> idOf) {
+    Map<Integer, List<T>> valuesByShard = new HashMap<>();
+    for (T value : values) {
+      valuesByShard.computeIfAbsent(idGenerator.shardOf(idOf.apply(value)), shard -> new ArrayList<>()).add(value);
+    }
+    return valuesByShard;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    shardExecutor.shutdownNow();
+    for (DataSource dataSource : dataSources) {
+      if (dataSource instanceof Closeable) {
+        try {
+          ((Closeable) dataSource).close();
+        } catch (IOException e) {
+          log.warn("Failed to close product shard: {}", e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * A page of products read from one shard, consumed in ID order.
+   */
+  private static final class ShardPage {
+    private final int shard;
+    private final Iterator<Product> products;
+    private final boolean full;
+    private Product head;
+
+    private ShardPage(int shard, List<Product> products, boolean full) {
+      this.shard = shard;
+      this.products = products.iterator();
+      this.full = full;
+      this.head = this.products.hasNext() ? this.products.next() : null;
+    }
+
+    private boolean hasNext() {
+      return head != null;
+    }
+
+    /**
+     * Returns true if the page was full, in which case the shard may have more products after it.
+     */
+    private boolean isFull() {
+      return full;
+    }
+
+    private Integer peekId() {
+      return head.getId();
+    }
+
+    private Product next() {
+      Product product = head;
+      head = products.hasNext() ? products.next() : null;
+      return product;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.globomantics.products.service;
+
+import com.globomantics.products.model.ProductDetail;
+
+import java.util.Optional;
+
+public interface ProductDetailService {
+    /**
+     * Returns the product with the specified id, together with its review summary and inventory. The product, the
+     * review summary and the inventory are retrieved concurrently; a review summary or inventory that cannot be
+     * retrieved in time is left out and listed as unavailable.
+     *
+     * @param id        ID of the product to retrieve.
+     * @return          The product detail, if the product was found.
+     * @throws ProductDetailUnavailableException If the product itself could not be retrieved in time.
+     */
+    Optional<ProductDetail> findById(Integer id);
+}
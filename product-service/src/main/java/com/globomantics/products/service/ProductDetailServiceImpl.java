@@ -0,0 +1,118 @@
+package com.globomantics.products.service;
+
+import com.globomantics.products.client.InventoryServiceClient;
+import com.globomantics.products.client.ReviewServiceClient;
+import com.globomantics.products.datasource.ReplicaRoutingDataSource;
+import com.globomantics.products.model.InventoryRecord;
+import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductDetail;
+import com.globomantics.products.model.ReviewSummary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class ProductDetailServiceImpl implements ProductDetailService {
+
+  private final ProductService productService;
+  private final ReviewServiceClient reviewServiceClient;
+  private final InventoryServiceClient inventoryServiceClient;
+
+  /**
+   * Runs the legs of each product detail request, so that they are retrieved concurrently.
+   */
+  private final ExecutorService executor;
+
+  private final Duration productTimeout;
+  private final Duration reviewsTimeout;
+  private final Duration inventoryTimeout;
+
+  public ProductDetailServiceImpl(ProductService productService,
+                                  ReviewServiceClient reviewServiceClient,
+                                  InventoryServiceClient inventoryServiceClient,
+                                  @Value("${products.detail.threads:32}") int threads,
+                                  @Value("${products.detail.product-timeout:PT1S}") Duration productTimeout,
+                                  @Value("${products.detail.reviews-timeout:PT0.5S}") Duration reviewsTimeout,
+                                  @Value("${products.detail.inventory-timeout:PT0.5S}") Duration inventoryTimeout) {
+    this.productService = productService;
+    this.reviewServiceClient = reviewServiceClient;
+    this.inventoryServiceClient = inventoryServiceClient;
+    this.executor = Executors.newFixedThreadPool(threads);
+    this.productTimeout = productTimeout;
+    this.reviewsTimeout = reviewsTimeout;
+    this.inventoryTimeout = inventoryTimeout;
+  }
+
+  @Override
+  public Optional<ProductDetail> findById(Integer id) {
+    // Start all three legs before waiting for any of them
+    CompletableFuture<Optional<Product>> product = leg(() -> productService.findById(id), productTimeout);
+    CompletableFuture<Optional<ReviewSummary>> reviews =
+        leg(() -> reviewServiceClient.getReviewSummary(id), reviewsTimeout);
+    CompletableFuture<Optional<InventoryRecord>> inventory =
+        leg(() -> inventoryServiceClient.getInventoryRecord(id), inventoryTimeout);
+
+    Optional<Product> foundProduct;
+    try {
+      foundProduct = product.join();
+    } catch (CompletionException e) {
+      reviews.cancel(true);
+      inventory.cancel(true);
+      throw new ProductDetailUnavailableException(id, e.getCause());
+    }
+    if (foundProduct.isEmpty()) {
+      reviews.cancel(true);
+      inventory.cancel(true);
+      return Optional.empty();
+    }
+
+    // The reviews and inventory are optional: a leg that fails or times out is reported as unavailable
+    List<String> unavailable = new ArrayList<>();
+    return Optional.of(ProductDetail.builder()
+        .product(foundProduct.get())
+        .reviews(optionalLeg(id, "reviews", reviews, unavailable))
+        .inventory(optionalLeg(id, "inventory", inventory, unavailable))
+        .unavailable(unavailable)
+        .build());
+  }
+
+  /**
+   * Starts a leg of a product detail request on the executor, failing it if it does not complete within its timeout.
+   * The leg reads from the primary if the request does, so that a client still sees its own writes.
+   */
+  private <T> CompletableFuture<T> leg(Supplier<T> supplier, Duration timeout) {
+    return CompletableFuture.supplyAsync(ReplicaRoutingDataSource.withPrimaryRequirement(supplier), executor)
+        .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Waits for an optional leg, returning null and recording the leg as unavailable if it failed or timed out.
+   */
+  private <T> T optionalLeg(Integer id, String name, CompletableFuture<Optional<T>> leg, List<String> unavailable) {
+    try {
+      return leg.join().orElse(null);
+    } catch (CompletionException e) {
+      log.warn("Product detail for product {} is missing {}: {}", id, name, e.getCause().toString());
+      unavailable.add(name);
+      return null;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
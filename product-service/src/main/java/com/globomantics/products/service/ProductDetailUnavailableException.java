@@ -0,0 +1,11 @@
+package com.globomantics.products.service;
+
+/**
+ * Thrown when the product of a product detail cannot be retrieved, so that there is no detail to degrade to.
+ */
+public class ProductDetailUnavailableException extends RuntimeException {
+
+    public ProductDetailUnavailableException(Integer id, Throwable cause) {
+        super("Product " + id + " could not be retrieved", cause);
+    }
+}
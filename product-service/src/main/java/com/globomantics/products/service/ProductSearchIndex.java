@@ -0,0 +1,352 @@
+package com.globomantics.products.service;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory inverted index of product names: each word maps to the sorted IDs of the products whose name
+ * contains it. The words are kept sorted, so the last word of a query can be matched as a prefix by scanning a range
+ * of words instead of the whole catalog.
+ *
+ * The index is built from the database when the application starts and kept up to date by the product service as
+ * products are saved, updated and deleted. Writes made through other instances, or directly in the database, only
+ * reach this instance's index when it is rebuilt, every products.search.rebuild-interval-ms (ten minutes by default).
+ * A rebuild does not block searches: the new index is built next to the
+ * current one, changes made during the rebuild are applied to both, and the new index then replaces the current one.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+  private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+  private final ProductRepository productRepository;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Index index = new Index();
+
+  /**
+   * The index being rebuilt, if a rebuild is in progress.
+   */
+  private Index rebuilding;
+
+  /**
+   * The IDs of the products changed since the rebuild started; the rebuild skips their rows, which may be stale.
+   */
+  private final Set<Integer> changedDuringRebuild = new HashSet<>();
+
+  public ProductSearchIndex(ProductRepository productRepository) {
+    this.productRepository = productRepository;
+  }
+
+  /**
+   * Adds a product to the index, or re-indexes it if its name has changed.
+   *
+   * @param product The product to index.
+   */
+  public void index(Product product) {
+    if (product.getId() != null) {
+      write(product.getId(), target -> target.add(product.getId(), product.getName()));
+    }
+  }
+
+  /**
+   * Removes a product from the index.
+   *
+   * @param productId The ID of the product to remove.
+   */
+  public void remove(Integer productId) {
+    write(productId, target -> target.remove(productId));
+  }
+
+  /**
+   * Returns the IDs of the products whose name matches the query.
+   *
+   * @param query The words to search for; the last one is matched as a prefix.
+   * @param page  The zero-based page of results.
+   * @param size  The number of results per page.
+   * @return      The IDs of the matching products on the requested page, in ascending order.
+   */
+  public List<Integer> search(String query, int page, int size) {
+    String[] words = tokenize(query);
+    if (words.length == 0 || size <= 0) {
+      return new ArrayList<>();
+    }
+
+    lock.readLock().lock();
+    try {
+      return index.search(words, (long) page * size, size);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rebuilds the index from the database, at startup and then periodically.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(initialDelayString = "${products.search.rebuild-interval-ms:600000}",
+      fixedDelayString = "${products.search.rebuild-interval-ms:600000}")
+  public synchronized void rebuild() {
+    long start = System.nanoTime();
+    Index newIndex = new Index();
+    lock.writeLock().lock();
+    try {
+      rebuilding = newIndex;
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    try {
+      productRepository.forEach(product -> {
+        lock.writeLock().lock();
+        try {
+          if (!changedDuringRebuild.contains(product.getId())) {
+            newIndex.add(product.getId(), product.getName());
+          }
+        } finally {
+          lock.writeLock().unlock();
+        }
+      });
+      lock.writeLock().lock();
+      try {
+        index = newIndex;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      log.info("Rebuilt the product search index with {} products in {} ms", newIndex.size(),
+          (System.nanoTime() - start) / 1_000_000);
+    } finally {
+      lock.writeLock().lock();
+      try {
+        rebuilding = null;
+        changedDuringRebuild.clear();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Applies a change to the current index and to the index being rebuilt, if any.
+   */
+  private void write(Integer productId, Consumer<Index> change) {
+    lock.writeLock().lock();
+    try {
+      change.accept(index);
+      if (rebuilding != null) {
+        change.accept(rebuilding);
+        changedDuringRebuild.add(productId);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Splits text into distinct lower case words.
+   */
+  static String[] tokenize(String text) {
+    if (text == null) {
+      return new String[0];
+    }
+    Set<String> words = new LinkedHashSet<>();
+    for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words.toArray(new String[0]);
+  }
+
+  /**
+   * The words of every product name and the posting list of every word. Not thread safe.
+   */
+  private static final class Index {
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+    private final Map<Integer, String[]> wordsByProductId = new HashMap<>();
+
+    void add(int productId, String name) {
+      remove(productId);
+      String[] words = tokenize(name);
+      wordsByProductId.put(productId, words);
+      for (String word : words) {
+        postings.computeIfAbsent(word, w -> new PostingList()).add(productId);
+      }
+    }
+
+    void remove(int productId) {
+      String[] words = wordsByProductId.remove(productId);
+      if (words != null) {
+        for (String word : words) {
+          PostingList postingList = postings.get(word);
+          postingList.remove(productId);
+          if (postingList.size() == 0) {
+            postings.remove(word);
+          }
+        }
+      }
+    }
+
+    int size() {
+      return wordsByProductId.size();
+    }
+
+    List<Integer> search(String[] words, long offset, int limit) {
+      String prefix = words[words.length - 1];
+      List<Integer> results = new ArrayList<>(limit);
+
+      if (words.length == 1) {
+        // Merge the posting lists of every word with the prefix, in ID order
+        Collection<PostingList> lists = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values();
+        mergeUnion(lists, offset, limit, results);
+        return results;
+      }
+
+      // Walk the shortest posting list of the whole words and check each ID against the others and the prefix
+      List<PostingList> lists = new ArrayList<>();
+      for (int i = 0; i < words.length - 1; i++) {
+        PostingList postingList = postings.get(words[i]);
+        if (postingList == null) {
+          return results;
+        }
+        lists.add(postingList);
+      }
+      lists.sort(Comparator.comparingInt(PostingList::size));
+
+      long skipped = 0;
+      PostingList shortest = lists.get(0);
+      for (int i = 0; i < shortest.size() && results.size() < limit; i++) {
+        int productId = shortest.get(i);
+        if (containedInAll(lists, productId) && hasWordWithPrefix(productId, prefix)) {
+          if (skipped < offset) {
+            skipped++;
+          } else {
+            results.add(productId);
+          }
+        }
+      }
+      return results;
+    }
+
+    private static boolean containedInAll(List<PostingList> lists, int productId) {
+      for (int i = 1; i < lists.size(); i++) {
+        if (!lists.get(i).contains(productId)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean hasWordWithPrefix(int productId, String prefix) {
+      for (String word : wordsByProductId.get(productId)) {
+        if (word.startsWith(prefix)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static void mergeUnion(Collection<PostingList> lists, long offset, int limit, List<Integer> results) {
+      // Each cursor is {list index, position}, ordered by the ID at its position
+      List<PostingList> sources = new ArrayList<>(lists);
+      PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, sources.size()),
+          Comparator.comparingInt(cursor -> sources.get(cursor[0]).get(cursor[1])));
+      for (int i = 0; i < sources.size(); i++) {
+        cursors.add(new int[]{i, 0});
+      }
+
+      long skipped = 0;
+      int last = Integer.MIN_VALUE;
+      boolean first = true;
+      while (!cursors.isEmpty() && results.size() < limit) {
+        int[] cursor = cursors.poll();
+        PostingList source = sources.get(cursor[0]);
+        int productId = source.get(cursor[1]);
+        if (first || productId != last) {
+          first = false;
+          last = productId;
+          if (skipped < offset) {
+            skipped++;
+          } else {
+            results.add(productId);
+          }
+        }
+        if (++cursor[1] < source.size()) {
+          cursors.add(cursor);
+        }
+      }
+    }
+  }
+
+  /**
+   * A sorted set of product IDs stored in an int array.
+   */
+  private static final class PostingList {
+
+    private int[] ids = new int[4];
+
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    int get(int index) {
+      return ids[index];
+    }
+
+    boolean contains(int productId) {
+      return Arrays.binarySearch(ids, 0, size, productId) >= 0;
+    }
+
+    void add(int productId) {
+      int index = Arrays.binarySearch(ids, 0, size, productId);
+      if (index >= 0) {
+        return;
+      }
+      index = -index - 1;
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      System.arraycopy(ids, index, ids, index + 1, size - index);
+      ids[index] = productId;
+      size++;
+    }
+
+    void remove(int productId) {
+      int index = Arrays.binarySearch(ids, 0, size, productId);
+      if (index >= 0) {
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+      }
+    }
+  }
+}
@@ -1,9 +1,11 @@
 package com.globomantics.products.service;
 
 import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductChange;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductService {
     /**
@@ -22,7 +24,39 @@ public interface ProductService {
     List<Product> findAll();
 
     /**
-     * Updates the specified product, identified by its id.
+     * Passes every product in the database to the specified consumer, one at a time.
+     *
+     * @param consumer  The consumer of the products.
+     */
+    void forEach(Consumer<Product> consumer);
+
+    /**
+     * Passes the product changes after the specified sequence number to the specified consumer, in order.
+     *
+     * @param since     The sequence number of the last change already processed, 0 for every change.
+     * @param limit     The maximum number of changes to pass.
+     * @param consumer  The consumer of the changes.
+     */
+    void forEachChange(long since, int limit, Consumer<ProductChange> consumer);
+
+    /**
+     * Returns true if product changes are logged for forEachChange, which they are not when products are sharded.
+     */
+    boolean logsChanges();
+
+    /**
+     * Searches product names. Every word of the query must match a word of the name; the last word of the query
+     * matches as a prefix, so that results can be shown as the user types.
+     *
+     * @param query     The words to search for.
+     * @param page      The zero-based page of results.
+     * @param size      The number of results per page.
+     * @return          The matching products, in ID order.
+     */
+    List<Product> search(String query, int page, int size);
+
+    /**
+     * Updates the specified product, identified by its id, if its stored version is the one before the product's.
      *
      * @param product   The product to update.
      * @return          True if the update succeeded, otherwise false.
@@ -37,6 +71,15 @@ public interface ProductService {
      */
     Product save(Product product);
 
+    /**
+     * Saves the specified products to the database in one batch, keeping their IDs if they have them. Replaced
+     * products move to their next version, so their ETags change with their content.
+     *
+     * @param products  The products to save.
+     * @return          The number of products saved.
+     */
+    int saveAll(List<Product> products);
+
     /**
      * Deletes the product with the specified id.
      * @param id        The id of the product to delete.
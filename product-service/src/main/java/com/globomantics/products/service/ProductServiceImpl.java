@@ -1,23 +1,46 @@
 package com.globomantics.products.service;
 
+import com.globomantics.products.cache.ProductNearCache;
 import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductChange;
+import com.globomantics.products.repository.ProductChangeRepository;
 import com.globomantics.products.repository.ProductRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
   private final ProductRepository productRepository;
 
-  public ProductServiceImpl(ProductRepository productRepository) {
+  private final ProductChangeRepository changeRepository;
+
+  private final ProductSearchIndex searchIndex;
+
+  /**
+   * The near-cache of products by ID, or null if products.cache.enabled is false.
+   */
+  private final ProductNearCache cache;
+
+  public ProductServiceImpl(ProductRepository productRepository,
+                            ProductChangeRepository changeRepository,
+                            ProductSearchIndex searchIndex,
+                            ObjectProvider<ProductNearCache> cache) {
     this.productRepository = productRepository;
+    this.changeRepository = changeRepository;
+    this.searchIndex = searchIndex;
+    this.cache = cache.getIfAvailable();
   }
 
   @Override
   public Optional<Product> findById(Integer id) {
+    if (cache != null) {
+      return cache.get(id, productRepository::findById);
+    }
     return productRepository.findById(id);
   }
 
@@ -26,19 +49,66 @@ public class ProductServiceImpl implements ProductService {
     return productRepository.findAll();
   }
 
+  @Override
+  public void forEach(Consumer<Product> consumer) {
+    productRepository.forEach(consumer);
+  }
+
+  @Override
+  public void forEachChange(long since, int limit, Consumer<ProductChange> consumer) {
+    changeRepository.forEachSince(since, limit, consumer);
+  }
+
+  @Override
+  public boolean logsChanges() {
+    return productRepository.logsChanges();
+  }
+
+  @Override
+  public List<Product> search(String query, int page, int size) {
+    return productRepository.findAllById(searchIndex.search(query, page, size));
+  }
+
   @Override
   public boolean update(Product product) {
-    return productRepository.update(product);
+    boolean updated = productRepository.update(product);
+    if (updated) {
+      searchIndex.index(product);
+      if (cache != null) {
+        cache.invalidate(product.getId(), product.getVersion());
+      }
+    }
+    return updated;
   }
 
   @Override
   public Product save(Product product) {
     product.setVersion(1);
-    return productRepository.save(product);
+    Product savedProduct = productRepository.save(product);
+    searchIndex.index(savedProduct);
+    return savedProduct;
+  }
+
+  @Override
+  public int saveAll(List<Product> products) {
+    int saved = productRepository.saveAll(products);
+    products.forEach(searchIndex::index);
+    if (cache != null) {
+      // Imports may replace any number of products, so every cached copy is dropped at once
+      cache.invalidateAll();
+    }
+    return saved;
   }
 
   @Override
   public boolean delete(Integer id) {
-    return productRepository.delete(id);
+    boolean deleted = productRepository.delete(id);
+    if (deleted) {
+      searchIndex.remove(id);
+      if (cache != null) {
+        cache.invalidate(id, null);
+      }
+    }
+    return deleted;
   }
 }
@@ -0,0 +1,59 @@
+package com.globomantics.products.service;
+
+import com.globomantics.products.model.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking counterpart of {@link ProductService}, used by the reactive profile.
+ */
+public interface ReactiveProductService {
+    /**
+     * Returns the product with the specified id.
+     *
+     * @param id        ID of the product to retrieve.
+     * @return          The requested Product, or an empty Mono if not found.
+     */
+    Mono<Product> findById(Integer id);
+
+    /**
+     * Returns all products in the database, in ID order.
+     *
+     * @return          All products in the database.
+     */
+    Flux<Product> findAll();
+
+    /**
+     * Searches product names, like {@link ProductService#search(String, int, int)}.
+     *
+     * @param query     The words to search for.
+     * @param page      The zero-based page of results.
+     * @param size      The number of results per page.
+     * @return          The matching products, in ID order.
+     */
+    Flux<Product> search(String query, int page, int size);
+
+    /**
+     * Updates the specified product, if its stored version is the one before the product's.
+     *
+     * @param product   The product to update.
+     * @return          True if the product was updated, otherwise false.
+     */
+    Mono<Boolean> update(Product product);
+
+    /**
+     * Saves the specified product to the database.
+     *
+     * @param product   The product to save to the database.
+     * @return          The saved product.
+     */
+    Mono<Product> save(Product product);
+
+    /**
+     * Deletes the product with the specified id.
+     *
+     * @param id        The id of the product to delete.
+     * @return          True if the operation was successful.
+     */
+    Mono<Boolean> delete(Integer id);
+}
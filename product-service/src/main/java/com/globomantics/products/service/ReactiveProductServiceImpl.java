@@ -0,0 +1,65 @@
+package com.globomantics.products.service;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.repository.ReactiveProductRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+  private final ReactiveProductRepository productRepository;
+
+  private final ProductSearchIndex searchIndex;
+
+  public ReactiveProductServiceImpl(ReactiveProductRepository productRepository, ProductSearchIndex searchIndex) {
+    this.productRepository = productRepository;
+    this.searchIndex = searchIndex;
+  }
+
+  @Override
+  public Mono<Product> findById(Integer id) {
+    return productRepository.findById(id);
+  }
+
+  @Override
+  public Flux<Product> findAll() {
+    return productRepository.findAll();
+  }
+
+  @Override
+  public Flux<Product> search(String query, int page, int size) {
+    // The index is in memory, so only the product lookup is deferred
+    return Flux.defer(() -> productRepository.findAllById(searchIndex.search(query, page, size)));
+  }
+
+  @Override
+  public Mono<Boolean> update(Product product) {
+    return productRepository.update(product)
+        .doOnNext(updated -> {
+          if (updated) {
+            searchIndex.index(product);
+          }
+        });
+  }
+
+  @Override
+  public Mono<Product> save(Product product) {
+    product.setVersion(1);
+    return productRepository.save(product)
+        .doOnNext(searchIndex::index);
+  }
+
+  @Override
+  public Mono<Boolean> delete(Integer id) {
+    return productRepository.delete(id)
+        .doOnNext(deleted -> {
+          if (deleted) {
+            searchIndex.remove(id);
+          }
+        });
+  }
+}
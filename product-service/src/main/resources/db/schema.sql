@@ -0,0 +1,40 @@
+-- The product service's schema. Spring Boot does not run this script; apply it with the database's migration tool.
+-- The test schema (src/test/resources/schema-h2.sql) is the H2 equivalent.
+
+CREATE TABLE products (
+    id       INTEGER      NOT NULL,
+    name     VARCHAR(128) NOT NULL,
+    quantity INTEGER      NOT NULL,
+    version  INTEGER      NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Product IDs are allocated in blocks of products.ids.block-size (default 100): each value of this sequence reserves
+-- the IDs [value * block-size, (value + 1) * block-size). The sequence must start past the existing products, so
+-- when migrating a catalog whose IDs came from AUTO_INCREMENT, start it at MAX(id) / block-size + 1:
+--
+--   CREATE SEQUENCE product_ids START WITH <MAX(id) / block-size + 1>;
+--
+-- The service also moves past MAX(id) before it allocates its first ID, but it does so one value at a time, so an
+-- unseeded sequence costs one query per block of existing products on the first insert.
+CREATE SEQUENCE product_ids START WITH 1;
+
+-- The change log served by GET /products/changes; every write through ProductRepositoryImpl appends to it.
+CREATE TABLE product_changes (
+    seq        BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    type       VARCHAR(16)  NOT NULL,
+    product_id INTEGER      NOT NULL,
+    name       VARCHAR(128),
+    quantity   INTEGER,
+    version    INTEGER,
+    changed_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (seq)
+);
+
+-- A single row that writers lock before appending to product_changes and hold until they commit, so that sequence
+-- numbers become visible in order and a consumer resuming after the last seq it read cannot miss a change.
+CREATE TABLE product_changes_lock (
+    id INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+INSERT INTO product_changes_lock (id) VALUES (1);
@@ -150,6 +150,29 @@ class ProductServiceIntegrationTest {
 				.andExpect(status().isNotFound());
 	}
 
+	@Test
+	@DisplayName("POST /products/import - Re-imported content gets a new ETag")
+	void testReimportChangesETag() throws Exception {
+		// The imported versions are not trusted: a new product starts at version 1 whatever the file says
+		mockMvc.perform(post("/products/import")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content("{\"id\": 500, \"name\": \"Imported\", \"quantity\": 1, \"version\": 7}\n"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/products/{id}", 500))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+		// Changed content with the same version moves the product to its next version
+		mockMvc.perform(post("/products/import")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content("{\"id\": 500, \"name\": \"Imported again\", \"quantity\": 2, \"version\": 1}\n"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/products/{id}", 500)
+						.header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+				.andExpect(jsonPath("$.name", is("Imported again")));
+	}
+
 	static String asJsonString(final Object obj) {
 		try {
 			return new ObjectMapper().writeValueAsString(obj);
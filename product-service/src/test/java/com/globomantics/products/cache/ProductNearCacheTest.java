@@ -0,0 +1,142 @@
+package com.globomantics.products.cache;
+
+import com.globomantics.products.model.Product;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Tests two near-caches that share a loopback channel, standing in for two instances.
+ */
+class ProductNearCacheTest {
+
+  private ProductNearCache first;
+
+  private ProductNearCache second;
+
+  /**
+   * The version of product 1 in our simulated database, and the number of times it was loaded.
+   */
+  private AtomicInteger version;
+  private AtomicInteger loads;
+
+  private Function<Integer, Optional<Product>> loader;
+
+  @BeforeEach
+  void setup() {
+    InvalidationChannel channel = new LoopbackInvalidationChannel();
+    first = new ProductNearCache(channel, 100, Duration.ofMinutes(1));
+    second = new ProductNearCache(channel, 100, Duration.ofMinutes(1));
+
+    version = new AtomicInteger(1);
+    loads = new AtomicInteger();
+    loader = id -> {
+      loads.incrementAndGet();
+      return Optional.of(Product.builder().id(id).name("Product " + id).quantity(10).version(version.get()).build());
+    };
+  }
+
+  @Test
+  @DisplayName("Test a cached product is served without loading it again")
+  void testHit() {
+    first.get(1, loader);
+    Product product = first.get(1, loader).orElseThrow();
+
+    Assertions.assertEquals(1, loads.get(), "The product should have been loaded once");
+
+    // Modifying the returned product must not modify the cached copy
+    product.setName("Modified");
+    Assertions.assertEquals("Product 1", first.get(1, loader).orElseThrow().getName());
+  }
+
+  @Test
+  @DisplayName("Test an update on one instance drops the older copy on its peer")
+  void testInvalidationReachesPeer() {
+    first.get(1, loader);
+    second.get(1, loader);
+
+    version.set(2);
+    first.invalidate(1, 2);
+
+    Assertions.assertEquals(2, second.get(1, loader).orElseThrow().getVersion().intValue(),
+        "The peer should have reloaded the new version");
+    Assertions.assertEquals(2, first.get(1, loader).orElseThrow().getVersion().intValue());
+    Assertions.assertEquals(4, loads.get(), "Both instances should have reloaded the product");
+  }
+
+  @Test
+  @DisplayName("Test a peer that already has the new version keeps it")
+  void testPeerKeepsNewerVersion() {
+    version.set(2);
+    second.get(1, loader);
+
+    first.invalidate(1, 2);
+    second.get(1, loader);
+
+    Assertions.assertEquals(1, loads.get(), "The peer's copy is current and should not be reloaded");
+  }
+
+  @Test
+  @DisplayName("Test a stale load that finishes after an invalidation is not cached")
+  void testStaleLoadNotCached() {
+    // The invalidation arrives while the peer is still reading version 1 from a lagging replica
+    second.get(1, id -> {
+      first.invalidate(1, 2);
+      return loader.apply(id);
+    });
+
+    version.set(2);
+    Assertions.assertEquals(2, second.get(1, loader).orElseThrow().getVersion().intValue(),
+        "The stale version should not have been cached");
+  }
+
+  @Test
+  @DisplayName("Test a delete drops every copy whatever its version")
+  void testDeleteDropsEveryCopy() {
+    first.get(1, loader);
+    second.get(1, loader);
+
+    first.invalidate(1, null);
+
+    Assertions.assertFalse(first.get(1, id -> Optional.empty()).isPresent());
+    Assertions.assertFalse(second.get(1, id -> Optional.empty()).isPresent());
+  }
+
+  @Test
+  @DisplayName("Test invalidating every product drops every copy on every instance")
+  void testInvalidateAll() {
+    first.get(1, loader);
+    second.get(1, loader);
+    second.get(2, loader);
+
+    first.invalidateAll();
+    first.get(1, loader);
+    second.get(1, loader);
+    second.get(2, loader);
+
+    Assertions.assertEquals(6, loads.get(), "Every product should have been reloaded");
+  }
+
+  @Test
+  @DisplayName("Test a full cache evicts its oldest products to cache new ones")
+  void testFullCacheEvictsOldest() {
+    ProductNearCache cache = new ProductNearCache(new LoopbackInvalidationChannel(), 2, Duration.ofMinutes(1));
+    cache.get(1, loader);
+    cache.get(2, loader);
+    cache.get(3, loader);
+    Assertions.assertEquals(3, loads.get());
+
+    // Product 3 was cached in place of product 1
+    cache.get(3, loader);
+    cache.get(2, loader);
+    Assertions.assertEquals(3, loads.get(), "Products 2 and 3 should be cached");
+    cache.get(1, loader);
+    Assertions.assertEquals(4, loads.get(), "Product 1 should have been evicted");
+  }
+}
@@ -0,0 +1,35 @@
+package com.globomantics.products.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+class ConditionalRequestsTest {
+
+  @Test
+  @DisplayName("Test If-None-Match uses the weak comparison")
+  void testNotModified() {
+    Assertions.assertTrue(ConditionalRequests.notModified("\"1\"", "\"1\""));
+    Assertions.assertTrue(ConditionalRequests.notModified("1", "\"1\""));
+    Assertions.assertTrue(ConditionalRequests.notModified("W/\"1\"", "\"1\""));
+    Assertions.assertTrue(ConditionalRequests.notModified("\"2\", W/\"1\"", "\"1\""));
+    Assertions.assertTrue(ConditionalRequests.notModified("*", "\"1\""));
+    Assertions.assertFalse(ConditionalRequests.notModified("\"2\"", "\"1\""));
+    Assertions.assertFalse(ConditionalRequests.notModified(null, "\"1\""));
+  }
+
+  @Test
+  @DisplayName("Test collection ETags change with the content")
+  void testWeakETag() {
+    List<String> names = Arrays.asList("ab", "c");
+    String eTag = ConditionalRequests.weakETag(names, ConditionalRequests.ContentHash::add);
+
+    Assertions.assertTrue(eTag.startsWith("W/\"2-"));
+    Assertions.assertEquals(eTag, ConditionalRequests.weakETag(Arrays.asList("ab", "c"), ConditionalRequests.ContentHash::add));
+    Assertions.assertNotEquals(eTag, ConditionalRequests.weakETag(Arrays.asList("a", "bc"), ConditionalRequests.ContentHash::add));
+    Assertions.assertNotEquals(eTag, ConditionalRequests.weakETag(Arrays.asList("c", "ab"), ConditionalRequests.ContentHash::add));
+  }
+}
@@ -2,7 +2,9 @@ package com.globomantics.products.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductChange;
 import com.globomantics.products.service.ProductService;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +13,22 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -120,7 +132,7 @@ class ProductControllerTest {
 
     mockMvc.perform(put(ProductController.REQUEST_MAPPING + "/{id}", 1)
             .contentType(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.IF_MATCH, 1)
+            .header(HttpHeaders.IF_MATCH, "\"1\"")
             .content(asJsonString(putProduct)))
 
         // Validate the response code and content type
@@ -145,7 +157,7 @@ class ProductControllerTest {
     Product putProduct = Product.builder().name("Product Name").quantity(10).build();
     Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(2).build();
     doReturn(Optional.of(mockProduct)).when(service).findById(1);
-    doReturn(true).when(service).update(any());
+    doReturn(false).when(service).update(any());
 
     mockMvc.perform(put(ProductController.REQUEST_MAPPING + "/{id}", 1)
             .contentType(MediaType.APPLICATION_JSON)
@@ -156,6 +168,20 @@ class ProductControllerTest {
         .andExpect(status().isConflict());
   }
 
+  @Test
+  @DisplayName("PUT /product/1 - Malformed If-Match")
+  void testProductPutMalformedIfMatch() throws Exception {
+    Product putProduct = Product.builder().name("Product Name").quantity(10).build();
+
+    mockMvc.perform(put(ProductController.REQUEST_MAPPING + "/{id}", 1)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, "W/\"3-abc\"")
+            .content(asJsonString(putProduct)))
+
+        // Validate the response code and content type
+        .andExpect(status().isPreconditionFailed());
+  }
+
   @Test
   @DisplayName("PUT /product/1 - Not Found")
   void testProductPutNotFound() throws Exception {
@@ -213,6 +239,193 @@ class ProductControllerTest {
         .andExpect(status().isInternalServerError());
   }
 
+  @Test
+  @DisplayName("GET /products - Not Modified")
+  void testGetProductsNotModified() throws Exception {
+    // Setup our mocked service
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+    doReturn(Arrays.asList(mockProduct)).when(service).findAll();
+
+    // Execute a GET request to learn the ETag of the product list
+    String eTag = mockMvc.perform(get(ProductController.REQUEST_MAPPING))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id", is(1)))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    Assertions.assertTrue(eTag.startsWith("W/"), "The ETag of the product list should be weak");
+
+    // Validate that the same list is not sent again
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+    // Validate that a changed product changes the ETag
+    mockProduct.setQuantity(9);
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].quantity", is(9)));
+  }
+
+  @Test
+  @DisplayName("GET /products/search - Success")
+  void testSearchProducts() throws Exception {
+    // Setup our mocked service
+    Product mockProduct = Product.builder().id(1).name("Red Running Shoes").quantity(10).version(1).build();
+    doReturn(Arrays.asList(mockProduct)).when(service).search("red run", 0, 20);
+
+    // Execute the GET request
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/search").param("q", "red run"))
+
+        // Validate the response code and returned products
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].id", is(1)))
+        .andExpect(jsonPath("$[0].name", is("Red Running Shoes")));
+  }
+
+  @Test
+  @DisplayName("GET /products/search - Page too large")
+  void testSearchProductsPageTooLarge() throws Exception {
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/search")
+            .param("q", "red")
+            .param("size", "1000"))
+
+        // Validate the response code is 400 Bad Request
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("GET /products/export - Success")
+  void testExportProducts() throws Exception {
+    // Setup our mocked service to stream two products
+    doAnswer(invocation -> {
+      Consumer<Product> consumer = invocation.getArgument(0);
+      consumer.accept(Product.builder().id(1).name("Product 1").quantity(10).version(1).build());
+      consumer.accept(Product.builder().id(2).name("Product 2").quantity(5).version(2).build());
+      return null;
+    }).when(service).forEach(any());
+
+    // Execute the GET request; the body is streamed asynchronously
+    MvcResult result = mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/export"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Validate one product per line
+    String body = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse().getContentAsString();
+    String[] lines = body.split("\n");
+    Assertions.assertEquals(2, lines.length);
+    Assertions.assertEquals(2, new ObjectMapper().readValue(lines[1], Product.class).getId().intValue());
+  }
+
+  @Test
+  @DisplayName("GET /products/changes - Success")
+  void testGetChanges() throws Exception {
+    // Setup our mocked service to stream the changes after sequence number 5
+    doAnswer(invocation -> {
+      Consumer<ProductChange> consumer = invocation.getArgument(2);
+      consumer.accept(ProductChange.builder().seq(6L).type(ProductChange.Type.UPDATED)
+          .productId(1).name("Product 1").quantity(10).version(2).build());
+      consumer.accept(ProductChange.builder().seq(7L).type(ProductChange.Type.DELETED).productId(2).build());
+      return null;
+    }).when(service).forEachChange(eq(5L), eq(1000), any());
+    doReturn(true).when(service).logsChanges();
+
+    // Execute the GET request; the body is streamed asynchronously
+    MvcResult result = mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/changes").param("since", "5"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Validate one change per line, in order
+    String body = mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse().getContentAsString();
+    String[] lines = body.split("\n");
+    Assertions.assertEquals(2, lines.length);
+    ProductChange last = new ObjectMapper().readValue(lines[1], ProductChange.class);
+    Assertions.assertEquals(7L, last.getSeq().longValue());
+    Assertions.assertEquals(ProductChange.Type.DELETED, last.getType());
+  }
+
+  @Test
+  @DisplayName("GET /products/changes - Not logged")
+  void testGetChangesNotLogged() throws Exception {
+    doReturn(false).when(service).logsChanges();
+
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/changes"))
+
+        // Validate the response code is 501 Not Implemented
+        .andExpect(status().isNotImplemented());
+  }
+
+  @Test
+  @DisplayName("GET /products/changes - Limit too large")
+  void testGetChangesLimitTooLarge() throws Exception {
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/changes")
+            .param("since", "0")
+            .param("limit", "100000"))
+
+        // Validate the response code is 400 Bad Request
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("POST /products/import - Success")
+  void testImportProducts() throws Exception {
+    // Setup our mocked service
+    doReturn(2).when(service).saveAll(anyList());
+
+    // Execute the POST request with a malformed line between two products
+    mockMvc.perform(post(ProductController.REQUEST_MAPPING + "/import")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .content("{\"id\": 1, \"name\": \"Product 1\", \"quantity\": 10, \"version\": 1}\n"
+                + "not json\n"
+                + "{\"name\": \"Product 2\", \"quantity\": 5}\n"))
+
+        // Validate the response code and counts
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.received", is(3)))
+        .andExpect(jsonPath("$.imported", is(2)))
+        .andExpect(jsonPath("$.failed", is(1)))
+        .andExpect(jsonPath("$.failedLines[0]", is(2)));
+
+    // Both valid products were saved in one batch
+    verify(service).saveAll(Arrays.asList(
+        Product.builder().id(1).name("Product 1").quantity(10).version(1).build(),
+        Product.builder().name("Product 2").quantity(5).build()));
+  }
+
+  @Test
+  @DisplayName("POST /products/import - Gzip compressed")
+  void testImportProductsGzip() throws Exception {
+    doReturn(1).when(service).saveAll(anyList());
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write("{\"name\": \"Product 1\", \"quantity\": 10}\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    mockMvc.perform(post(ProductController.REQUEST_MAPPING + "/import")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .content(compressed.toByteArray()))
+
+        // Validate the response code and counts
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.received", is(1)))
+        .andExpect(jsonPath("$.imported", is(1)));
+  }
+
+  @Test
+  @DisplayName("POST /products/import - Unsupported encoding")
+  void testImportProductsUnsupportedEncoding() throws Exception {
+    mockMvc.perform(post(ProductController.REQUEST_MAPPING + "/import")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_ENCODING, "br")
+            .content("{}\n"))
+        .andExpect(status().isUnsupportedMediaType());
+  }
+
   static String asJsonString(final Object obj) {
     try {
       return new ObjectMapper().writeValueAsString(obj);
@@ -0,0 +1,74 @@
+package com.globomantics.products.controller;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductDetail;
+import com.globomantics.products.service.ProductDetailService;
+import com.globomantics.products.service.ProductDetailUnavailableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ProductDetailController.class)
+class ProductDetailControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private ProductDetailService service;
+
+  @Test
+  @DisplayName("GET /products/1/detail - Found")
+  void testGetProductDetailFound() throws Exception {
+    // Setup our mocked service, with the reviews unavailable
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+    ProductDetail mockDetail = ProductDetail.builder()
+        .product(mockProduct)
+        .unavailable(Collections.singletonList("reviews"))
+        .build();
+    doReturn(Optional.of(mockDetail)).when(service).findById(1);
+
+    // Execute the GET request
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/{id}/detail", 1))
+
+        // Validate the response code and content type
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+
+        // Validate the returned fields
+        .andExpect(jsonPath("$.product.id", is(1)))
+        .andExpect(jsonPath("$.product.name", is("Product Name")))
+        .andExpect(jsonPath("$.unavailable[0]", is("reviews")));
+  }
+
+  @Test
+  @DisplayName("GET /products/1/detail - Not Found")
+  void testGetProductDetailNotFound() throws Exception {
+    doReturn(Optional.empty()).when(service).findById(1);
+
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/{id}/detail", 1))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("GET /products/1/detail - Service Unavailable")
+  void testGetProductDetailUnavailable() throws Exception {
+    doThrow(new ProductDetailUnavailableException(1, new IllegalStateException())).when(service).findById(1);
+
+    mockMvc.perform(get(ProductController.REQUEST_MAPPING + "/{id}/detail", 1))
+        .andExpect(status().isServiceUnavailable());
+  }
+}
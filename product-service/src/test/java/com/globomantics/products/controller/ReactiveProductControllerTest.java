@@ -0,0 +1,168 @@
+package com.globomantics.products.controller;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.service.ReactiveProductService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+@WebFluxTest(ReactiveProductController.class)
+@ActiveProfiles("reactive")
+class ReactiveProductControllerTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @MockBean
+  private ReactiveProductService service;
+
+  @Test
+  @DisplayName("GET /products/1 - Found")
+  void testGetProductByIdFound() {
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+    doReturn(Mono.just(mockProduct)).when(service).findById(1);
+
+    webTestClient.get().uri(ProductController.REQUEST_MAPPING + "/{id}", 1)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+        .expectHeader().valueEquals(HttpHeaders.LOCATION, ProductController.REQUEST_MAPPING + "/1")
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(1)
+        .jsonPath("$.name").isEqualTo("Product Name");
+  }
+
+  @Test
+  @DisplayName("GET /products/1 - Not Modified")
+  void testGetProductByIdNotModified() {
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+    doReturn(Mono.just(mockProduct)).when(service).findById(1);
+
+    webTestClient.get().uri(ProductController.REQUEST_MAPPING + "/{id}", 1)
+        .header(HttpHeaders.IF_NONE_MATCH, "1")
+        .exchange()
+        .expectStatus().isNotModified();
+  }
+
+  @Test
+  @DisplayName("GET /products - Not Modified")
+  void testGetProductsNotModified() {
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+    doReturn(Flux.just(mockProduct)).when(service).findAll();
+
+    String eTag = webTestClient.get().uri(ProductController.REQUEST_MAPPING)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$[0].id").isEqualTo(1)
+        .returnResult()
+        .getResponseHeaders()
+        .getETag();
+
+    webTestClient.get().uri(ProductController.REQUEST_MAPPING)
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .exchange()
+        .expectStatus().isNotModified();
+  }
+
+  @Test
+  @DisplayName("GET /products/1 - Not Found")
+  void testGetProductByIdNotFound() {
+    doReturn(Mono.empty()).when(service).findById(1);
+
+    webTestClient.get().uri(ProductController.REQUEST_MAPPING + "/{id}", 1)
+        .exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  @DisplayName("GET /products/changes - Not Implemented")
+  void testGetChangesNotImplemented() {
+    webTestClient.get().uri(ProductController.REQUEST_MAPPING + "/changes")
+        .exchange()
+        .expectStatus().isEqualTo(501);
+  }
+
+  @Test
+  @DisplayName("GET /products/export - NDJSON")
+  void testExportProducts() {
+    doReturn(Flux.just(
+        Product.builder().id(1).name("Product 1").quantity(10).version(1).build(),
+        Product.builder().id(2).name("Product 2").quantity(5).version(2).build())).when(service).findAll();
+
+    webTestClient.get().uri(ProductController.REQUEST_MAPPING + "/export")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(Product.class).hasSize(2);
+  }
+
+  @Test
+  @DisplayName("POST /products - Success")
+  void testCreateProduct() {
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(5).version(1).build();
+    doReturn(Mono.just(mockProduct)).when(service).save(any());
+
+    webTestClient.post().uri(ProductController.REQUEST_MAPPING)
+        .bodyValue(Product.builder().name("Product Name").quantity(5).build())
+        .exchange()
+        .expectStatus().isCreated()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+        .expectHeader().valueEquals(HttpHeaders.LOCATION, ProductController.REQUEST_MAPPING + "/1")
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("PUT /products/1 - Success")
+  void testUpdateProductSuccess() {
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+    doReturn(Mono.just(mockProduct)).when(service).findById(1);
+    doReturn(Mono.just(true)).when(service).update(any());
+
+    webTestClient.put().uri(ProductController.REQUEST_MAPPING + "/{id}", 1)
+        .header(HttpHeaders.IF_MATCH, "\"1\"")
+        .bodyValue(Product.builder().name("Product Name").quantity(10).build())
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+        .expectBody()
+        .jsonPath("$.version").isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("PUT /products/1 - Version Mismatch")
+  void testUpdateProductConflict() {
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(2).build();
+    doReturn(Mono.just(mockProduct)).when(service).findById(1);
+    doReturn(Mono.just(false)).when(service).update(any());
+
+    webTestClient.put().uri(ProductController.REQUEST_MAPPING + "/{id}", 1)
+        .header(HttpHeaders.IF_MATCH, "1")
+        .bodyValue(Product.builder().name("Product Name").quantity(10).build())
+        .exchange()
+        .expectStatus().isEqualTo(409);
+  }
+
+  @Test
+  @DisplayName("DELETE /products/1 - Success")
+  void testDeleteProduct() {
+    Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+    doReturn(Mono.just(mockProduct)).when(service).findById(1);
+    doReturn(Mono.just(true)).when(service).delete(1);
+
+    webTestClient.delete().uri(ProductController.REQUEST_MAPPING + "/{id}", 1)
+        .exchange()
+        .expectStatus().isOk();
+  }
+}
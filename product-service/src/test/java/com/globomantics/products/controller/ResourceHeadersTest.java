@@ -0,0 +1,27 @@
+package com.globomantics.products.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ResourceHeadersTest {
+
+  private final ResourceHeaders headers = new ResourceHeaders("/products");
+
+  @Test
+  @DisplayName("Test locations of cached and uncached IDs")
+  void testLocation() {
+    Assertions.assertEquals("/products/1", headers.location(1));
+    Assertions.assertSame(headers.location(1), headers.location(1), "Small IDs should be cached");
+    Assertions.assertEquals("/products/123456", headers.location(123456));
+    Assertions.assertEquals("/products/-1", headers.location(-1));
+    Assertions.assertEquals("/products/abc", headers.location("abc"));
+  }
+
+  @Test
+  @DisplayName("Test ETags are quoted versions")
+  void testETag() {
+    Assertions.assertEquals("\"1\"", ResourceHeaders.eTag(1));
+    Assertions.assertEquals("\"" + ResourceHeaders.CACHE_SIZE + "\"", ResourceHeaders.eTag(ResourceHeaders.CACHE_SIZE));
+  }
+}
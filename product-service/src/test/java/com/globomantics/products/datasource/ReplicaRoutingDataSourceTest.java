@@ -0,0 +1,107 @@
+package com.globomantics.products.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Tests the routing against three separate H2 databases, a primary and two replicas, that each hold a different
+ * product name, so that every query shows which database served it.
+ */
+class ReplicaRoutingDataSourceTest {
+
+  private JdbcTemplate jdbcTemplate;
+
+  private TransactionTemplate readOnlyTransaction;
+
+  private TransactionTemplate readWriteTransaction;
+
+  @BeforeEach
+  void setup() {
+    DataSource primary = database("primary");
+    ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary,
+        Arrays.asList(database("replica1"), database("replica2")));
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+    readOnlyTransaction = new TransactionTemplate(transactionManager);
+    readOnlyTransaction.setReadOnly(true);
+    readWriteTransaction = new TransactionTemplate(transactionManager);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ReplicaRoutingDataSource.setPrimaryRequired(false);
+  }
+
+  @Test
+  @DisplayName("Test read-only transactions are spread across the replicas")
+  void testReadsGoToReplicas() {
+    String first = readOnlyTransaction.execute(status -> name());
+    String second = readOnlyTransaction.execute(status -> name());
+
+    Assertions.assertTrue(first.startsWith("replica"), "Reads should be served by a replica");
+    Assertions.assertTrue(second.startsWith("replica"), "Reads should be served by a replica");
+    Assertions.assertNotEquals(first, second, "Reads should be spread across the replicas");
+  }
+
+  @Test
+  @DisplayName("Test writes and non-transactional statements go to the primary")
+  void testWritesGoToPrimary() {
+    Assertions.assertEquals("primary", readWriteTransaction.execute(status -> name()));
+    Assertions.assertEquals("primary", name());
+  }
+
+  @Test
+  @DisplayName("Test a client that has just written reads from the primary")
+  void testReadYourWrites() {
+    ReplicaRoutingDataSource.setPrimaryRequired(true);
+
+    Assertions.assertEquals("primary", readOnlyTransaction.execute(status -> name()));
+  }
+
+  @Test
+  @DisplayName("Test a client that returns the last-write header reads from the primary")
+  void testReadYourWritesHeader() throws Exception {
+    ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofMinutes(1));
+    MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("PUT", "/products/1"), writeResponse, (request, response) -> { });
+    String lastWrite = writeResponse.getHeader(ReadYourWritesFilter.LAST_WRITE_HEADER);
+    Assertions.assertNotNull(lastWrite, "The write should return its time in a header");
+
+    MockHttpServletRequest read = new MockHttpServletRequest("GET", "/products/1");
+    read.addHeader(ReadYourWritesFilter.LAST_WRITE_HEADER, lastWrite);
+    String[] servedBy = new String[1];
+    filter.doFilter(read, new MockHttpServletResponse(),
+        (request, response) -> servedBy[0] = readOnlyTransaction.execute(status -> name()));
+
+    Assertions.assertEquals("primary", servedBy[0]);
+  }
+
+  private String name() {
+    return jdbcTemplate.queryForObject("SELECT name FROM products WHERE id = 1", String.class);
+  }
+
+  private static DataSource database(String name) {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS products (id INTEGER PRIMARY KEY, name VARCHAR(128))");
+    jdbcTemplate.execute("MERGE INTO products (id, name) KEY (id) VALUES (1, '" + name + "')");
+    return dataSource;
+  }
+}
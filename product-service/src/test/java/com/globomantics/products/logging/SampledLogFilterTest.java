@@ -0,0 +1,45 @@
+package com.globomantics.products.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SampledLogFilterTest {
+
+  private SampledLogFilter filter;
+
+  private Logger logger;
+
+  @BeforeEach
+  void setup() {
+    filter = new SampledLogFilter();
+    filter.setRate(10);
+    logger = new LoggerContext().getLogger(SampledLogFilterTest.class);
+  }
+
+  @Test
+  void testSampledEventsAreSampled() {
+    int logged = 0;
+    for (int i = 0; i < 1000; i++) {
+      if (filter.decide(SampledLogFilter.SAMPLED, logger, Level.INFO, "message {}", new Object[]{i}, null)
+          == FilterReply.NEUTRAL) {
+        logged++;
+      }
+    }
+    Assertions.assertEquals(100, logged, "One in every 10 sampled events should be logged");
+  }
+
+  @Test
+  void testOtherEventsAreNotSampled() {
+    for (int i = 0; i < 100; i++) {
+      Assertions.assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "message", null, null));
+      Assertions.assertEquals(FilterReply.NEUTRAL,
+          filter.decide(SampledLogFilter.SAMPLED, logger, Level.WARN, "warning", null, null),
+          "Warnings should never be sampled");
+    }
+  }
+}
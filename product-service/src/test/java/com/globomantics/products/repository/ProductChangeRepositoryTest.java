@@ -0,0 +1,138 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductChange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@JdbcTest
+@Import({ProductRepositoryImpl.class, ProductChangeRepositoryImpl.class, SequenceIdAllocator.class})
+class ProductChangeRepositoryTest {
+
+  @Autowired
+  private ProductRepository repository;
+
+  @Autowired
+  private ProductChangeRepository changeRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testWritesAreLoggedInOrder() {
+    Product product = repository.save(Product.builder().name("Product 5").quantity(5).version(1).build());
+    product.setQuantity(4);
+    product.setVersion(2);
+    repository.update(product);
+    repository.delete(product.getId());
+
+    List<ProductChange> changes = changesSince(0, 100);
+
+    Assertions.assertEquals(3, changes.size(), "Every write should have been logged");
+    Assertions.assertEquals(ProductChange.Type.CREATED, changes.get(0).getType());
+    Assertions.assertEquals(ProductChange.Type.UPDATED, changes.get(1).getType());
+    Assertions.assertEquals(4, changes.get(1).getQuantity().intValue(), "The change should carry the new state");
+    Assertions.assertEquals(2, changes.get(1).getVersion().intValue());
+    Assertions.assertEquals(ProductChange.Type.DELETED, changes.get(2).getType());
+    Assertions.assertNull(changes.get(2).getName(), "A delete carries no product state");
+    changes.forEach(change -> Assertions.assertEquals(product.getId(), change.getProductId()));
+    Assertions.assertTrue(changes.get(0).getSeq() < changes.get(1).getSeq(), "Changes should be in sequence order");
+    Assertions.assertNotNull(changes.get(0).getChangedAt());
+  }
+
+  @Test
+  void testFailedWritesAreNotLogged() {
+    repository.update(Product.builder().id(3).name("Product 3").quantity(1).version(2).build());
+    repository.delete(3);
+
+    Assertions.assertTrue(changesSince(0, 100).isEmpty(), "Writes that changed nothing should not be logged");
+  }
+
+  @Test
+  void testSinceAndLimit() {
+    repository.saveAll(Arrays.asList(
+        Product.builder().id(2).name("Product 2 imported").quantity(7).version(3).build(),
+        Product.builder().name("Product 6").quantity(6).build(),
+        Product.builder().name("Product 7").quantity(7).build()));
+
+    List<ProductChange> all = changesSince(0, 100);
+    Assertions.assertEquals(3, all.size());
+    Assertions.assertEquals(ProductChange.Type.REPLACED, all.get(0).getType());
+
+    // Resume after the first change, one change at a time
+    List<ProductChange> next = changesSince(all.get(0).getSeq(), 1);
+    Assertions.assertEquals(1, next.size());
+    Assertions.assertEquals(all.get(1).getSeq(), next.get(0).getSeq());
+    Assertions.assertEquals("Product 6", next.get(0).getName());
+  }
+
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  void testChangesBecomeVisibleInCommitOrder() throws Exception {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    CountDownLatch firstAppended = new CountDownLatch(1);
+    CountDownLatch commitFirst = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      // The first write appends its change, then holds its transaction open
+      Future<Product> first = executor.submit(() -> transaction.execute(status -> {
+        Product product = repository.save(Product.builder().name("Slow").quantity(1).version(1).build());
+        firstAppended.countDown();
+        try {
+          commitFirst.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return product;
+      }));
+      Assertions.assertTrue(firstAppended.await(5, TimeUnit.SECONDS));
+
+      Future<Product> second = executor.submit(() ->
+          repository.save(Product.builder().name("Fast").quantity(1).version(1).build()));
+      Thread.sleep(200);
+      Assertions.assertFalse(second.isDone(), "The second append should wait for the first write to commit");
+      Assertions.assertTrue(changesSince(0, 100).isEmpty(), "No change should be visible before a commit");
+
+      commitFirst.countDown();
+      Product slow = first.get(5, TimeUnit.SECONDS);
+      Product fast = second.get(5, TimeUnit.SECONDS);
+
+      List<ProductChange> changes = changesSince(0, 100);
+      Assertions.assertEquals(2, changes.size());
+      Assertions.assertEquals(slow.getId(), changes.get(0).getProductId(), "The first commit should come first");
+      Assertions.assertEquals(fast.getId(), changes.get(1).getProductId());
+    } finally {
+      commitFirst.countDown();
+      executor.shutdownNow();
+      // This test commits, so it cleans up after itself
+      jdbcTemplate.update("DELETE FROM products WHERE name IN ('Slow', 'Fast')");
+      jdbcTemplate.update("DELETE FROM product_changes");
+    }
+  }
+
+  private List<ProductChange> changesSince(long since, int limit) {
+    List<ProductChange> changes = new ArrayList<>();
+    changeRepository.forEachSince(since, limit, changes::add);
+    return changes;
+  }
+}
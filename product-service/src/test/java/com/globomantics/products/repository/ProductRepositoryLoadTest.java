@@ -0,0 +1,71 @@
+package com.globomantics.products.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures repository throughput against the size of the connection pool, with more request threads than
+ * connections, as under a traffic spike. Run with: mvn -pl product-service test -Dtest=ProductRepositoryLoadTest
+ * -DloadTest=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "loadTest", matches = "true")
+class ProductRepositoryLoadTest {
+
+  private static final int THREADS = 64;
+
+  private static final int QUERIES_PER_THREAD = 2_000;
+
+  @ParameterizedTest(name = "pool size {0}")
+  @ValueSource(ints = {1, 2, 4, 8, 16, 32})
+  void testThroughputByPoolSize(int poolSize) throws Exception {
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl("jdbc:h2:mem:load" + poolSize + ";DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64");
+    config.setMaximumPoolSize(poolSize);
+    config.setMinimumIdle(poolSize);
+    config.setConnectionTimeout(30_000);
+
+    try (HikariDataSource dataSource = new HikariDataSource(config)) {
+      new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql")).execute(dataSource);
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+      for (int i = 1; i <= 1_000; i++) {
+        jdbcTemplate.update("INSERT INTO products (name, quantity, version) VALUES (?, ?, 1)", "Product " + i, i);
+      }
+      ProductRepository repository = new ProductRepositoryImpl(jdbcTemplate,
+          new SequenceIdAllocator(jdbcTemplate, "product_ids", 100), 1000);
+
+      AtomicInteger found = new AtomicInteger();
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      long start = System.nanoTime();
+      for (int thread = 0; thread < THREADS; thread++) {
+        executor.execute(() -> {
+          for (int i = 0; i < QUERIES_PER_THREAD; i++) {
+            if (repository.findById(1 + (i % 1_000)).isPresent()) {
+              found.incrementAndGet();
+            }
+          }
+        });
+      }
+      executor.shutdown();
+      Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+      long elapsedNanos = System.nanoTime() - start;
+
+      Assertions.assertEquals(THREADS * QUERIES_PER_THREAD, found.get());
+      log.info("Pool size {}: {} queries/s, {} threads waiting for a connection at the end", poolSize,
+          Math.round(found.get() / (elapsedNanos / 1e9)), dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
+    }
+  }
+}
@@ -6,17 +6,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 @JdbcTest
-@Import(ProductRepositoryImpl.class)
+@Import({ProductRepositoryImpl.class, SequenceIdAllocator.class})
 public class ProductRepositoryTest {
 
   @Autowired
   private ProductRepository repository;
 
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
   @Test
   void testFindAll() {
     List<Product> products = repository.findAll();
@@ -70,7 +76,7 @@ public class ProductRepositoryTest {
   @Test
   void testUpdateSuccess() {
     // Update product 1's name, quantity, and version
-    Product product = Product.builder().id(1).name("This is product 1").quantity(100).version(5).build();
+    Product product = Product.builder().id(1).name("This is product 1").quantity(100).version(2).build();
     boolean result  = repository.update(product);
 
     // Validate that our product is returned by update()
@@ -81,7 +87,18 @@ public class ProductRepositoryTest {
     Assertions.assertTrue(loadedProduct.isPresent(), "Updated product should exist in the database");
     Assertions.assertEquals("This is product 1", loadedProduct.get().getName(), "The product name does not match");
     Assertions.assertEquals(100, loadedProduct.get().getQuantity().intValue(), "The quantity should now be 100");
-    Assertions.assertEquals(5, loadedProduct.get().getVersion().intValue(), "The version should now be 5");
+    Assertions.assertEquals(2, loadedProduct.get().getVersion().intValue(), "The version should now be 2");
+  }
+
+  @Test
+  void testUpdateStaleVersion() {
+    // Product 2 is at version 2, so an update from version 1 to 2 is stale
+    Product product = Product.builder().id(2).name("This is product 2").quantity(100).version(2).build();
+    Assertions.assertFalse(repository.update(product), "A stale update should not have been applied");
+
+    Optional<Product> loadedProduct = repository.findById(2);
+    Assertions.assertTrue(loadedProduct.isPresent(), "Product 2 should still exist");
+    Assertions.assertEquals("Product 2", loadedProduct.get().getName(), "The product name should be unchanged");
   }
 
   @Test
@@ -109,4 +126,60 @@ public class ProductRepositoryTest {
     boolean result = repository.delete(3);
     Assertions.assertFalse(result, "Delete should return false because the deletion failed");
   }
-}
\ No newline at end of file
+
+  @Test
+  void testForEach() {
+    List<Product> products = new ArrayList<>();
+    repository.forEach(products::add);
+
+    // Validate every product was streamed, in ID order
+    Assertions.assertEquals(2, products.size(), "We should have streamed 2 products");
+    Assertions.assertEquals(1, products.get(0).getId().intValue());
+    Assertions.assertEquals("Product 2", products.get(1).getName());
+  }
+
+  @Test
+  void testSaveAll() {
+    // Replace product 2 and add a new product
+    int saved = repository.saveAll(Arrays.asList(
+        Product.builder().id(2).name("Product 2 imported").quantity(7).version(1).build(),
+        Product.builder().name("Product 6").quantity(6).build()));
+    Assertions.assertEquals(2, saved, "Both products should have been saved");
+
+    // Validate the replaced product moved past its stored version 2, ignoring the imported version
+    Product replaced = repository.findById(2).orElseThrow();
+    Assertions.assertEquals("Product 2 imported", replaced.getName());
+    Assertions.assertEquals(3, replaced.getVersion().intValue());
+
+    // Validate the new product was added with a generated ID
+    Assertions.assertEquals(3, repository.findAll().size(), "We should have 3 products in our database");
+  }
+
+  @Test
+  void testSaveAllMovesNewIdsPastImportedIds() {
+    int lastId = repository.save(Product.builder().name("Product 7").quantity(7).version(1).build()).getId();
+
+    // Import products with the IDs that would have been allocated next
+    repository.saveAll(Arrays.asList(
+        Product.builder().id(lastId + 1).name("Imported 1").quantity(1).version(1).build(),
+        Product.builder().id(lastId + 2).name("Imported 2").quantity(2).version(1).build()));
+
+    Product saved = repository.save(Product.builder().name("Product 8").quantity(8).version(1).build());
+    Assertions.assertTrue(saved.getId() > lastId + 2, "New products should not get imported IDs");
+    Assertions.assertEquals("Imported 1", repository.findById(lastId + 1).orElseThrow().getName());
+  }
+
+  @Test
+  void testSaveSkipsIdsTakenByAnotherInstance() {
+    int lastId = repository.save(Product.builder().name("Product 7").quantity(7).version(1).build()).getId();
+
+    // Another instance imported products with the IDs that this instance would allocate next
+    jdbcTemplate.update("INSERT INTO products (id, name, quantity, version) VALUES (?, 'Imported 1', 1, 1), "
+        + "(?, 'Imported 2', 2, 1)", lastId + 1, lastId + 2);
+
+    Product saved = repository.save(Product.builder().name("Product 8").quantity(8).version(1).build());
+    Assertions.assertTrue(saved.getId() > lastId + 2, "Taken IDs should be skipped");
+    Assertions.assertEquals("Product 8", repository.findById(saved.getId()).orElseThrow().getName());
+    Assertions.assertEquals("Imported 2", repository.findById(lastId + 2).orElseThrow().getName());
+  }
+}
@@ -0,0 +1,108 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.Product;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ReactiveProductRepositoryImplTest {
+
+  private DatabaseClient databaseClient;
+
+  private ReactiveProductRepository repository;
+
+  @BeforeEach
+  void setup() {
+    databaseClient = DatabaseClient.create(
+        ConnectionFactories.get("r2dbc:h2:mem:///reactive-products?options=DB_CLOSE_DELAY=-1"));
+    databaseClient.sql("CREATE TABLE products (id INTEGER NOT NULL, name VARCHAR(128) NOT NULL, "
+        + "quantity INTEGER NOT NULL, version INTEGER NOT NULL, PRIMARY KEY (id))").then().block();
+    databaseClient.sql("INSERT INTO products (id, name, quantity, version) "
+        + "VALUES (1, 'Product 1', 10, 1), (2, 'Product 2', 5, 2)").then().block();
+
+    AtomicInteger nextId = new AtomicInteger(100);
+    repository = new ReactiveProductRepositoryImpl(databaseClient, new IdAllocator() {
+      @Override
+      public int nextId() {
+        return nextId.getAndIncrement();
+      }
+
+      @Override
+      public void advancePast(int id) {
+        nextId.accumulateAndGet(id + 1, Math::max);
+      }
+    });
+  }
+
+  @AfterEach
+  void tearDown() {
+    databaseClient.sql("DROP TABLE products").then().block();
+  }
+
+  @Test
+  void testFindById() {
+    Product product = repository.findById(2).block();
+
+    Assertions.assertNotNull(product, "Product with ID 2 should be found");
+    Assertions.assertEquals("Product 2", product.getName());
+    Assertions.assertEquals(5, product.getQuantity().intValue());
+    Assertions.assertEquals(2, product.getVersion().intValue());
+    Assertions.assertNull(repository.findById(3).block(), "Product with ID 3 should not be found");
+  }
+
+  @Test
+  void testFindAll() {
+    List<Product> products = repository.findAll().collectList().block();
+
+    Assertions.assertEquals(2, products.size(), "We should have 2 products in our database");
+    Assertions.assertEquals(1, products.get(0).getId().intValue(), "Products should be in ID order");
+  }
+
+  @Test
+  void testFindAllById() {
+    List<Product> products = repository.findAllById(Arrays.asList(2, 3, 1)).collectList().block();
+
+    Assertions.assertEquals(2, products.size(), "Unknown IDs should be skipped");
+    Assertions.assertEquals(2, products.get(0).getId().intValue(), "Products should be in the requested order");
+    Assertions.assertEquals(1, products.get(1).getId().intValue(), "Products should be in the requested order");
+  }
+
+  @Test
+  void testSaveUpdateAndDelete() {
+    Product saved = repository.save(Product.builder().name("Product 5").quantity(5).version(1).build()).block();
+    Assertions.assertEquals(100, saved.getId().intValue(), "The product should get the allocated ID");
+
+    saved.setName("Product 5 updated");
+    saved.setVersion(2);
+    Assertions.assertTrue(repository.update(saved).block(), "The product should have been updated");
+    Assertions.assertEquals("Product 5 updated", repository.findById(100).block().getName());
+
+    Assertions.assertTrue(repository.delete(100).block(), "The product should have been deleted");
+    Assertions.assertFalse(repository.delete(100).block(), "A second delete should fail");
+    Assertions.assertFalse(repository.update(saved).block(), "A deleted product cannot be updated");
+  }
+
+  @Test
+  void testSaveSkipsTakenIds() {
+    Product first = repository.save(Product.builder().name("Product 6").quantity(6).version(1).build()).block();
+    Assertions.assertEquals(100, first.getId().intValue(), "The product should get the allocated ID");
+
+    // Imported with its ID through another instance, after this instance started allocating
+    databaseClient.sql("INSERT INTO products (id, name, quantity, version) VALUES (101, 'Imported', 1, 1)")
+        .then().block();
+
+    Product second = repository.save(Product.builder().name("Product 7").quantity(7).version(1).build()).block();
+
+    Assertions.assertEquals(102, second.getId().intValue(), "The product should get the next free ID");
+    Assertions.assertEquals("Imported", repository.findById(101).block().getName(),
+        "The imported product should be kept");
+    Assertions.assertEquals("Product 7", repository.findById(102).block().getName());
+  }
+}
@@ -0,0 +1,82 @@
+package com.globomantics.products.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@JdbcTest
+class SequenceIdAllocatorTest {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testAllocatesFromBlocks() {
+    SequenceIdAllocator allocator = new SequenceIdAllocator(jdbcTemplate, "product_ids", 10);
+
+    // 25 IDs need 3 blocks of 10
+    Set<Integer> ids = new HashSet<>();
+    for (int i = 0; i < 25; i++) {
+      ids.add(allocator.nextId());
+    }
+
+    Assertions.assertEquals(25, ids.size(), "Every allocated ID should be unique");
+    Assertions.assertEquals(3, ids.stream().map(id -> id / 10).distinct().count(),
+        "The IDs should come from 3 blocks, one per sequence value");
+  }
+
+  @Test
+  void testAllocatorsSharingASequenceDoNotOverlap() throws Exception {
+    SequenceIdAllocator first = new SequenceIdAllocator(jdbcTemplate, "product_ids", 7);
+    SequenceIdAllocator second = new SequenceIdAllocator(jdbcTemplate, "product_ids", 7);
+
+    Set<Integer> ids = Collections.synchronizedSet(new HashSet<>());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int thread = 0; thread < 4; thread++) {
+      SequenceIdAllocator allocator = thread % 2 == 0 ? first : second;
+      executor.execute(() -> {
+        for (int i = 0; i < 250; i++) {
+          ids.add(allocator.nextId());
+        }
+      });
+    }
+    executor.shutdown();
+    Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    Assertions.assertEquals(1000, ids.size(), "IDs should be unique across threads and allocators");
+  }
+
+  @Test
+  void testAdvancePast() {
+    SequenceIdAllocator allocator = new SequenceIdAllocator(jdbcTemplate, "product_ids", 10);
+    int first = allocator.nextId();
+
+    // Inside the current block, the IDs up to the taken one are skipped
+    allocator.advancePast(first + 3);
+    Assertions.assertEquals(first + 4, allocator.nextId());
+
+    // Past the current block, blocks are drawn until one starts after the taken ID
+    allocator.advancePast(first + 500);
+    Assertions.assertTrue(allocator.nextId() > first + 500, "IDs should be allocated after the taken ID");
+
+    // An ID below the next ID changes nothing
+    int next = allocator.nextId();
+    allocator.advancePast(first);
+    Assertions.assertEquals(next + 1, allocator.nextId());
+  }
+
+  @Test
+  void testRejectsInvalidSequenceName() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new SequenceIdAllocator(jdbcTemplate, "product_ids; DROP TABLE products", 10));
+  }
+}
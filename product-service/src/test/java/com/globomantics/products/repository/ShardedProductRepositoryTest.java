@@ -0,0 +1,118 @@
+package com.globomantics.products.repository;
+
+import com.globomantics.products.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tests the sharded repository against three in-memory H2 databases, reading them in pages of 2 products so that
+ * merging shards across several pages is exercised.
+ */
+class ShardedProductRepositoryTest {
+
+  private static final int SHARDS = 3;
+
+  private List<DataSource> dataSources;
+
+  private ShardedProductRepository repository;
+
+  @BeforeEach
+  void setup() {
+    dataSources = new ArrayList<>();
+    for (int i = 0; i < SHARDS; i++) {
+      DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:shard" + i + ";DB_CLOSE_DELAY=-1", "sa", "");
+      new ResourceDatabasePopulator(new ClassPathResource("schema-shard-h2.sql")).execute(dataSource);
+      dataSources.add(dataSource);
+    }
+    repository = new ShardedProductRepository(dataSources, 2, 10);
+  }
+
+  @AfterEach
+  void tearDown() {
+    repository.shutdown();
+    dataSources.forEach(dataSource -> new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS"));
+  }
+
+  @Test
+  @DisplayName("Test new products are spread across the shards and found by ID")
+  void testSaveAndFindById() {
+    List<Product> saved = new ArrayList<>();
+    for (int i = 1; i <= 6; i++) {
+      saved.add(repository.save(Product.builder().name("Product " + i).quantity(i).version(1).build()));
+    }
+
+    for (int shard = 0; shard < SHARDS; shard++) {
+      Integer count = new JdbcTemplate(dataSources.get(shard)).queryForObject("SELECT COUNT(*) FROM products", Integer.class);
+      Assertions.assertEquals(2, count.intValue(), "Each shard should store 2 products");
+    }
+    for (Product product : saved) {
+      Optional<Product> loaded = repository.findById(product.getId());
+      Assertions.assertTrue(loaded.isPresent(), "Product " + product.getId() + " should be found");
+      Assertions.assertEquals(product.getName(), loaded.get().getName());
+    }
+    Assertions.assertFalse(repository.findById(1000).isPresent(), "Product 1000 should not be found");
+  }
+
+  @Test
+  @DisplayName("Test findAll merges the shards in ID order")
+  void testFindAllMergesShards() {
+    List<Product> products = new ArrayList<>();
+    for (int id = 1; id <= 11; id++) {
+      products.add(Product.builder().id(id).name("Product " + id).quantity(id).version(1).build());
+    }
+    Assertions.assertEquals(11, repository.saveAll(products), "Every product should have been saved");
+
+    List<Product> found = repository.findAll();
+
+    Assertions.assertEquals(11, found.size(), "Every product should be returned");
+    for (int i = 0; i < found.size(); i++) {
+      Assertions.assertEquals(i + 1, found.get(i).getId().intValue(), "Products should be returned in ID order");
+    }
+  }
+
+  @Test
+  @DisplayName("Test saveAll assigns shard-aware IDs and findAllById keeps the requested order")
+  void testSaveAllAndFindAllById() {
+    List<Product> products = Arrays.asList(
+        Product.builder().name("Product A").quantity(1).build(),
+        Product.builder().name("Product B").quantity(2).build(),
+        Product.builder().id(7).name("Product C").quantity(3).build());
+    repository.saveAll(products);
+
+    List<Integer> ids = Arrays.asList(products.get(2).getId(), 999, products.get(1).getId(), products.get(0).getId());
+    List<Product> found = repository.findAllById(ids);
+
+    Assertions.assertEquals(3, found.size(), "Unknown IDs should be skipped");
+    Assertions.assertEquals("Product C", found.get(0).getName());
+    Assertions.assertEquals("Product B", found.get(1).getName());
+    Assertions.assertEquals("Product A", found.get(2).getName());
+  }
+
+  @Test
+  @DisplayName("Test updates and deletes are routed to the product's shard")
+  void testUpdateAndDelete() {
+    Product product = repository.save(Product.builder().name("Product 1").quantity(1).version(1).build());
+
+    product.setName("Product 1 updated");
+    product.setVersion(2);
+    Assertions.assertTrue(repository.update(product), "The product should have been updated");
+    Assertions.assertEquals("Product 1 updated", repository.findById(product.getId()).orElseThrow().getName());
+
+    Assertions.assertTrue(repository.delete(product.getId()), "The product should have been deleted");
+    Assertions.assertFalse(repository.findById(product.getId()).isPresent(), "The product should be gone");
+    Assertions.assertFalse(repository.delete(product.getId()), "A second delete should fail");
+  }
+}
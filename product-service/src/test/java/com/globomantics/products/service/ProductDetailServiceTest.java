@@ -0,0 +1,148 @@
+package com.globomantics.products.service;
+
+import com.globomantics.products.client.InventoryServiceClient;
+import com.globomantics.products.client.ReviewServiceClient;
+import com.globomantics.products.datasource.ReplicaRoutingDataSource;
+import com.globomantics.products.model.InventoryRecord;
+import com.globomantics.products.model.Product;
+import com.globomantics.products.model.ProductDetail;
+import com.globomantics.products.model.ReviewSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the ProductDetailService.
+ */
+class ProductDetailServiceTest {
+
+  private ProductService productService;
+  private ReviewServiceClient reviewServiceClient;
+  private InventoryServiceClient inventoryServiceClient;
+
+  /**
+   * The service that we want to test, with 200ms timeouts for the reviews and inventory.
+   */
+  private ProductDetailServiceImpl service;
+
+  private final Product mockProduct = Product.builder().id(1).name("Product Name").quantity(10).version(1).build();
+  private final ReviewSummary mockReviews = ReviewSummary.builder().reviewId("1").productId(1).version(1).entryCount(3).build();
+  private final InventoryRecord mockInventory = InventoryRecord.builder().productId(1).quantity(500).build();
+
+  @BeforeEach
+  void setup() {
+    productService = mock(ProductService.class);
+    reviewServiceClient = mock(ReviewServiceClient.class);
+    inventoryServiceClient = mock(InventoryServiceClient.class);
+    service = new ProductDetailServiceImpl(productService, reviewServiceClient, inventoryServiceClient, 4,
+        Duration.ofSeconds(1), Duration.ofMillis(200), Duration.ofMillis(200));
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  @DisplayName("Test findById Success")
+  void testFindByIdSuccess() {
+    doReturn(Optional.of(mockProduct)).when(productService).findById(1);
+    doReturn(Optional.of(mockReviews)).when(reviewServiceClient).getReviewSummary(1);
+    doReturn(Optional.of(mockInventory)).when(inventoryServiceClient).getInventoryRecord(1);
+
+    Optional<ProductDetail> detail = service.findById(1);
+
+    Assertions.assertTrue(detail.isPresent(), "Product detail was not found");
+    Assertions.assertSame(mockProduct, detail.get().getProduct());
+    Assertions.assertSame(mockReviews, detail.get().getReviews());
+    Assertions.assertSame(mockInventory, detail.get().getInventory());
+    Assertions.assertTrue(detail.get().getUnavailable().isEmpty(), "Nothing should be unavailable");
+  }
+
+  @Test
+  @DisplayName("Test the product leg reads from the primary when the request does")
+  void testFindByIdKeepsPrimaryRequirement() {
+    doAnswer(invocation -> {
+      Assertions.assertTrue(ReplicaRoutingDataSource.isPrimaryRequired(), "The leg should require the primary");
+      return Optional.of(mockProduct);
+    }).when(productService).findById(1);
+    doReturn(Optional.empty()).when(reviewServiceClient).getReviewSummary(1);
+    doReturn(Optional.empty()).when(inventoryServiceClient).getInventoryRecord(1);
+
+    ReplicaRoutingDataSource.setPrimaryRequired(true);
+    try {
+      Assertions.assertTrue(service.findById(1).isPresent(), "Product detail was not found");
+    } finally {
+      ReplicaRoutingDataSource.setPrimaryRequired(false);
+    }
+  }
+
+  @Test
+  @DisplayName("Test findById legs run concurrently")
+  void testFindByIdConcurrent() {
+    doReturn(Optional.of(mockProduct)).when(productService).findById(1);
+    doAnswer(invocation -> {
+      Thread.sleep(150);
+      return Optional.of(mockReviews);
+    }).when(reviewServiceClient).getReviewSummary(1);
+    doAnswer(invocation -> {
+      Thread.sleep(150);
+      return Optional.of(mockInventory);
+    }).when(inventoryServiceClient).getInventoryRecord(1);
+
+    long start = System.nanoTime();
+    Optional<ProductDetail> detail = service.findById(1);
+    long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+    Assertions.assertTrue(detail.get().getUnavailable().isEmpty(), "Nothing should be unavailable");
+    Assertions.assertTrue(elapsedMillis < 290, "The legs should not have run one after the other");
+  }
+
+  @Test
+  @DisplayName("Test findById degrades when the review service fails and the inventory service times out")
+  void testFindByIdDegraded() {
+    doReturn(Optional.of(mockProduct)).when(productService).findById(1);
+    doThrow(new ResourceAccessException("Connection refused")).when(reviewServiceClient).getReviewSummary(1);
+    doAnswer(invocation -> {
+      Thread.sleep(1000);
+      return Optional.of(mockInventory);
+    }).when(inventoryServiceClient).getInventoryRecord(1);
+
+    Optional<ProductDetail> detail = service.findById(1);
+
+    Assertions.assertTrue(detail.isPresent(), "Product detail was not found");
+    Assertions.assertSame(mockProduct, detail.get().getProduct());
+    Assertions.assertNull(detail.get().getReviews(), "Reviews should be missing");
+    Assertions.assertNull(detail.get().getInventory(), "Inventory should be missing");
+    Assertions.assertEquals(2, detail.get().getUnavailable().size(), "Reviews and inventory should be unavailable");
+  }
+
+  @Test
+  @DisplayName("Test findById Not Found")
+  void testFindByIdNotFound() {
+    doReturn(Optional.empty()).when(productService).findById(1);
+    doReturn(Optional.empty()).when(reviewServiceClient).getReviewSummary(1);
+    doReturn(Optional.empty()).when(inventoryServiceClient).getInventoryRecord(1);
+
+    Assertions.assertFalse(service.findById(1).isPresent(), "Product detail was found, when it shouldn't be");
+  }
+
+  @Test
+  @DisplayName("Test findById fails when the product cannot be retrieved")
+  void testFindByIdProductUnavailable() {
+    doThrow(new IllegalStateException("Database unavailable")).when(productService).findById(1);
+
+    Assertions.assertThrows(ProductDetailUnavailableException.class, () -> service.findById(1));
+  }
+}
@@ -0,0 +1,87 @@
+package com.globomantics.products.service;
+
+import com.globomantics.products.model.Product;
+import com.globomantics.products.repository.ProductRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the ProductSearchIndex.
+ */
+class ProductSearchIndexTest {
+
+  private ProductRepository repository;
+
+  private ProductSearchIndex index;
+
+  @BeforeEach
+  void setup() {
+    repository = mock(ProductRepository.class);
+    index = new ProductSearchIndex(repository);
+    index.index(Product.builder().id(1).name("Red Running Shoes").build());
+    index.index(Product.builder().id(2).name("Blue running shorts").build());
+    index.index(Product.builder().id(3).name("Red Rain Jacket").build());
+    index.index(Product.builder().id(4).name("Runner's Socks").build());
+  }
+
+  @Test
+  @DisplayName("Test a single word matches as a prefix")
+  void testPrefix() {
+    Assertions.assertEquals(Arrays.asList(1, 2, 4), index.search("run", 0, 10));
+    Assertions.assertEquals(Arrays.asList(1, 3), index.search("RED", 0, 10));
+  }
+
+  @Test
+  @DisplayName("Test every word must match and the last word matches as a prefix")
+  void testMultipleWords() {
+    Assertions.assertEquals(Arrays.asList(1), index.search("red runn", 0, 10));
+    Assertions.assertEquals(Arrays.asList(3), index.search("red ra", 0, 10));
+    Assertions.assertTrue(index.search("green run", 0, 10).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test results are paged")
+  void testPaging() {
+    Assertions.assertEquals(Arrays.asList(1, 2), index.search("r", 0, 2));
+    Assertions.assertEquals(Arrays.asList(3, 4), index.search("r", 1, 2));
+    Assertions.assertTrue(index.search("r", 2, 2).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test updates and deletes are reflected")
+  void testUpdateAndRemove() {
+    index.index(Product.builder().id(1).name("Green Walking Shoes").build());
+    index.remove(3);
+
+    Assertions.assertTrue(index.search("red", 0, 10).isEmpty());
+    Assertions.assertEquals(Arrays.asList(1), index.search("green", 0, 10));
+  }
+
+  @Test
+  @DisplayName("Test the index can be rebuilt from the database")
+  void testRebuild() {
+    List<Product> products = Arrays.asList(
+        Product.builder().id(10).name("Yellow Hat").build(),
+        Product.builder().id(11).name("Yellow Scarf").build());
+    doAnswer(invocation -> {
+      Consumer<Product> consumer = invocation.getArgument(0);
+      products.forEach(consumer);
+      return null;
+    }).when(repository).forEach(any());
+
+    index.rebuild();
+
+    Assertions.assertEquals(Arrays.asList(10, 11), index.search("yellow", 0, 10));
+    Assertions.assertTrue(index.search("red", 0, 10).isEmpty(), "The old index should have been replaced");
+  }
+}
@@ -1,6 +1,7 @@
 package com.globomantics.products.service;
 
 import com.globomantics.products.model.Product;
+import com.globomantics.products.repository.ProductChangeRepository;
 import com.globomantics.products.repository.ProductRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -19,7 +20,7 @@ import static org.mockito.Mockito.doReturn;
 /**
  * Tests the ProductService.
  */
-@SpringBootTest(classes = ProductServiceImpl.class)
+@SpringBootTest(classes = {ProductServiceImpl.class, ProductSearchIndex.class})
 class ProductServiceTest {
 
   /**
@@ -34,6 +35,9 @@ class ProductServiceTest {
   @MockBean
   private ProductRepository repository;
 
+  @MockBean
+  private ProductChangeRepository changeRepository;
+
   @Test
   @DisplayName("Test findById Success")
   void testFindByIdSuccess() {
@@ -4,4 +4,20 @@ CREATE TABLE IF NOT EXISTS PRODUCTS (
     quantity INTEGER NOT NULL,
     version INTEGER NOT NULL,
     PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+CREATE SEQUENCE IF NOT EXISTS product_ids START WITH 1;
+CREATE TABLE IF NOT EXISTS PRODUCT_CHANGES (
+    seq        BIGINT       NOT NULL AUTO_INCREMENT,
+    type       VARCHAR(16)  NOT NULL,
+    product_id INTEGER      NOT NULL,
+    name       VARCHAR(128),
+    quantity   INTEGER,
+    version    INTEGER,
+    changed_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (seq)
+);
+CREATE TABLE IF NOT EXISTS PRODUCT_CHANGES_LOCK (
+    id INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+INSERT INTO PRODUCT_CHANGES_LOCK (id) SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM PRODUCT_CHANGES_LOCK);
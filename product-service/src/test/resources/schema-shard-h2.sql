@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS PRODUCTS (
+    id   INTEGER      NOT NULL,
+    name VARCHAR(128) NOT NULL,
+    quantity INTEGER NOT NULL,
+    version INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE SEQUENCE IF NOT EXISTS product_ids START WITH 1;
@@ -0,0 +1,73 @@
+package com.globomantics.reviews.controller;
+
+/**
+ * Builds the Location and ETag header values of a controller's responses as plain strings, so that responses do
+ * not parse a URI or format a version number. The base path is joined once, and the values for the first
+ * {@value #CACHE_SIZE} IDs and versions are cached. IDs must be URL-safe (numbers, hex strings or UUIDs), because
+ * they are not encoded.
+ */
+public final class ResourceHeaders {
+
+  static final int CACHE_SIZE = 1024;
+
+  private static final String[] E_TAGS = new String[CACHE_SIZE];
+
+  static {
+    for (int version = 0; version < CACHE_SIZE; version++) {
+      E_TAGS[version] = "\"" + version + "\"";
+    }
+  }
+
+  /**
+   * The resources' base path, ending with a slash.
+   */
+  private final String basePath;
+
+  /**
+   * The locations of the resources with small IDs, filled in as they are requested. Strings are immutable, so a
+   * thread that does not see another thread's entry only builds the same string again.
+   */
+  private final String[] locations = new String[CACHE_SIZE];
+
+  public ResourceHeaders(String basePath) {
+    this.basePath = basePath + "/";
+  }
+
+  /**
+   * Returns the Location of the resource with the specified ID.
+   *
+   * @param id  The ID of the resource.
+   * @return    The resource's path, such as /products/1.
+   */
+  public String location(Integer id) {
+    if (id == null || id < 0 || id >= CACHE_SIZE) {
+      return basePath + id;
+    }
+    String location = locations[id];
+    if (location == null) {
+      location = basePath + id;
+      locations[id] = location;
+    }
+    return location;
+  }
+
+  /**
+   * Returns the Location of the resource with the specified ID.
+   *
+   * @param id  The ID of the resource.
+   * @return    The resource's path.
+   */
+  public String location(Object id) {
+    return basePath + id;
+  }
+
+  /**
+   * Returns the strong ETag of the specified version, such as "1" with the quotes.
+   *
+   * @param version The version of the resource.
+   * @return        The quoted version.
+   */
+  public static String eTag(int version) {
+    return version >= 0 && version < CACHE_SIZE ? E_TAGS[version] : "\"" + version + "\"";
+  }
+}
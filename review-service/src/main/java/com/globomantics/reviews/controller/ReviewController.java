@@ -2,20 +2,23 @@ package com.globomantics.reviews.controller;
 
 import com.globomantics.reviews.model.Review;
 import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewSearchHit;
 import com.globomantics.reviews.service.ReviewService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
+import static com.globomantics.reviews.logging.SampledLogFilter.SAMPLED;
+
 /**
  * A RestController that manages product reviews.
  */
@@ -26,6 +29,13 @@ public class ReviewController {
 
   public static final String REQUEST_MAPPING = "/reviews";
 
+  private static final ResourceHeaders HEADERS = new ResourceHeaders(REQUEST_MAPPING);
+
+  /**
+   * The largest page of search results that can be requested.
+   */
+  static final int MAX_SEARCH_PAGE_SIZE = 100;
+
   private ReviewService service;
 
   public ReviewController(ReviewService service) {
@@ -33,40 +43,75 @@ public class ReviewController {
   }
 
   /**
-   * Returns the review with the specified ID.
-   * @param id    The ID of the review to return.
-   * @return      The review with the specified ID, or 404 Not Found.
+   * Returns the review with the specified ID. If the If-None-Match header matches the review's version then a
+   * 304 Not Modified is returned, which is decided by looking up only the version of the review.
+   * @param id          The ID of the review to return.
+   * @param ifNoneMatch The ETag of the review that the client already has.
+   * @return            The review with the specified ID, 304 Not Modified, or 404 Not Found.
    */
   @GetMapping("/{id}")
-  public ResponseEntity<?> getReview(@PathVariable String id) {
+  public ResponseEntity<?> getReview(@PathVariable String id,
+                                     @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    if (ifNoneMatch != null) {
+      Optional<Integer> version = service.findVersionById(id);
+      if (version.isEmpty()) {
+        return ResponseEntity.notFound().build();
+      }
+      String eTag = ResourceHeaders.eTag(version.get());
+      if (ConditionalRequests.notModified(ifNoneMatch, eTag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, eTag).build();
+      }
+    }
+
     return service.findById(id)
-        .map(review -> {
-          try {
-            return ResponseEntity
-                .ok()
-                .eTag(Integer.toString(review.getVersion()))
-                .location(new URI(REQUEST_MAPPING +"/" + review.getId()))
-                .body(review);
-          } catch (URISyntaxException e ) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-          }
-        })
+        .map(review -> ResponseEntity
+            .ok()
+            .header(HttpHeaders.ETAG, ResourceHeaders.eTag(review.getVersion()))
+            .header(HttpHeaders.LOCATION, HEADERS.location(review.getId()))
+            .body(review))
         .orElse(ResponseEntity.notFound().build());
   }
 
   /**
-   * Returns either all reviews or the review for the specified productId.
-   * @param productId The productId for the review to return. This request parameter is optional, if it is omitted
-   *                  then all reviews are returned.
-   * @return          A list of reviews.
+   * Returns either all reviews or the review for the specified productId. Both are returned with an ETag, and a
+   * 304 Not Modified is returned if it matches the If-None-Match header. The ETag of all reviews is weak, hashed from
+   * their fields.
+   * @param productId   The productId for the review to return. This request parameter is optional, if it is omitted
+   *                    then all reviews are returned.
+   * @param ifNoneMatch The ETag of the review that the client already has.
+   * @return            A list of reviews.
    */
   @GetMapping
-  public Iterable<Review> getReviews(@RequestParam(value = "productId", required = false) Optional<String> productId) {
-    return productId.map(pid -> {
-      return service.findByProductId(Integer.valueOf(pid))
-          .map(Arrays::asList)
-          .orElseGet(ArrayList::new);
-    }).orElse(service.findAll());
+  public ResponseEntity<?> getReviews(@RequestParam(value = "productId", required = false) Optional<String> productId,
+                                      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+    if (productId.isEmpty()) {
+      List<Review> reviews = service.findAll();
+      return ConditionalRequests.ok(ifNoneMatch, ConditionalRequests.weakETag(reviews, ReviewController::hashFields),
+          reviews);
+    }
+
+    return service.findByProductId(Integer.valueOf(productId.get()))
+        .map(review -> ConditionalRequests.ok(ifNoneMatch, reviewsETag(review), Arrays.asList(review)))
+        .orElseGet(() -> ResponseEntity.ok(new ArrayList<>()));
+  }
+
+  /**
+   * Searches the text of all review entries and returns only the matching entries, most relevant first.
+   * @param query     The text to search for.
+   * @param productId The product ID to restrict the search to. This request parameter is optional.
+   * @param page      The zero-based page of matching entries to return.
+   * @param size      The number of matching entries per page, at most 100.
+   * @return          The matching entries, or 400 Bad Request if the paging parameters are invalid.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<List<ReviewSearchHit>> searchReviews(@RequestParam("q") String query,
+                                                             @RequestParam(value = "productId", required = false) Integer productId,
+                                                             @RequestParam(value = "page", defaultValue = "0") int page,
+                                                             @RequestParam(value = "size", defaultValue = "20") int size) {
+    if (query.isBlank() || page < 0 || size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(service.search(query, productId, page, size));
   }
 
   /**
@@ -76,24 +121,22 @@ public class ReviewController {
    */
   @PostMapping
   public ResponseEntity<Review> createReview(@RequestBody Review review) {
-    log.info("Creating new review for product id: {}, {}", review.getProductId(), review);
+    log.info(SAMPLED, "Creating new review for product id: {} with {} entries",
+        review.getProductId(), review.getEntries().size());
 
     // Set the date for any entries in the review to now since we're creating the review now
     review.getEntries().forEach(entry -> entry.setDate(Instant.now()));
 
     // Save the review to the database
     Review newReview = service.save(review);
-    log.info("Saved review: {}", newReview);
-
-    try {
-      // Build a created response
-      return ResponseEntity
-          .created(new URI(REQUEST_MAPPING + "/" + newReview.getId()))
-          .eTag(Integer.toString(newReview.getVersion()))
-          .body(newReview);
-    } catch (URISyntaxException e) {
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-    }
+    log.debug("Saved review: {}", newReview);
+
+    // Build a created response
+    return ResponseEntity
+        .status(HttpStatus.CREATED)
+        .header(HttpHeaders.LOCATION, HEADERS.location(newReview.getId()))
+        .header(HttpHeaders.ETAG, ResourceHeaders.eTag(newReview.getVersion()))
+        .body(newReview);
   }
 
   /**
@@ -104,29 +147,58 @@ public class ReviewController {
    */
   @PostMapping("/{productId}/entries")
   public ResponseEntity<Review> addEntryToReview(@PathVariable Integer productId, @RequestBody ReviewEntry entry) {
-    log.info("Add review entry for product id: {}, {}", productId, entry);
+    log.info(SAMPLED, "Add review entry for product id: {}, {}", productId, entry);
 
-    // Retrieve the review for the specified productId; if there is no review, create a new one
-    Review review = service.findByProductId(productId).orElseGet(() -> new Review(productId));
-
-    // Add this new entry to the review
+    // Append the entry in the database, creating the review if the product does not have one yet
     entry.setDate(Instant.now());
-    review.getEntries().add(entry);
+    Review updatedReview = service.addEntry(productId, entry);
+    log.debug("Updated review: {}", updatedReview);
+
+    // Build an ok response
+    return ResponseEntity
+        .ok()
+        .header(HttpHeaders.LOCATION, HEADERS.location(updatedReview.getId()))
+        .header(HttpHeaders.ETAG, ResourceHeaders.eTag(updatedReview.getVersion()))
+        .body(updatedReview);
+  }
 
-    // Save the review
-    Review updatedReview = service.save(review);
-    log.info("Updated review: {}", updatedReview);
+  /**
+   * Updates the review with the specified ID, if the If-Match header matches the review's current version. The
+   * version check and the update are a single MongoDB update, so concurrent updates cannot overwrite each other.
+   * @param review    The review field values to update.
+   * @param id        The ID of the review to update.
+   * @param ifMatch   The ETag version of the review.
+   * @return          The updated review, 409 Conflict if the version does not match, or 404 Not Found.
+   */
+  @PutMapping("/{id}")
+  public ResponseEntity<?> updateReview(@RequestBody Review review,
+                                        @PathVariable String id,
+                                        @RequestHeader("If-Match") String ifMatch) {
+    log.info(SAMPLED, "Updating review with id: {}, If-Match: {}", id, ifMatch);
 
+    Integer version;
     try {
-      // Build a created response
-      return ResponseEntity
-          .ok()
-          .location(new URI(REQUEST_MAPPING +"/"+ updatedReview.getId()))
-          .eTag(Integer.toString(updatedReview.getVersion()))
-          .body(updatedReview);
-    } catch (URISyntaxException e) {
-      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+      version = Integer.valueOf(ConditionalRequests.opaqueTag(ifMatch));
+    } catch (NumberFormatException e) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
     }
+
+    review.setId(id);
+    review.setVersion(version);
+
+    return service.update(review)
+        .map(updatedReview -> ResponseEntity
+            .ok()
+            .header(HttpHeaders.LOCATION, HEADERS.location(updatedReview.getId()))
+            .header(HttpHeaders.ETAG, ResourceHeaders.eTag(updatedReview.getVersion()))
+            .body(updatedReview))
+        .orElseGet(() -> {
+          // The update did not match: either the review does not exist or its version has changed
+          if (service.findVersionById(id).isPresent()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+          }
+          return ResponseEntity.notFound().build();
+        });
   }
 
   /**
@@ -137,7 +209,7 @@ public class ReviewController {
   @DeleteMapping("/{id}")
   public ResponseEntity<?> deleteReview(@PathVariable String id) {
 
-    log.info("Deleting review with ID {}", id);
+    log.info(SAMPLED, "Deleting review with ID {}", id);
 
     // Get the existing product
     Optional<Review> existingReview = service.findById(id);
@@ -149,4 +221,27 @@ public class ReviewController {
     }).orElse(ResponseEntity.notFound().build());
   }
 
+  /**
+   * Returns the ETag for the review of a product. Every write increments the review's version; the number of
+   * entries is part of the ETag as well, so that the ETags clients already hold keep their format.
+   * @param review    The review for which to build an ETag.
+   * @return          The quoted ETag.
+   */
+  private static String reviewsETag(Review review) {
+    return "\"" + review.getVersion() + "-" + review.getEntries().size() + "\"";
+  }
+
+  /**
+   * Adds the fields of a review to a collection ETag. The entries are hashed as well as the version, because the
+   * response contains them.
+   * @param hash      The hash of the collection.
+   * @param review    The review to add.
+   */
+  private static void hashFields(ConditionalRequests.ContentHash hash, Review review) {
+    hash.add(review.getId()).add(review.getProductId()).add(review.getVersion()).add(review.getEntries().size());
+    for (ReviewEntry entry : review.getEntries()) {
+      hash.add(entry.getUsername()).add(entry.getReview())
+          .add(entry.getDate() == null ? Long.MIN_VALUE : entry.getDate().toEpochMilli());
+    }
+  }
 }
@@ -0,0 +1,80 @@
+package com.globomantics.reviews.controller;
+
+import com.globomantics.reviews.events.ReviewEventSink;
+import com.globomantics.reviews.events.ReviewEventSource;
+import com.globomantics.reviews.model.ReviewEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * A RestController that streams review change events to downstream consumers as server-sent events.
+ */
+@RestController
+@Slf4j
+@RequestMapping(ReviewController.REQUEST_MAPPING)
+public class ReviewEventController {
+
+  private final ReviewEventSource source;
+
+  /**
+   * How long an event stream stays open before the client has to reconnect.
+   */
+  private final long streamTimeoutMillis;
+
+  public ReviewEventController(ReviewEventSource source,
+                               @Value("${reviews.events.stream-timeout:PT30M}") Duration streamTimeout) {
+    this.source = source;
+    this.streamTimeoutMillis = streamTimeout.toMillis();
+  }
+
+  /**
+   * Streams review change events. Each event's SSE id is its resume token: clients that reconnect send it back in
+   * the Last-Event-ID header (as EventSource clients do automatically) or the after parameter to resume the stream.
+   * If the feed closes the subscription, because the client fell behind or the feed failed, the stream ends and the
+   * client reconnects from its last event.
+   * @param lastEventId The token of the last event the client processed, sent on reconnect.
+   * @param after       The token of the last event the client processed, for clients that cannot set headers.
+   * @return            The event stream.
+   */
+  @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                 @RequestParam(value = "after", required = false) String after) {
+    String resumeToken = lastEventId != null ? lastEventId : after;
+    log.info("Opening review event stream after token: {}", resumeToken);
+
+    SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+    ReviewEventSource.Subscription subscription = source.subscribe(resumeToken, new ReviewEventSink() {
+      @Override
+      public void accept(ReviewEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+            .id(event.getToken())
+            .name(event.getType().name())
+            .data(event, MediaType.APPLICATION_JSON));
+      }
+
+      @Override
+      public void closed(Exception cause) {
+        if (cause == null) {
+          emitter.complete();
+        } else {
+          emitter.completeWithError(cause);
+        }
+      }
+    });
+
+    emitter.onCompletion(subscription::close);
+    emitter.onTimeout(subscription::close);
+    emitter.onError(e -> subscription.close());
+    return emitter;
+  }
+}
@@ -0,0 +1,65 @@
+package com.globomantics.reviews.controller;
+
+import com.globomantics.reviews.model.BulkImportResult;
+import com.globomantics.reviews.service.ReviewImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A RestController that ingests review entries in bulk, such as partner review feeds.
+ */
+@RestController
+@Slf4j
+@RequestMapping(ReviewController.REQUEST_MAPPING)
+public class ReviewImportController {
+
+  private final ReviewImportService importService;
+
+  public ReviewImportController(ReviewImportService importService) {
+    this.importService = importService;
+  }
+
+  /**
+   * Appends review entries to the reviews of their products. The request body is an NDJSON stream with one
+   * {"productId": ..., "entry": {...}} record per line; it is read incrementally, so feeds of any size can be posted.
+   * The body may be compressed with gzip or deflate, as given by its Content-Encoding header, and is then
+   * decompressed as it is read.
+   * @param body            The NDJSON request body.
+   * @param contentEncoding The encoding of the request body, if it is compressed.
+   * @return                The number of records received and imported, and the errors of the records that failed;
+   *                        415 Unsupported Media Type if the body has an unsupported encoding.
+   * @throws IOException    If the request body cannot be read.
+   */
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<BulkImportResult> importEntries(InputStream body,
+                                                        @RequestHeader(value = HttpHeaders.CONTENT_ENCODING,
+                                                            required = false) String contentEncoding)
+      throws IOException {
+    log.info("Importing review entries");
+
+    String encoding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase();
+    switch (encoding) {
+      case "identity":
+        return ResponseEntity.ok(importService.importEntries(body));
+      case "gzip":
+      case "x-gzip":
+        return ResponseEntity.ok(importService.importEntries(new GZIPInputStream(body)));
+      case "deflate":
+        return ResponseEntity.ok(importService.importEntries(new InflaterInputStream(body)));
+      default:
+        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.globomantics.reviews.events;
+
+import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewEvent;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A review event source backed by MongoDB change streams, which requires a replica set. Every write to the Reviews
+ * collection is published, whichever instance made it, and event tokens are change stream resume tokens, so
+ * consumers can resume for as long as the change is in the oplog.
+ *
+ * Appends made with $push (the bulk ingestion path) are published as ENTRY_ADDED events; whole-document saves are
+ * published as REVIEW_UPDATED because the change stream does not say which entries they added.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "reviews.events.source", havingValue = "change-stream")
+public class ChangeStreamReviewEventSource implements ReviewEventSource, ReviewEventPublisher {
+
+  /**
+   * Matches the updated field of an entry appended to the entries array, such as "entries.3".
+   */
+  private static final Pattern APPENDED_ENTRY = Pattern.compile("entries\\.(\\d+)");
+
+  private final MongoTemplate mongoTemplate;
+
+  private final ExecutorService cursorExecutor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "review-change-stream");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public ChangeStreamReviewEventSource(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  // The change stream already contains every write, so the service layer's notifications are ignored
+
+  @Override
+  public void entriesAdded(String reviewId, Integer productId, List<ReviewEntry> entries) {
+  }
+
+  @Override
+  public void reviewUpdated(Review review) {
+  }
+
+  @Override
+  public void reviewDeleted(String reviewId) {
+  }
+
+  @Override
+  public Subscription subscribe(String resumeToken, ReviewEventSink sink) {
+    ChangeStreamIterable<Document> changeStream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Review.class))
+        .watch()
+        .fullDocument(FullDocument.UPDATE_LOOKUP)
+        .maxAwaitTime(1, TimeUnit.SECONDS);
+    if (resumeToken != null) {
+      changeStream = changeStream.resumeAfter(BsonDocument.parse(resumeToken));
+    }
+
+    MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor();
+    ChangeStreamSubscription subscription = new ChangeStreamSubscription();
+    cursorExecutor.execute(() -> {
+      // The cursor is only used by this thread; closing the subscription ends the loop within maxAwaitTime
+      Exception failure = null;
+      try {
+        while (!subscription.closed) {
+          ChangeStreamDocument<Document> change = cursor.tryNext();
+          if (change != null) {
+            for (ReviewEvent event : toEvents(change)) {
+              sink.accept(event);
+            }
+          }
+        }
+      } catch (MongoException e) {
+        log.warn("Review change stream failed: {}", e.getMessage());
+        failure = e;
+      } catch (Exception e) {
+        log.info("Review event subscriber failed, closing its subscription: {}", e.getMessage());
+        failure = e;
+      } finally {
+        cursor.close();
+        if (failure != null) {
+          sink.closed(failure);
+        }
+      }
+    });
+    return subscription;
+  }
+
+  /**
+   * Converts a change stream document to review events that all carry the change's resume token.
+   */
+  private List<ReviewEvent> toEvents(ChangeStreamDocument<Document> change) {
+    List<ReviewEvent> events = new ArrayList<>();
+    String reviewId = change.getDocumentKey() == null ? null : idOf(change.getDocumentKey().get("_id"));
+    Review review = change.getFullDocument() == null
+        ? null
+        : mongoTemplate.getConverter().read(Review.class, change.getFullDocument());
+    Integer productId = review == null ? null : review.getProductId();
+
+    switch (change.getOperationType()) {
+      case INSERT:
+        review.getEntries().forEach(entry ->
+            events.add(new ReviewEvent(ReviewEvent.Type.ENTRY_ADDED, reviewId, productId, entry)));
+        break;
+      case UPDATE:
+        boolean onlyAppends = true;
+        for (String field : change.getUpdateDescription().getUpdatedFields().keySet()) {
+          Matcher matcher = APPENDED_ENTRY.matcher(field);
+          if (matcher.matches() && review != null && Integer.parseInt(matcher.group(1)) < review.getEntries().size()) {
+            ReviewEntry entry = review.getEntries().get(Integer.parseInt(matcher.group(1)));
+            events.add(new ReviewEvent(ReviewEvent.Type.ENTRY_ADDED, reviewId, productId, entry));
+          } else if (!"version".equals(field)) {
+            onlyAppends = false;
+          }
+        }
+        if (!onlyAppends || events.isEmpty()) {
+          events.clear();
+          events.add(new ReviewEvent(ReviewEvent.Type.REVIEW_UPDATED, reviewId, productId, null));
+        }
+        break;
+      case REPLACE:
+        events.add(new ReviewEvent(ReviewEvent.Type.REVIEW_UPDATED, reviewId, productId, null));
+        break;
+      case DELETE:
+        events.add(new ReviewEvent(ReviewEvent.Type.REVIEW_DELETED, reviewId, null, null));
+        break;
+      default:
+        // Collection-level changes (drop, rename, invalidate) are not review changes
+        break;
+    }
+
+    String token = change.getResumeToken().toJson();
+    events.forEach(event -> event.setToken(token));
+    return events;
+  }
+
+  private static String idOf(BsonValue id) {
+    if (id == null) {
+      return null;
+    }
+    return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    cursorExecutor.shutdownNow();
+  }
+
+  private static final class ChangeStreamSubscription implements Subscription {
+
+    private volatile boolean closed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package com.globomantics.reviews.events;
+
+import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A review event source that publishes the changes made through this instance's service layer. Events are numbered
+ * in order and the most recent ones are kept in memory so that consumers can resume after a reconnect.
+ *
+ * This is the default source. It needs no replica set, which makes it the source for tests and local development,
+ * but it only sees this instance's writes and loses its history on restart; production deployments use the
+ * change stream source.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "reviews.events.source", havingValue = "local", matchIfMissing = true)
+public class LocalReviewEventSource implements ReviewEventSource, ReviewEventPublisher {
+
+  /**
+   * The most recent events, indexed by sequence number modulo the history size.
+   */
+  private final ReviewEvent[] history;
+
+  /**
+   * The maximum number of events queued for a subscriber before the subscriber is disconnected.
+   */
+  private final int subscriberQueueSize;
+
+  private final List<LocalSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  private final ExecutorService deliveryExecutor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "review-events");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * The sequence number of the next event.
+   */
+  private long nextSequence = 1;
+
+  public LocalReviewEventSource(@Value("${reviews.events.history-size:10000}") int historySize,
+                                @Value("${reviews.events.subscriber-queue-size:10000}") int subscriberQueueSize) {
+    this.history = new ReviewEvent[historySize];
+    this.subscriberQueueSize = subscriberQueueSize;
+  }
+
+  @Override
+  public void entriesAdded(String reviewId, Integer productId, List<ReviewEntry> entries) {
+    entries.forEach(entry -> publish(new ReviewEvent(ReviewEvent.Type.ENTRY_ADDED, reviewId, productId, entry)));
+  }
+
+  @Override
+  public void reviewUpdated(Review review) {
+    publish(new ReviewEvent(ReviewEvent.Type.REVIEW_UPDATED, review.getId(), review.getProductId(), null));
+  }
+
+  @Override
+  public void reviewDeleted(String reviewId) {
+    publish(new ReviewEvent(ReviewEvent.Type.REVIEW_DELETED, reviewId, null, null));
+  }
+
+  /**
+   * Numbers the specified event, adds it to the history and queues it for every subscriber.
+   * @param event     The event to publish.
+   */
+  synchronized void publish(ReviewEvent event) {
+    long sequence = nextSequence++;
+    event.setToken(Long.toString(sequence));
+    history[(int) (sequence % history.length)] = event;
+    subscriptions.forEach(subscription -> subscription.offer(event));
+  }
+
+  @Override
+  public Subscription subscribe(String resumeToken, ReviewEventSink sink) {
+    LocalSubscription subscription = new LocalSubscription(sink);
+
+    // Queue the missed events and register the subscription atomically, so that no event is missed or repeated
+    synchronized (this) {
+      replay(resumeToken).forEach(subscription::offer);
+      subscriptions.add(subscription);
+    }
+
+    deliveryExecutor.execute(subscription::deliver);
+    return subscription;
+  }
+
+  /**
+   * Returns the events after the specified token that are still in the history. If events after the token have
+   * already been dropped from the history, the events are preceded by a RESYNC_REQUIRED event.
+   */
+  private List<ReviewEvent> replay(String resumeToken) {
+    List<ReviewEvent> events = new ArrayList<>();
+    if (resumeToken == null) {
+      return events;
+    }
+
+    long lastSequence;
+    try {
+      lastSequence = Long.parseLong(resumeToken);
+    } catch (NumberFormatException e) {
+      lastSequence = -1;
+    }
+
+    long oldestSequence = Math.max(1, nextSequence - history.length);
+    if (lastSequence < oldestSequence - 1 || lastSequence >= nextSequence) {
+      // The token is too old, malformed, or from before a restart
+      ReviewEvent resync = new ReviewEvent(ReviewEvent.Type.RESYNC_REQUIRED, null, null, null);
+      resync.setToken(Long.toString(nextSequence - 1));
+      events.add(resync);
+      return events;
+    }
+
+    for (long sequence = lastSequence + 1; sequence < nextSequence; sequence++) {
+      events.add(history[(int) (sequence % history.length)]);
+    }
+    return events;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    subscriptions.forEach(LocalSubscription::close);
+    deliveryExecutor.shutdownNow();
+  }
+
+  /**
+   * A subscriber's queue of undelivered events, drained in order by a delivery thread.
+   */
+  private final class LocalSubscription implements Subscription {
+
+    private final ReviewEventSink sink;
+
+    private final BlockingQueue<ReviewEvent> queue = new LinkedBlockingQueue<>();
+
+    private volatile boolean closed;
+
+    /**
+     * Whether the subscription was closed because its queue was full.
+     */
+    private volatile boolean fellBehind;
+
+    private LocalSubscription(ReviewEventSink sink) {
+      this.sink = sink;
+    }
+
+    private void offer(ReviewEvent event) {
+      if (queue.size() >= subscriberQueueSize) {
+        // A subscriber that cannot keep up is disconnected; it resumes from its last token when it reconnects
+        log.warn("Closing review event subscription with {} undelivered events", queue.size());
+        fellBehind = true;
+        close();
+        return;
+      }
+      queue.offer(event);
+    }
+
+    private void deliver() {
+      Exception failure = null;
+      try {
+        while (!closed) {
+          ReviewEvent event = queue.take();
+          if (!closed) {
+            sink.accept(event);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        log.info("Review event subscriber failed, closing its subscription: {}", e.getMessage());
+        failure = e;
+      } finally {
+        close();
+        if (fellBehind || failure != null) {
+          sink.closed(failure);
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        subscriptions.remove(this);
+        // Wake up the delivery thread if it is waiting for an event
+        queue.offer(new ReviewEvent(ReviewEvent.Type.RESYNC_REQUIRED, null, null, null));
+      }
+    }
+  }
+}
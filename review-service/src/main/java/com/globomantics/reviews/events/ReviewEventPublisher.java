@@ -0,0 +1,32 @@
+package com.globomantics.reviews.events;
+
+import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+
+import java.util.List;
+
+/**
+ * Receives the review changes made through the service layer. Event sources that read changes from the database
+ * itself ignore these notifications.
+ */
+public interface ReviewEventPublisher {
+  /**
+   * Called after entries were appended to a review, or a review was created with entries.
+   * @param reviewId  The ID of the review, if known.
+   * @param productId The product ID of the review.
+   * @param entries   The added entries.
+   */
+  void entriesAdded(String reviewId, Integer productId, List<ReviewEntry> entries);
+
+  /**
+   * Called after a review was replaced or updated.
+   * @param review    The updated review.
+   */
+  void reviewUpdated(Review review);
+
+  /**
+   * Called after a review was deleted.
+   * @param reviewId  The ID of the deleted review.
+   */
+  void reviewDeleted(String reviewId);
+}
@@ -0,0 +1,25 @@
+package com.globomantics.reviews.events;
+
+import com.globomantics.reviews.model.ReviewEvent;
+
+/**
+ * A consumer of review change events. Any ReviewEventSink bean is subscribed to the review event feed at startup;
+ * the event stream endpoint subscribes one sink per connected client.
+ */
+@FunctionalInterface
+public interface ReviewEventSink {
+  /**
+   * Accepts the next review event. Events are delivered in order, one at a time, on a thread owned by the feed.
+   * @param event     The review event.
+   * @throws Exception  If the event could not be delivered; the subscription is then closed.
+   */
+  void accept(ReviewEvent event) throws Exception;
+
+  /**
+   * Called once if the feed closes the subscription itself, rather than the consumer closing it. The consumer can
+   * subscribe again with the token of the last event it processed.
+   * @param cause     The failure that closed the subscription, or null if the consumer fell too far behind.
+   */
+  default void closed(Exception cause) {
+  }
+}
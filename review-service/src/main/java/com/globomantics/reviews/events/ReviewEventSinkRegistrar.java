@@ -0,0 +1,42 @@
+package com.globomantics.reviews.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subscribes every ReviewEventSink bean to the review event feed once the application is ready.
+ */
+@Component
+@Slf4j
+public class ReviewEventSinkRegistrar {
+
+  private final ReviewEventSource source;
+
+  private final List<ReviewEventSink> sinks;
+
+  private final List<ReviewEventSource.Subscription> subscriptions = new ArrayList<>();
+
+  public ReviewEventSinkRegistrar(ReviewEventSource source, List<ReviewEventSink> sinks) {
+    this.source = source;
+    this.sinks = sinks;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void subscribeSinks() {
+    sinks.forEach(sink -> {
+      log.info("Subscribing {} to the review event feed", sink.getClass().getSimpleName());
+      subscriptions.add(source.subscribe(null, sink));
+    });
+  }
+
+  @PreDestroy
+  public void unsubscribeSinks() {
+    subscriptions.forEach(ReviewEventSource.Subscription::close);
+  }
+}
@@ -0,0 +1,25 @@
+package com.globomantics.reviews.events;
+
+/**
+ * The source of the review event feed, an ordered stream of review changes that consumers can resume.
+ */
+public interface ReviewEventSource {
+  /**
+   * Subscribes a sink to the feed.
+   * @param resumeToken The token of the last event the consumer processed, or null to start with the next change.
+   * @param sink        The sink to deliver events to.
+   * @return            The subscription, which the consumer closes to stop receiving events.
+   */
+  Subscription subscribe(String resumeToken, ReviewEventSink sink);
+
+  /**
+   * A subscription to the review event feed.
+   */
+  interface Subscription extends AutoCloseable {
+    /**
+     * Stops delivering events to the subscription's sink. The sink is not told that the subscription closed.
+     */
+    @Override
+    void close();
+  }
+}
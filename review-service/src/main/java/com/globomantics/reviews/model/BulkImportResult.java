@@ -0,0 +1,107 @@
+package com.globomantics.reviews.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a bulk review entry import.
+ */
+public class BulkImportResult {
+  /**
+   * The number of records received, including records that failed.
+   */
+  private long received;
+
+  /**
+   * The number of entries that were appended to reviews.
+   */
+  private long imported;
+
+  /**
+   * The number of records that failed.
+   */
+  private long failed;
+
+  /**
+   * The errors of the failed records, up to the configured maximum number of reported errors.
+   */
+  private List<Error> errors = new ArrayList<>();
+
+  public long getReceived() {
+    return received;
+  }
+
+  public void setReceived(long received) {
+    this.received = received;
+  }
+
+  public long getImported() {
+    return imported;
+  }
+
+  public void setImported(long imported) {
+    this.imported = imported;
+  }
+
+  public long getFailed() {
+    return failed;
+  }
+
+  public void setFailed(long failed) {
+    this.failed = failed;
+  }
+
+  public List<Error> getErrors() {
+    return errors;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkImportResult{" +
+        "received=" + received +
+        ", imported=" + imported +
+        ", failed=" + failed +
+        '}';
+  }
+
+  /**
+   * The error for a single record of a bulk import.
+   */
+  public static class Error {
+    /**
+     * The line number of the record in the import, starting with 1.
+     */
+    private long line;
+
+    /**
+     * The product ID of the record, if it could be read.
+     */
+    private Integer productId;
+
+    /**
+     * A description of the error.
+     */
+    private String message;
+
+    public Error() {
+    }
+
+    public Error(long line, Integer productId, String message) {
+      this.line = line;
+      this.productId = productId;
+      this.message = message;
+    }
+
+    public long getLine() {
+      return line;
+    }
+
+    public Integer getProductId() {
+      return productId;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+  }
+}
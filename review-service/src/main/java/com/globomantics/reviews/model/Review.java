@@ -53,6 +53,17 @@ public class Review {
     this.version = version;
   }
 
+  /**
+   * Creates a copy of the specified review with its own list of entries.
+   * @param review    The review to copy.
+   */
+  public Review(Review review) {
+    this.id = review.id;
+    this.productId = review.productId;
+    this.version = review.version;
+    this.entries = new ArrayList<>(review.entries);
+  }
+
   public String getId() {
     return id;
   }
@@ -81,13 +92,20 @@ public class Review {
     return entries;
   }
 
+  public void setEntries(List<ReviewEntry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * Describes the review without its entries, so that logging a review costs the same however many entries it has.
+   */
   @Override
   public String toString() {
     return "Review{" +
         "id='" + id + '\'' +
         ", productId=" + productId +
         ", version=" + version +
-        ", entries=" + entries +
+        ", entries=" + (entries == null ? 0 : entries.size()) +
         '}';
   }
 }
@@ -64,7 +64,17 @@ public class ReviewEntry {
     return "ReviewEntry{" +
         "username='" + username + '\'' +
         ", date=" + date +
-        ", review='" + review + '\'' +
+        ", review='" + abbreviate(review) + '\'' +
         '}';
   }
+
+  /**
+   * Cuts the review text to its first 64 characters for toString(), which is used by log messages.
+   */
+  private static String abbreviate(String text) {
+    if (text == null || text.length() <= 64) {
+      return text;
+    }
+    return text.substring(0, 64) + "...(" + text.length() + " chars)";
+  }
 }
@@ -0,0 +1,48 @@
+package com.globomantics.reviews.model;
+
+/**
+ * A review entry for a product, as received by the bulk ingestion endpoint: one record per line of an NDJSON feed.
+ */
+public class ReviewEntryRecord {
+  /**
+   * The product ID of the review to which the entry is appended.
+   */
+  private Integer productId;
+
+  /**
+   * The entry to append to the product's review.
+   */
+  private ReviewEntry entry;
+
+  public ReviewEntryRecord() {
+  }
+
+  public ReviewEntryRecord(Integer productId, ReviewEntry entry) {
+    this.productId = productId;
+    this.entry = entry;
+  }
+
+  public Integer getProductId() {
+    return productId;
+  }
+
+  public void setProductId(Integer productId) {
+    this.productId = productId;
+  }
+
+  public ReviewEntry getEntry() {
+    return entry;
+  }
+
+  public void setEntry(ReviewEntry entry) {
+    this.entry = entry;
+  }
+
+  @Override
+  public String toString() {
+    return "ReviewEntryRecord{" +
+        "productId=" + productId +
+        ", entry=" + entry +
+        '}';
+  }
+}
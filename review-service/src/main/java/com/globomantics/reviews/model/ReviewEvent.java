@@ -0,0 +1,110 @@
+package com.globomantics.reviews.model;
+
+import java.time.Instant;
+
+/**
+ * A change to a review, as published on the review event feed.
+ */
+public class ReviewEvent {
+
+  /**
+   * The kinds of review change events.
+   */
+  public enum Type {
+    /**
+     * An entry was added to a review; the event carries the entry.
+     */
+    ENTRY_ADDED,
+
+    /**
+     * A review was replaced or updated in a way other than appending entries; consumers should reload it.
+     */
+    REVIEW_UPDATED,
+
+    /**
+     * A review was deleted.
+     */
+    REVIEW_DELETED,
+
+    /**
+     * The feed could not resume from the consumer's token, so events may have been missed; consumers should rescan.
+     */
+    RESYNC_REQUIRED
+  }
+
+  /**
+   * The token of this event; a consumer that has processed this event resumes the feed after it with this token.
+   */
+  private String token;
+
+  private Type type;
+
+  /**
+   * The ID of the changed review, if known.
+   */
+  private String reviewId;
+
+  /**
+   * The product ID of the changed review, if known.
+   */
+  private Integer productId;
+
+  /**
+   * The added entry, for ENTRY_ADDED events.
+   */
+  private ReviewEntry entry;
+
+  /**
+   * The time at which the change was published.
+   */
+  private Instant timestamp;
+
+  public ReviewEvent() {
+  }
+
+  public ReviewEvent(Type type, String reviewId, Integer productId, ReviewEntry entry) {
+    this.type = type;
+    this.reviewId = reviewId;
+    this.productId = productId;
+    this.entry = entry;
+    this.timestamp = Instant.now();
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getReviewId() {
+    return reviewId;
+  }
+
+  public Integer getProductId() {
+    return productId;
+  }
+
+  public ReviewEntry getEntry() {
+    return entry;
+  }
+
+  public Instant getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public String toString() {
+    return "ReviewEvent{" +
+        "token='" + token + '\'' +
+        ", type=" + type +
+        ", reviewId='" + reviewId + '\'' +
+        ", productId=" + productId +
+        '}';
+  }
+}
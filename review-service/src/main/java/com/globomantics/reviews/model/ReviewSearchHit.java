@@ -0,0 +1,78 @@
+package com.globomantics.reviews.model;
+
+/**
+ * A review entry that matched a full-text search, with the review it belongs to.
+ */
+public class ReviewSearchHit {
+  /**
+   * The ID of the review that contains the entry.
+   */
+  private String reviewId;
+
+  /**
+   * The product ID of the review that contains the entry.
+   */
+  private Integer productId;
+
+  /**
+   * The matching entry.
+   */
+  private ReviewEntry entry;
+
+  /**
+   * The MongoDB text score of the review that contains the entry; higher is more relevant.
+   */
+  private Double score;
+
+  public ReviewSearchHit() {
+  }
+
+  public ReviewSearchHit(String reviewId, Integer productId, ReviewEntry entry, Double score) {
+    this.reviewId = reviewId;
+    this.productId = productId;
+    this.entry = entry;
+    this.score = score;
+  }
+
+  public String getReviewId() {
+    return reviewId;
+  }
+
+  public void setReviewId(String reviewId) {
+    this.reviewId = reviewId;
+  }
+
+  public Integer getProductId() {
+    return productId;
+  }
+
+  public void setProductId(Integer productId) {
+    this.productId = productId;
+  }
+
+  public ReviewEntry getEntry() {
+    return entry;
+  }
+
+  public void setEntry(ReviewEntry entry) {
+    this.entry = entry;
+  }
+
+  public Double getScore() {
+    return score;
+  }
+
+  public void setScore(Double score) {
+    this.score = score;
+  }
+
+  @Override
+  public String toString() {
+    return "ReviewSearchHit{" +
+        "reviewId='" + reviewId + '\'' +
+        ", productId=" + productId +
+        ", entry=" + entry +
+        ", score=" + score +
+        '}';
+  }
+}
@@ -0,0 +1,88 @@
+package com.globomantics.reviews.repository;
+
+import com.globomantics.reviews.model.Review;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Creates the indexes of the Reviews collection when the application starts.
+ *
+ * A collection written before the productId index was unique may hold several reviews for one product. The unique
+ * index cannot be built over those, so the service then logs the duplicated product IDs and falls back to a
+ * non-unique index instead of failing to start; once the duplicates have been merged or removed, the next start
+ * creates the unique index.
+ */
+@Component
+@Slf4j
+public class ReviewIndexes {
+
+  /**
+   * The number of duplicated product IDs that are logged when the unique index cannot be built.
+   */
+  private static final int MAX_REPORTED_DUPLICATES = 20;
+
+  private final MongoTemplate mongoTemplate;
+
+  public ReviewIndexes(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Ensures that the Reviews collection's indexes exist; creating an index that already exists is a no-op.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    log.info("Ensuring indexes on the Reviews collection");
+
+    // There is one review per product: lookups and bulk upserts match on productId, and the unique index stops
+    // concurrent upserts for the same product from creating two reviews
+    try {
+      mongoTemplate.indexOps(Review.class)
+          .ensureIndex(new Index().on("productId", Sort.Direction.ASC).unique());
+    } catch (DuplicateKeyException e) {
+      log.error("The Reviews collection has several reviews for products {}; "
+              + "creating a non-unique productId index until they are merged", duplicatedProductIds());
+      mongoTemplate.indexOps(Review.class)
+          .ensureIndex(new Index().on("productId", Sort.Direction.ASC));
+    }
+
+    // Full-text search over the entries of all reviews; a collection can only have one text index
+    mongoTemplate.indexOps(Review.class)
+        .ensureIndex(TextIndexDefinition.builder()
+            .named("entries_text")
+            .onField("entries.review")
+            .onField("entries.username")
+            .build());
+  }
+
+  /**
+   * Returns up to MAX_REPORTED_DUPLICATES product IDs that have more than one review.
+   */
+  private List<Object> duplicatedProductIds() {
+    return mongoTemplate.aggregate(newAggregation(
+                group("productId").count().as("count"),
+                match(where("count").gt(1)),
+                limit(MAX_REPORTED_DUPLICATES)),
+            Review.class, Document.class)
+        .getMappedResults().stream()
+        .map(duplicate -> duplicate.get("_id"))
+        .collect(Collectors.toList());
+  }
+}
@@ -2,10 +2,20 @@ package com.globomantics.reviews.repository;
 
 import com.globomantics.reviews.model.Review;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.Optional;
 
-public interface ReviewRepository extends MongoRepository<Review, String> {
+public interface ReviewRepository extends MongoRepository<Review, String>, ReviewRepositoryCustom {
 
   Optional<Review> findByProductId(Integer productId);
+
+  /**
+   * Returns the review with the specified ID, with only its ID and version populated.
+   *
+   * @param id        The ID of the review.
+   * @return          The review's ID and version, if it exists.
+   */
+  @Query(value = "{ '_id': ?0 }", fields = "{ 'version': 1 }")
+  Optional<Review> findVersionById(String id);
 }
@@ -0,0 +1,65 @@
+package com.globomantics.reviews.repository;
+
+import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewSearchHit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Review repository operations that are implemented directly against the MongoTemplate.
+ */
+public interface ReviewRepositoryCustom {
+
+  /**
+   * Replaces the productId and entries of the specified review and increments its version, in a single update
+   * that only matches if the stored version equals the version of the specified review.
+   *
+   * @param review    The review to update; its version is the version the caller expects to replace.
+   * @return          The updated review, or empty if there is no review with the specified ID and version.
+   */
+  Optional<Review> updateIfVersionMatches(Review review);
+
+  /**
+   * Replaces the productId and entries of the review with the ID of the specified review and increments its version,
+   * whatever its current version, creating the review if it does not exist.
+   *
+   * @param review    The review to save, which must have an ID.
+   * @return          The saved review.
+   */
+  Review replace(Review review);
+
+  /**
+   * Appends an entry to the review of the specified product and increments its version, in a single upsert that
+   * creates the review if the product does not have one yet. Entries appended concurrently are all kept.
+   *
+   * @param productId The product ID of the review.
+   * @param entry     The entry to append.
+   * @return          The review with the appended entry.
+   */
+  Review appendEntry(Integer productId, ReviewEntry entry);
+
+  /**
+   * Appends entries to the reviews of several products with one unordered bulk write: one upsert per product that
+   * pushes the product's entries and increments its version, creating the review if it does not exist yet.
+   *
+   * @param entriesByProductId  The entries to append, grouped by product ID.
+   * @return                    The error message for each product ID whose entries could not be appended.
+   */
+  Map<Integer, String> appendEntries(Map<Integer, List<ReviewEntry>> entriesByProductId);
+
+  /**
+   * Searches the text of review entries, using the Reviews collection's text index. Reviews are ranked by their text
+   * score and only the entries whose review text or username contain one of the search terms are returned; entries
+   * of the same review are ordered newest first.
+   *
+   * @param query     The text to search for, in MongoDB $text search syntax.
+   * @param productId The product ID to restrict the search to, or null to search all reviews.
+   * @param page      The zero-based page of matching entries to return.
+   * @param size      The number of matching entries per page.
+   * @return          The matching entries on the requested page.
+   */
+  List<ReviewSearchHit> searchEntries(String query, Integer productId, int page, int size);
+}
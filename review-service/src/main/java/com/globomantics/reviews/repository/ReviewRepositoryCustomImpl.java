@@ -0,0 +1,159 @@
+package com.globomantics.reviews.repository;
+
+import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewSearchHit;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+  private final MongoTemplate mongoTemplate;
+
+  public ReviewRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public Optional<Review> updateIfVersionMatches(Review review) {
+    // Only match the review if nobody has updated it since the caller read it
+    Query query = new Query(Criteria.where("_id").is(review.getId())
+        .and("version").is(review.getVersion()));
+
+    Update update = new Update()
+        .set("productId", review.getProductId())
+        .set("entries", review.getEntries())
+        .inc("version", 1);
+
+    return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+        FindAndModifyOptions.options().returnNew(true), Review.class));
+  }
+
+  @Override
+  public Review replace(Review review) {
+    Update update = new Update()
+        .set("productId", review.getProductId())
+        .set("entries", review.getEntries())
+        .inc("version", 1);
+
+    return mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(review.getId())), update,
+        FindAndModifyOptions.options().upsert(true).returnNew(true), Review.class);
+  }
+
+  @Override
+  public Review appendEntry(Integer productId, ReviewEntry entry) {
+    Query query = new Query(Criteria.where("productId").is(productId));
+    Update update = new Update().push("entries", entry).inc("version", 1);
+    FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+    try {
+      return mongoTemplate.findAndModify(query, update, options, Review.class);
+    } catch (DuplicateKeyException e) {
+      // Another request created the product's review at the same time; the unique index rejected this insert, and
+      // the retry appends to the review it created
+      return mongoTemplate.findAndModify(query, update, options, Review.class);
+    }
+  }
+
+  @Override
+  public Map<Integer, String> appendEntries(Map<Integer, List<ReviewEntry>> entriesByProductId) {
+    if (entriesByProductId.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    // Queue one upsert per product; the index of each operation is the index of its product ID in this list
+    List<Integer> productIds = new ArrayList<>(entriesByProductId.keySet());
+    BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+    productIds.forEach(productId -> bulkOperations.upsert(
+        new Query(Criteria.where("productId").is(productId)),
+        new Update()
+            .push("entries").each(entriesByProductId.get(productId).toArray())
+            .inc("version", 1)));
+
+    try {
+      bulkOperations.execute();
+      return Collections.emptyMap();
+    } catch (BulkOperationException e) {
+      // Unordered bulk writes apply every operation that can be applied and report the rest by index
+      Map<Integer, String> failures = new HashMap<>();
+      e.getErrors().forEach(error -> failures.put(productIds.get(error.getIndex()), error.getMessage()));
+      return failures;
+    }
+  }
+
+  @Override
+  public List<ReviewSearchHit> searchEntries(String query, Integer productId, int page, int size) {
+    String entryPattern = entryPattern(query);
+    if (entryPattern.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // Find the matching reviews with the text index; the text score ranks whole reviews
+    Document match = new Document("$text", new Document("$search", query));
+    if (productId != null) {
+      match.append("productId", productId);
+    }
+    Document entryMatch = new Document("$regex", entryPattern).append("$options", "i");
+
+    List<AggregationOperation> pipeline = Arrays.asList(
+        stage(new Document("$match", match)),
+        stage(new Document("$project", new Document("productId", 1)
+            .append("entries", 1)
+            .append("score", new Document("$meta", "textScore")))),
+
+        // Keep only the entries of the matching reviews that contain a search term
+        stage(new Document("$unwind", "$entries")),
+        stage(new Document("$match", new Document("$or", Arrays.asList(
+            new Document("entries.review", entryMatch),
+            new Document("entries.username", entryMatch))))),
+        stage(new Document("$sort", new Document("score", -1).append("entries.date", -1))),
+        stage(new Document("$skip", (long) page * size)),
+        stage(new Document("$limit", size)),
+
+        // Return only the matching entry, not the review that contains it
+        stage(new Document("$project", new Document("_id", 0)
+            .append("reviewId", "$_id")
+            .append("productId", 1)
+            .append("entry", "$entries")
+            .append("score", 1))));
+
+    return mongoTemplate.aggregate(Aggregation.newAggregation(pipeline), Review.class, ReviewSearchHit.class)
+        .getMappedResults();
+  }
+
+  /**
+   * Builds a case-insensitive regular expression that matches any of the (non-negated) terms of a $text search.
+   * The text index matches stemmed words, so this is a substring match of the terms as they were entered.
+   */
+  private static String entryPattern(String query) {
+    return Arrays.stream(query.split("[\\s\"]+"))
+        .filter(term -> !term.isEmpty() && !term.startsWith("-"))
+        .map(Pattern::quote)
+        .collect(Collectors.joining("|"));
+  }
+
+  /**
+   * Wraps a raw aggregation pipeline stage.
+   */
+  private static AggregationOperation stage(Document stage) {
+    return context -> stage;
+  }
+}
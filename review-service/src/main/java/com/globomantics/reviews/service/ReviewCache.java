@@ -0,0 +1,196 @@
+package com.globomantics.reviews.service;
+
+import com.globomantics.reviews.model.Review;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * A read-through cache of reviews, keyed by product ID. Misses are cached as well, so that product pages without
+ * reviews do not hit MongoDB on every view.
+ *
+ * Reviews are copied on their way into and out of the cache so that callers can modify the reviews they are given
+ * without corrupting the cached copy.
+ *
+ * When the cache is full, the oldest lookups are evicted to make room. Every lookup has the same time to live, so
+ * the oldest lookups are also the first to expire, and expired lookups are dropped as new ones are added.
+ */
+@Component
+public class ReviewCache {
+
+  /**
+   * Cached lookups by product ID; an empty Optional records that the product has no review.
+   */
+  private final Map<Integer, CachedReview> reviewsByProductId = new ConcurrentHashMap<>();
+
+  /**
+   * The product IDs of the cached reviews, by review ID, so that a review can be evicted by its ID.
+   */
+  private final Map<String, Integer> productIdsByReviewId = new ConcurrentHashMap<>();
+
+  /**
+   * The cached lookups in the order they were loaded. Lookups that were evicted remain in the queue until they reach
+   * its head, where they are skipped.
+   */
+  private final Queue<CachedReview> loadOrder = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The maximum number of product IDs to cache.
+   */
+  private final int maxSize;
+
+  /**
+   * How long a cached lookup is served before it is reloaded.
+   */
+  private final long timeToLiveNanos;
+
+  public ReviewCache(@Value("${reviews.cache.max-size:10000}") int maxSize,
+                     @Value("${reviews.cache.time-to-live:PT5M}") Duration timeToLive) {
+    this.maxSize = maxSize;
+    this.timeToLiveNanos = timeToLive.toNanos();
+  }
+
+  /**
+   * Returns the review for the specified product ID, loading it with the specified loader on a cache miss.
+   * Concurrent misses for the same product ID are collapsed into a single load, which the other callers wait for.
+   * The load runs outside the map, so lookups of other products never wait for it. An eviction of the product
+   * issued while its load is in flight removes the pending lookup, so that the possibly stale review it returns is not cached; a load that
+   * fails is not cached either.
+   *
+   * @param productId The product ID of the review to return.
+   * @param loader    The function used to load the review on a cache miss.
+   * @return          A copy of the review for the specified product ID, if one exists.
+   */
+  public Optional<Review> get(Integer productId, Function<Integer, Optional<Review>> loader) {
+    CachedReview cached = reviewsByProductId.get(productId);
+    if (cached == null || cached.isExpired()) {
+      if (cached != null) {
+        remove(cached);
+      }
+      makeRoom();
+      CachedReview loading = new CachedReview(productId, new CompletableFuture<>(),
+          System.nanoTime() + timeToLiveNanos);
+      cached = reviewsByProductId.putIfAbsent(productId, loading);
+      if (cached == null) {
+        cached = loading;
+        load(loading, loader);
+      }
+    }
+    try {
+      return cached.review.join().map(Review::new);
+    } catch (CompletionException e) {
+      // Another caller's load failed; it has already been removed, so the next lookup loads again
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Runs the specified pending lookup's load on the calling thread and completes the lookup with its result.
+   */
+  private void load(CachedReview loading, Function<Integer, Optional<Review>> loader) {
+    loadOrder.add(loading);
+    Optional<Review> review;
+    try {
+      review = loader.apply(loading.productId).map(Review::new);
+    } catch (RuntimeException e) {
+      remove(loading);
+      loading.review.completeExceptionally(e);
+      throw e;
+    }
+    review.ifPresent(r -> productIdsByReviewId.put(r.getId(), loading.productId));
+    loading.review.complete(review);
+  }
+
+  /**
+   * Drops expired lookups and, while the cache is full, the oldest lookups, from the head of the load order.
+   */
+  private void makeRoom() {
+    CachedReview oldest;
+    while ((oldest = loadOrder.peek()) != null) {
+      boolean evicted = reviewsByProductId.get(oldest.productId) != oldest;
+      if (!evicted && !oldest.isExpired() && reviewsByProductId.size() < maxSize) {
+        return;
+      }
+      if (loadOrder.remove(oldest)) {
+        remove(oldest);
+      }
+    }
+  }
+
+  /**
+   * Removes the specified lookup, unless it has already been replaced by a newer one.
+   */
+  private void remove(CachedReview cached) {
+    if (reviewsByProductId.remove(cached.productId, cached)) {
+      cached.loaded().ifPresent(review -> productIdsByReviewId.remove(review.getId(), cached.productId));
+    }
+  }
+
+  /**
+   * Evicts the cached review for the specified product ID.
+   *
+   * @param productId The product ID of the review to evict.
+   */
+  public void evict(Integer productId) {
+    if (productId != null) {
+      CachedReview cached = reviewsByProductId.remove(productId);
+      if (cached != null) {
+        cached.loaded().ifPresent(review -> productIdsByReviewId.remove(review.getId(), productId));
+      }
+    }
+  }
+
+  /**
+   * Evicts the cached review with the specified review ID.
+   *
+   * @param reviewId  The ID of the review to evict.
+   */
+  public void evictReview(String reviewId) {
+    evict(productIdsByReviewId.get(reviewId));
+  }
+
+  /**
+   * Evicts all cached reviews.
+   */
+  public void clear() {
+    reviewsByProductId.clear();
+    productIdsByReviewId.clear();
+    loadOrder.clear();
+  }
+
+  /**
+   * A cached lookup, which is pending until its load completes, and the time, in System.nanoTime() units, at which
+   * it expires.
+   */
+  private static final class CachedReview {
+    private final Integer productId;
+    private final CompletableFuture<Optional<Review>> review;
+    private final long expiresAt;
+
+    private CachedReview(Integer productId, CompletableFuture<Optional<Review>> review, long expiresAt) {
+      this.productId = productId;
+      this.review = review;
+      this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Returns the loaded review, or nothing if the lookup is still pending, failed or found no review.
+     */
+    private Optional<Review> loaded() {
+      return review.isDone() && !review.isCompletedExceptionally() ? review.join() : Optional.empty();
+    }
+
+    private boolean isExpired() {
+      return System.nanoTime() - expiresAt > 0;
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.globomantics.reviews.service;
+
+import com.globomantics.reviews.model.BulkImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ReviewImportService {
+  /**
+   * Appends review entries, read from an NDJSON stream of ReviewEntryRecords, to the reviews of their products.
+   * Records are read incrementally and written in batches, so the stream is never held in memory as a whole.
+   * @param ndjson    The NDJSON stream, one ReviewEntryRecord per line.
+   * @return          The number of records received and imported, and the errors of the records that failed.
+   * @throws IOException  If the stream cannot be read.
+   */
+  BulkImportResult importEntries(InputStream ndjson) throws IOException;
+}
@@ -0,0 +1,178 @@
+package com.globomantics.reviews.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.globomantics.reviews.events.ReviewEventPublisher;
+import com.globomantics.reviews.model.BulkImportResult;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewEntryRecord;
+import com.globomantics.reviews.repository.ReviewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class ReviewImportServiceImpl implements ReviewImportService {
+
+  private final ReviewRepository repository;
+
+  private final ReviewCache cache;
+
+  private final ReviewEventPublisher eventPublisher;
+
+  private final ObjectReader recordReader;
+
+  /**
+   * The number of records written to MongoDB in each bulk write.
+   */
+  private final int batchSize;
+
+  /**
+   * The maximum number of record errors returned in an import result; further errors are only counted.
+   */
+  private final int maxReportedErrors;
+
+  public ReviewImportServiceImpl(ReviewRepository repository,
+                                 ReviewCache cache,
+                                 ReviewEventPublisher eventPublisher,
+                                 ObjectMapper objectMapper,
+                                 @Value("${reviews.bulk.batch-size:1000}") int batchSize,
+                                 @Value("${reviews.bulk.max-reported-errors:1000}") int maxReportedErrors) {
+    this.repository = repository;
+    this.cache = cache;
+    this.eventPublisher = eventPublisher;
+    this.recordReader = objectMapper.readerFor(ReviewEntryRecord.class);
+    this.batchSize = batchSize;
+    this.maxReportedErrors = maxReportedErrors;
+  }
+
+  @Override
+  public BulkImportResult importEntries(InputStream ndjson) throws IOException {
+    BulkImportResult result = new BulkImportResult();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+
+    List<Line> batch = new ArrayList<>(batchSize);
+    long lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      result.setReceived(result.getReceived() + 1);
+
+      // Read and validate the record; invalid records are reported and skipped
+      ReviewEntryRecord record;
+      try {
+        record = recordReader.readValue(line);
+      } catch (JsonProcessingException e) {
+        addError(result, new BulkImportResult.Error(lineNumber, null, "Malformed record: " + e.getOriginalMessage()));
+        continue;
+      }
+      String invalid = validate(record);
+      if (invalid != null) {
+        addError(result, new BulkImportResult.Error(lineNumber, record.getProductId(), invalid));
+        continue;
+      }
+
+      batch.add(new Line(lineNumber, record));
+      if (batch.size() == batchSize) {
+        writeBatch(batch, result);
+        batch.clear();
+      }
+    }
+    writeBatch(batch, result);
+
+    log.info("Imported review entries: {}", result);
+    return result;
+  }
+
+  /**
+   * Writes a batch of records, grouped by product ID, with one bulk write.
+   */
+  private void writeBatch(List<Line> batch, BulkImportResult result) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    // Group the entries by product, keeping the order in which each product's entries were received
+    Map<Integer, List<ReviewEntry>> entriesByProductId = new LinkedHashMap<>();
+    batch.forEach(l -> entriesByProductId
+        .computeIfAbsent(l.record.getProductId(), productId -> new ArrayList<>())
+        .add(l.record.getEntry()));
+
+    Map<Integer, String> failures = repository.appendEntries(entriesByProductId);
+    entriesByProductId.forEach((productId, entries) -> {
+      cache.evict(productId);
+      if (!failures.containsKey(productId)) {
+        eventPublisher.entriesAdded(null, productId, entries);
+      }
+    });
+
+    for (Line l : batch) {
+      String failure = failures.get(l.record.getProductId());
+      if (failure == null) {
+        result.setImported(result.getImported() + 1);
+      } else {
+        addError(result, new BulkImportResult.Error(l.number, l.record.getProductId(), failure));
+      }
+    }
+  }
+
+  /**
+   * Returns a description of what is wrong with the specified record, or null if it is valid. Entries without a
+   * date are dated now.
+   */
+  private static String validate(ReviewEntryRecord record) {
+    if (record.getProductId() == null) {
+      return "productId is required";
+    }
+    ReviewEntry entry = record.getEntry();
+    if (entry == null) {
+      return "entry is required";
+    }
+    if (entry.getUsername() == null || entry.getUsername().isBlank()) {
+      return "entry.username is required";
+    }
+    if (entry.getReview() == null || entry.getReview().isBlank()) {
+      return "entry.review is required";
+    }
+    if (entry.getDate() == null) {
+      entry.setDate(Instant.now());
+    }
+    return null;
+  }
+
+  private void addError(BulkImportResult result, BulkImportResult.Error error) {
+    result.setFailed(result.getFailed() + 1);
+    if (result.getErrors().size() < maxReportedErrors) {
+      result.getErrors().add(error);
+    }
+  }
+
+  /**
+   * A record and the line number on which it was received.
+   */
+  private static final class Line {
+    private final long number;
+    private final ReviewEntryRecord record;
+
+    private Line(long number, ReviewEntryRecord record) {
+      this.number = number;
+      this.record = record;
+    }
+  }
+}
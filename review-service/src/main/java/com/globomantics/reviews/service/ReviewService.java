@@ -1,6 +1,8 @@
 package com.globomantics.reviews.service;
 
 import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewSearchHit;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,6 +15,13 @@ public interface ReviewService {
    */
   Optional<Review> findById(String id);
 
+  /**
+   * Returns the version of the review with the specified ID, without loading its entries.
+   * @param id        The ID of the review.
+   * @return          The version of the review with the specified ID.
+   */
+  Optional<Integer> findVersionById(String id);
+
   /**
    * Returns the review with the specified product ID.
    * @param productId The product ID for which to return the review.
@@ -27,18 +36,38 @@ public interface ReviewService {
   List<Review> findAll();
 
   /**
-   * Saves the specified review to the database.
+   * Searches the text of all review entries.
+   * @param query     The text to search for.
+   * @param productId The product ID to restrict the search to, or null to search the reviews of all products.
+   * @param page      The zero-based page of matching entries to return.
+   * @param size      The number of matching entries per page.
+   * @return          The matching entries, most relevant first.
+   */
+  List<ReviewSearchHit> search(String query, Integer productId, int page, int size);
+
+  /**
+   * Saves the specified review to the database. A new review gets version 1; saving a review that has an ID
+   * replaces the stored review and increments its version.
    * @param review    The review to save.
    * @return          The saved review, including a newly generated ID.
    */
   Review save(Review review);
 
   /**
-   * Updates the specified review in the database.
-   * @param review    The review to update.
-   * @return          The updated review.
+   * Appends an entry to the review of the specified product, creating the review if there is none. The entry is
+   * appended in the database, not to a cached copy of the review, so entries added concurrently are not lost.
+   * @param productId The product ID of the review.
+   * @param entry     The entry to append.
+   * @return          The review with the appended entry.
+   */
+  Review addEntry(Integer productId, ReviewEntry entry);
+
+  /**
+   * Updates the specified review in the database, if its version matches the version stored in the database.
+   * @param review    The review to update; its version is the version that the caller expects to replace.
+   * @return          The updated review, or empty if the review does not exist or its version does not match.
    */
-  Review update(Review review);
+  Optional<Review> update(Review review);
 
   /**
    * Deletes the review with the specified ID.
@@ -1,9 +1,13 @@
 package com.globomantics.reviews.service;
 
+import com.globomantics.reviews.events.ReviewEventPublisher;
 import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewSearchHit;
 import com.globomantics.reviews.repository.ReviewRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,8 +16,14 @@ public class ReviewServiceImpl implements ReviewService {
 
   private ReviewRepository repository;
 
-  public ReviewServiceImpl(ReviewRepository repository) {
+  private ReviewCache cache;
+
+  private ReviewEventPublisher eventPublisher;
+
+  public ReviewServiceImpl(ReviewRepository repository, ReviewCache cache, ReviewEventPublisher eventPublisher) {
     this.repository = repository;
+    this.cache = cache;
+    this.eventPublisher = eventPublisher;
   }
 
   @Override
@@ -21,9 +31,14 @@ public class ReviewServiceImpl implements ReviewService {
     return repository.findById(id);
   }
 
+  @Override
+  public Optional<Integer> findVersionById(String id) {
+    return repository.findVersionById(id).map(Review::getVersion);
+  }
+
   @Override
   public Optional<Review> findByProductId(Integer productId) {
-    return repository.findByProductId(productId);
+    return cache.get(productId, repository::findByProductId);
   }
 
   @Override
@@ -31,20 +46,54 @@ public class ReviewServiceImpl implements ReviewService {
     return repository.findAll();
   }
 
+  @Override
+  public List<ReviewSearchHit> search(String query, Integer productId, int page, int size) {
+    return repository.searchEntries(query, productId, page, size);
+  }
+
   @Override
   public Review save(Review review) {
-    review.setVersion(1);
-    return repository.save(review);
+    boolean isNew = review.getId() == null;
+    Review savedReview;
+    if (isNew) {
+      review.setVersion(1);
+      savedReview = repository.save(review);
+    } else {
+      // Every write increments the version, so that conditional requests never match an older copy
+      savedReview = repository.replace(review);
+    }
+    cache.evict(savedReview.getProductId());
+
+    if (isNew) {
+      eventPublisher.entriesAdded(savedReview.getId(), savedReview.getProductId(), savedReview.getEntries());
+    } else {
+      eventPublisher.reviewUpdated(savedReview);
+    }
+    return savedReview;
+  }
+
+  @Override
+  public Review addEntry(Integer productId, ReviewEntry entry) {
+    Review review = repository.appendEntry(productId, entry);
+    cache.evict(productId);
+    eventPublisher.entriesAdded(review.getId(), productId, Collections.singletonList(entry));
+    return review;
   }
 
   @Override
-  public Review update(Review review) {
-    review.setVersion(review.getVersion()+1);
-    return repository.save(review);
+  public Optional<Review> update(Review review) {
+    Optional<Review> updatedReview = repository.updateIfVersionMatches(review);
+    updatedReview.ifPresent(r -> {
+      cache.evict(r.getProductId());
+      eventPublisher.reviewUpdated(r);
+    });
+    return updatedReview;
   }
 
   @Override
   public void delete(String id) {
     repository.deleteById(id);
+    cache.evictReview(id);
+    eventPublisher.reviewDeleted(id);
   }
 }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.globomantics.reviews.model.Review;
 import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewSearchHit;
 import com.globomantics.reviews.service.ReviewService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -17,13 +18,18 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ReviewController.class)
@@ -128,15 +134,11 @@ class ReviewControllerTest {
     // Setup mocked service
     Instant now = Instant.now();
     ReviewEntry reviewEntry = new ReviewEntry("test-user", now, "Great product");
-    Review mockReview = new Review("1", 1, 1);
     Review returnedReview = new Review("1", 1, 2);
     returnedReview.getEntries().add(reviewEntry);
 
-    // Handle lookup
-    doReturn(Optional.of(mockReview)).when(service).findByProductId(1);
-
-    // Handle save
-    doReturn(returnedReview).when(service).save(any());
+    // Handle the append
+    doReturn(returnedReview).when(service).addEntry(eq(1), any());
 
     mockMvc.perform(post(ReviewController.REQUEST_MAPPING + "/{productId}/entries", 1)
             .contentType(MediaType.APPLICATION_JSON)
@@ -156,6 +158,198 @@ class ReviewControllerTest {
   }
 
 
+  @Test
+  @DisplayName("GET /reviews?productId=1 - Found")
+  void testGetReviewsByProductIdFound() throws Exception {
+    // Setup our mocked service
+    Review mockReview = new Review("reviewId", 1, 3);
+    mockReview.getEntries().add(new ReviewEntry("test-user", Instant.now(), "Great product"));
+    doReturn(Optional.of(mockReview)).when(service).findByProductId(1);
+
+    // Execute the GET request
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING).param("productId", "1"))
+
+        // Validate the response code and content type
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+
+        // Validate the headers
+        .andExpect(header().string(HttpHeaders.ETAG, "\"3-1\""))
+
+        // Validate the returned fields
+        .andExpect(jsonPath("$.length()", is(1)))
+        .andExpect(jsonPath("$[0].id", is("reviewId")))
+        .andExpect(jsonPath("$[0].entries.length()", is(1)));
+  }
+
+  @Test
+  @DisplayName("GET /reviews?productId=1 - Not Modified")
+  void testGetReviewsByProductIdNotModified() throws Exception {
+    // Setup our mocked service
+    Review mockReview = new Review("reviewId", 1, 3);
+    mockReview.getEntries().add(new ReviewEntry("test-user", Instant.now(), "Great product"));
+    doReturn(Optional.of(mockReview)).when(service).findByProductId(1);
+
+    // Execute the GET request
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING).param("productId", "1")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"3-1\""))
+
+        // Validate that we get a 304 Not Modified response
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  @DisplayName("GET /reviews - Not Modified")
+  void testGetReviewsNotModified() throws Exception {
+    // Setup our mocked service
+    Review mockReview = new Review("reviewId", 1, 3);
+    mockReview.getEntries().add(new ReviewEntry("test-user", Instant.now(), "Great product"));
+    doReturn(Arrays.asList(mockReview)).when(service).findAll();
+
+    // Execute a GET request to learn the ETag of all reviews
+    String eTag = mockMvc.perform(get(ReviewController.REQUEST_MAPPING))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()", is(1)))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    // Validate that the same reviews are not sent again
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+    // Validate that an appended entry changes the ETag, although the version does not change
+    mockReview.getEntries().add(new ReviewEntry("other-user", Instant.now(), "Good product"));
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].entries.length()", is(2)));
+  }
+
+  @Test
+  @DisplayName("GET /reviews?productId=2 - Not Found")
+  void testGetReviewsByProductIdNotFound() throws Exception {
+    // Setup our mocked service
+    doReturn(Optional.empty()).when(service).findByProductId(2);
+
+    // Execute the GET request
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING).param("productId", "2"))
+
+        // Validate that we get an empty list
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()", is(0)));
+  }
+
+  @Test
+  @DisplayName("GET /reviews/reviewId - Not Modified")
+  void testGetReviewByIdNotModified() throws Exception {
+    // Setup our mocked service
+    doReturn(Optional.of(2)).when(service).findVersionById("reviewId");
+
+    // Execute the GET request
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING + "/{id}", "reviewId")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+
+        // Validate that we get a 304 Not Modified response without loading the review
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+    verify(service, never()).findById("reviewId");
+  }
+
+  @Test
+  @DisplayName("PUT /reviews/reviewId - Success")
+  void testUpdateReviewSuccess() throws Exception {
+    // Setup our mocked service
+    Review putReview = new Review(1);
+    putReview.getEntries().add(new ReviewEntry("test-user", Instant.now(), "Great product"));
+    Review updatedReview = new Review("reviewId", 1, 3);
+    updatedReview.getEntries().add(new ReviewEntry("test-user", Instant.now(), "Great product"));
+    doReturn(Optional.of(updatedReview)).when(service).update(any());
+
+    mockMvc.perform(put(ReviewController.REQUEST_MAPPING + "/{id}", "reviewId")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, "\"2\"")
+            .content(asJsonString(putReview)))
+
+        // Validate the response code and content type
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+
+        // Validate the headers
+        .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+        .andExpect(header().string(HttpHeaders.LOCATION, ReviewController.REQUEST_MAPPING + "/reviewId"))
+
+        // Validate the returned fields
+        .andExpect(jsonPath("$.id", is("reviewId")))
+        .andExpect(jsonPath("$.version", is(3)));
+  }
+
+  @Test
+  @DisplayName("PUT /reviews/reviewId - Version Mismatch")
+  void testUpdateReviewVersionMismatch() throws Exception {
+    // Setup our mocked service
+    doReturn(Optional.empty()).when(service).update(any());
+    doReturn(Optional.of(3)).when(service).findVersionById("reviewId");
+
+    mockMvc.perform(put(ReviewController.REQUEST_MAPPING + "/{id}", "reviewId")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, 2)
+            .content(asJsonString(new Review(1))))
+
+        // Validate that we get a 409 Conflict response
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  @DisplayName("PUT /reviews/reviewId - Not Found")
+  void testUpdateReviewNotFound() throws Exception {
+    // Setup our mocked service
+    doReturn(Optional.empty()).when(service).update(any());
+    doReturn(Optional.empty()).when(service).findVersionById("reviewId");
+
+    mockMvc.perform(put(ReviewController.REQUEST_MAPPING + "/{id}", "reviewId")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_MATCH, 2)
+            .content(asJsonString(new Review(1))))
+
+        // Validate that we get a 404 Not Found response
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @DisplayName("GET /reviews/search?q=great - Success")
+  void testSearchReviews() throws Exception {
+    // Setup our mocked service
+    ReviewSearchHit hit = new ReviewSearchHit("reviewId", 1, new ReviewEntry("test-user", Instant.now(), "Great product"), 1.5);
+    doReturn(Arrays.asList(hit)).when(service).search("great", 1, 0, 20);
+
+    // Execute the GET request
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING + "/search")
+            .param("q", "great")
+            .param("productId", "1"))
+
+        // Validate the response code and content type
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+
+        // Validate the returned fields
+        .andExpect(jsonPath("$.length()", is(1)))
+        .andExpect(jsonPath("$[0].reviewId", is("reviewId")))
+        .andExpect(jsonPath("$[0].productId", is(1)))
+        .andExpect(jsonPath("$[0].entry.review", is("Great product")));
+  }
+
+  @Test
+  @DisplayName("GET /reviews/search?q=great&size=1000 - Bad Request")
+  void testSearchReviewsPageTooLarge() throws Exception {
+    // Execute the GET request
+    mockMvc.perform(get(ReviewController.REQUEST_MAPPING + "/search")
+            .param("q", "great")
+            .param("size", "1000"))
+
+        // Validate that we get a 400 Bad Request response
+        .andExpect(status().isBadRequest());
+  }
+
   static String asJsonString(final Object obj) {
     try {
       ObjectMapper objectMapper = new ObjectMapper();
@@ -165,4 +359,4 @@ class ReviewControllerTest {
       throw new RuntimeException(e);
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package com.globomantics.reviews.controller;
+
+import com.globomantics.reviews.model.BulkImportResult;
+import com.globomantics.reviews.service.ReviewImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReviewImportController.class)
+class ReviewImportControllerTest {
+
+  @MockBean
+  private ReviewImportService service;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  @DisplayName("POST /reviews/bulk - Success")
+  void testImportEntries() throws Exception {
+    // Setup our mocked service
+    BulkImportResult mockResult = new BulkImportResult();
+    mockResult.setReceived(2);
+    mockResult.setImported(1);
+    mockResult.setFailed(1);
+    mockResult.getErrors().add(new BulkImportResult.Error(2, 1, "entry.review is required"));
+    doReturn(mockResult).when(service).importEntries(any());
+
+    // Execute the POST request
+    mockMvc.perform(post(ReviewController.REQUEST_MAPPING + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .content("{\"productId\": 1, \"entry\": {\"username\": \"user1\", \"review\": \"Great\"}}\n"
+                + "{\"productId\": 1, \"entry\": {\"username\": \"user2\"}}\n"))
+
+        // Validate the response code and content type
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+
+        // Validate the returned fields
+        .andExpect(jsonPath("$.received", is(2)))
+        .andExpect(jsonPath("$.imported", is(1)))
+        .andExpect(jsonPath("$.failed", is(1)))
+        .andExpect(jsonPath("$.errors[0].line", is(2)))
+        .andExpect(jsonPath("$.errors[0].message", is("entry.review is required")));
+  }
+
+  @Test
+  @DisplayName("POST /reviews/bulk - gzip request body")
+  void testImportEntriesGzip() throws Exception {
+    // Setup our mocked service to count the lines it receives
+    String ndjson = "{\"productId\": 1, \"entry\": {\"username\": \"user1\", \"review\": \"Great\"}}\n"
+        + "{\"productId\": 2, \"entry\": {\"username\": \"user2\", \"review\": \"Good\"}}\n";
+    doAnswer(invocation -> {
+      String received = new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8);
+      BulkImportResult result = new BulkImportResult();
+      result.setReceived((int) received.lines().count());
+      result.setImported(received.equals(ndjson) ? 2 : 0);
+      return result;
+    }).when(service).importEntries(any());
+
+    // Execute the POST request with a gzip body
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+    mockMvc.perform(post(ReviewController.REQUEST_MAPPING + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .content(compressed.toByteArray()))
+
+        // Validate the body was decompressed
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.received", is(2)))
+        .andExpect(jsonPath("$.imported", is(2)));
+  }
+
+  @Test
+  @DisplayName("POST /reviews/bulk - Unsupported Content-Encoding")
+  void testImportEntriesUnsupportedEncoding() throws Exception {
+    mockMvc.perform(post(ReviewController.REQUEST_MAPPING + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_ENCODING, "br")
+            .content(new byte[]{1, 2, 3}))
+
+        // Validate the response code is 415 Unsupported Media Type
+        .andExpect(status().isUnsupportedMediaType());
+  }
+}
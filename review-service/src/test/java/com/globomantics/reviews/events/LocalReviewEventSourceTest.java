@@ -0,0 +1,137 @@
+package com.globomantics.reviews.events;
+
+import com.globomantics.reviews.model.Review;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class LocalReviewEventSourceTest {
+
+  /**
+   * The source that we want to test, with a history of 3 events.
+   */
+  private LocalReviewEventSource source;
+
+  /**
+   * The events delivered to our test sink.
+   */
+  private BlockingQueue<ReviewEvent> received;
+
+  @BeforeEach
+  void setup() {
+    this.source = new LocalReviewEventSource(3, 100);
+    this.received = new LinkedBlockingQueue<>();
+  }
+
+  @AfterEach
+  void tearDown() {
+    source.shutdown();
+  }
+
+  @Test
+  @DisplayName("Test events are delivered in order")
+  void testEventsDeliveredInOrder() throws Exception {
+    source.subscribe(null, received::add);
+
+    source.entriesAdded("reviewId", 1, Arrays.asList(
+        new ReviewEntry("user1", "Great product"), new ReviewEntry("user2", "Good product")));
+    source.reviewDeleted("reviewId");
+
+    ReviewEvent first = next();
+    Assertions.assertEquals(ReviewEvent.Type.ENTRY_ADDED, first.getType());
+    Assertions.assertEquals("1", first.getToken());
+    Assertions.assertEquals("user1", first.getEntry().getUsername());
+    Assertions.assertEquals("user2", next().getEntry().getUsername());
+    ReviewEvent third = next();
+    Assertions.assertEquals(ReviewEvent.Type.REVIEW_DELETED, third.getType());
+    Assertions.assertEquals("3", third.getToken());
+  }
+
+  @Test
+  @DisplayName("Test a subscriber resumes after its last token")
+  void testResume() throws Exception {
+    source.reviewUpdated(new Review("review1", 1, 2));
+    source.reviewUpdated(new Review("review2", 2, 2));
+    source.reviewUpdated(new Review("review3", 3, 2));
+
+    source.subscribe("1", received::add);
+
+    Assertions.assertEquals("review2", next().getReviewId());
+    Assertions.assertEquals("review3", next().getReviewId());
+  }
+
+  @Test
+  @DisplayName("Test a subscriber whose token is no longer in the history must resync")
+  void testResumeTooOld() throws Exception {
+    for (int i = 1; i <= 5; i++) {
+      source.reviewDeleted("review" + i);
+    }
+
+    source.subscribe("1", received::add);
+
+    ReviewEvent resync = next();
+    Assertions.assertEquals(ReviewEvent.Type.RESYNC_REQUIRED, resync.getType());
+    Assertions.assertEquals("5", resync.getToken(), "The resync token should be the latest event");
+  }
+
+  @Test
+  @DisplayName("Test a closed subscription receives no more events")
+  void testClose() throws Exception {
+    ReviewEventSource.Subscription subscription = source.subscribe(null, received::add);
+    source.reviewDeleted("review1");
+    Assertions.assertEquals("review1", next().getReviewId());
+
+    subscription.close();
+    source.reviewDeleted("review2");
+
+    Assertions.assertNull(received.poll(100, TimeUnit.MILLISECONDS), "No event should have been delivered");
+  }
+
+  @Test
+  @DisplayName("Test a subscriber that falls behind is told its subscription closed")
+  void testFallingBehindClosesSink() throws Exception {
+    LocalReviewEventSource smallQueueSource = new LocalReviewEventSource(3, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch closed = new CountDownLatch(1);
+    try {
+      smallQueueSource.subscribe(null, new ReviewEventSink() {
+        @Override
+        public void accept(ReviewEvent event) throws InterruptedException {
+          // Hold the delivery thread so that the queue fills up
+          release.await(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void closed(Exception cause) {
+          Assertions.assertNull(cause, "Falling behind is not a failure");
+          closed.countDown();
+        }
+      });
+
+      for (int i = 1; i <= 3; i++) {
+        smallQueueSource.reviewDeleted("review" + i);
+      }
+      release.countDown();
+
+      Assertions.assertTrue(closed.await(5, TimeUnit.SECONDS), "The sink should have been told it was closed");
+    } finally {
+      smallQueueSource.shutdown();
+    }
+  }
+
+  private ReviewEvent next() throws InterruptedException {
+    ReviewEvent event = received.poll(5, TimeUnit.SECONDS);
+    Assertions.assertNotNull(event, "An event should have been delivered");
+    return event;
+  }
+}
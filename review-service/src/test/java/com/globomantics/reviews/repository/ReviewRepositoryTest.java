@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.globomantics.reviews.model.Review;
 import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.model.ReviewSearchHit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,7 +17,9 @@ import java.io.File;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @DataMongoTest
@@ -46,6 +49,9 @@ class ReviewRepositoryTest {
 
     // Load each review into MongoDB
     Arrays.stream(objects).forEach(mongoTemplate::save);
+
+    // Create the indexes, including the text index used by searchEntries
+    new ReviewIndexes(mongoTemplate).ensureIndexes();
   }
 
   @AfterEach
@@ -138,4 +144,99 @@ class ReviewRepositoryTest {
     Optional<Review> review = repository.findById("2");
     Assertions.assertFalse(review.isPresent(), "Review 2 should now be deleted from the database");
   }
-}
\ No newline at end of file
+
+  @Test
+  void testFindVersionById() {
+    Optional<Review> review = repository.findVersionById("2");
+    Assertions.assertTrue(review.isPresent(), "We should have found a review with ID 2");
+    Assertions.assertEquals(7, review.get().getVersion().intValue(), "Review version should be 7");
+    Assertions.assertEquals(0, review.get().getEntries().size(), "Entries should not have been loaded");
+  }
+
+  @Test
+  void testUpdateIfVersionMatches() {
+    // Replace the entries of review 2, which is at version 7
+    Review review = new Review("2", 2, 7);
+    review.getEntries().add(new ReviewEntry("test-user", Instant.now(), "This is the only review"));
+    Optional<Review> updatedReview = repository.updateIfVersionMatches(review);
+
+    // Validate that the update was applied and the version incremented
+    Assertions.assertTrue(updatedReview.isPresent(), "Review 2 should have been updated");
+    Assertions.assertEquals(8, updatedReview.get().getVersion().intValue(), "Review version should be 8");
+    Assertions.assertEquals(1, updatedReview.get().getEntries().size(), "There should be 1 review entry");
+  }
+
+  @Test
+  void testUpdateIfVersionMatchesConflict() {
+    // Try to update review 2 from a stale version
+    Review review = new Review("2", 2, 6);
+    Optional<Review> updatedReview = repository.updateIfVersionMatches(review);
+
+    // Validate that the update was not applied
+    Assertions.assertFalse(updatedReview.isPresent(), "Review 2 should not have been updated");
+    Assertions.assertEquals(3, repository.findById("2").get().getEntries().size(), "There should be 3 review entries");
+  }
+
+  @Test
+  void testAppendEntries() {
+    // Append an entry to review 2 and create a review for product 10
+    Map<Integer, List<ReviewEntry>> entries = new LinkedHashMap<>();
+    entries.put(2, Arrays.asList(new ReviewEntry("test-user", Instant.now(), "This is a fourth review")));
+    entries.put(10, Arrays.asList(new ReviewEntry("test-user", Instant.now(), "This is a new review")));
+    Map<Integer, String> failures = repository.appendEntries(entries);
+
+    // Validate that both products were updated
+    Assertions.assertTrue(failures.isEmpty(), "No products should have failed");
+    Review review2 = repository.findByProductId(2).get();
+    Assertions.assertEquals(4, review2.getEntries().size(), "There should be 4 review entries");
+    Assertions.assertEquals(8, review2.getVersion().intValue(), "Review version should be 8");
+    Review review10 = repository.findByProductId(10).get();
+    Assertions.assertEquals(1, review10.getEntries().size(), "There should be 1 review entry");
+    Assertions.assertEquals(1, review10.getVersion().intValue(), "Review version should be 1");
+  }
+
+  @Test
+  void testAppendEntry() {
+    // Append an entry to review 2, which has version 7
+    Review review2 = repository.appendEntry(2, new ReviewEntry("test-user", Instant.now(), "This is a fourth review"));
+    Assertions.assertEquals(4, review2.getEntries().size(), "There should be 4 review entries");
+    Assertions.assertEquals(8, review2.getVersion().intValue(), "Review version should be 8");
+
+    // Appending to a product without a review creates the review
+    Review review10 = repository.appendEntry(10, new ReviewEntry("test-user", Instant.now(), "This is a new review"));
+    Assertions.assertEquals(10, review10.getProductId().intValue());
+    Assertions.assertEquals(1, review10.getEntries().size(), "There should be 1 review entry");
+    Assertions.assertEquals(1, review10.getVersion().intValue(), "Review version should be 1");
+  }
+
+  @Test
+  void testReplace() {
+    // Replace review 2, which has version 7, whatever version the caller read
+    Review review = new Review("2", 2, 1);
+    review.getEntries().add(new ReviewEntry("test-user", Instant.now(), "This is the only review"));
+    Review review2 = repository.replace(review);
+    Assertions.assertEquals(1, review2.getEntries().size(), "There should be 1 review entry");
+    Assertions.assertEquals(8, review2.getVersion().intValue(), "Review version should be 8");
+  }
+
+  @Test
+  void testSearchEntries() {
+    List<ReviewSearchHit> hits = repository.searchEntries("another", null, 0, 10);
+    Assertions.assertEquals(1, hits.size(), "Only one entry mentions another");
+    Assertions.assertEquals("2", hits.get(0).getReviewId(), "The entry belongs to review 2");
+    Assertions.assertEquals("user3", hits.get(0).getEntry().getUsername(), "The entry was written by user3");
+  }
+
+  @Test
+  void testSearchEntriesByProductId() {
+    List<ReviewSearchHit> hits = repository.searchEntries("review", 2, 0, 10);
+    Assertions.assertEquals(3, hits.size(), "All three entries of product 2 should match");
+    hits.forEach(hit -> Assertions.assertEquals(2, hit.getProductId().intValue(), "Only product 2 should match"));
+  }
+
+  @Test
+  void testSearchEntriesPaging() {
+    List<ReviewSearchHit> hits = repository.searchEntries("review", 2, 1, 2);
+    Assertions.assertEquals(1, hits.size(), "The second page should hold the third entry");
+  }
+}
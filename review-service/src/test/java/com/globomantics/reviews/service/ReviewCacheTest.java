@@ -0,0 +1,104 @@
+package com.globomantics.reviews.service;
+
+import com.globomantics.reviews.model.Review;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+class ReviewCacheTest {
+
+  /**
+   * Counts the loads, and returns a review with the ID "review" + productId.
+   */
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final Function<Integer, Optional<Review>> loader = productId -> {
+    loads.incrementAndGet();
+    return Optional.of(new Review("review" + productId, productId, 1));
+  };
+
+  @Test
+  @DisplayName("Test a full cache evicts its oldest lookups")
+  void testFullCacheEvictsOldest() {
+    ReviewCache cache = new ReviewCache(2, Duration.ofMinutes(5));
+    cache.get(1, loader);
+    cache.get(2, loader);
+    cache.get(3, loader);
+    Assertions.assertEquals(3, loads.get());
+
+    // Product 3 was cached in place of product 1
+    cache.get(3, loader);
+    cache.get(2, loader);
+    Assertions.assertEquals(3, loads.get(), "Products 2 and 3 should be cached");
+    cache.get(1, loader);
+    Assertions.assertEquals(4, loads.get(), "Product 1 should have been evicted");
+  }
+
+  @Test
+  @DisplayName("Test expired lookups are reloaded")
+  void testExpiredLookupsAreReloaded() {
+    ReviewCache cache = new ReviewCache(2, Duration.ZERO);
+    cache.get(1, loader);
+    cache.get(1, loader);
+    Assertions.assertEquals(2, loads.get(), "The expired lookup should have been reloaded");
+  }
+
+  @Test
+  @DisplayName("Test a review is evicted by its review ID")
+  void testEvictReview() {
+    ReviewCache cache = new ReviewCache(10, Duration.ofMinutes(5));
+    cache.get(1, loader);
+    cache.get(2, loader);
+
+    cache.evictReview("review1");
+    cache.get(1, loader);
+    cache.get(2, loader);
+
+    Assertions.assertEquals(3, loads.get(), "Only product 1 should have been reloaded");
+  }
+
+  @Test
+  @DisplayName("Test a failed load is not cached")
+  void testFailedLoadIsNotCached() {
+    ReviewCache cache = new ReviewCache(10, Duration.ofMinutes(5));
+    Assertions.assertThrows(IllegalStateException.class, () -> cache.get(1, productId -> {
+      throw new IllegalStateException("MongoDB is unavailable");
+    }));
+
+    Assertions.assertEquals("review1", cache.get(1, loader).orElseThrow().getId());
+    Assertions.assertEquals(1, loads.get(), "The product should have been loaded again");
+  }
+
+  @Test
+  @DisplayName("Test a lookup does not wait for the load of another product")
+  void testLoadDoesNotBlockOtherProducts() throws Exception {
+    ReviewCache cache = new ReviewCache(10, Duration.ofMinutes(5));
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread slowLoad = new Thread(() -> cache.get(1, productId -> {
+      loading.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return loader.apply(productId);
+    }));
+    slowLoad.start();
+    try {
+      Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+      // Product 17 falls in the same bin of the cache's map as product 1
+      Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> cache.get(17, loader));
+    } finally {
+      release.countDown();
+      slowLoad.join();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.globomantics.reviews.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.globomantics.reviews.events.ReviewEventPublisher;
+import com.globomantics.reviews.model.BulkImportResult;
+import com.globomantics.reviews.model.ReviewEntry;
+import com.globomantics.reviews.repository.ReviewRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ReviewImportServiceTest {
+  /**
+   * The service that we want to test, configured to write batches of 2 records.
+   */
+  private ReviewImportService service;
+
+  /**
+   * A mock version of the ReviewRepository for use in our tests.
+   */
+  private ReviewRepository repository;
+
+  @BeforeEach
+  void setup() {
+    this.repository = mock(ReviewRepository.class);
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    this.service = new ReviewImportServiceImpl(repository, new ReviewCache(100, Duration.ofMinutes(5)),
+        mock(ReviewEventPublisher.class), objectMapper, 2, 10);
+  }
+
+  @Test
+  @DisplayName("Test import groups entries by product in batches")
+  @SuppressWarnings("unchecked")
+  void testImportEntries() throws Exception {
+    doReturn(Collections.emptyMap()).when(repository).appendEntries(any());
+
+    BulkImportResult result = service.importEntries(ndjson(
+        "{\"productId\": 1, \"entry\": {\"username\": \"user1\", \"review\": \"Great\"}}",
+        "{\"productId\": 1, \"entry\": {\"username\": \"user2\", \"review\": \"Good\"}}",
+        "",
+        "{\"productId\": 2, \"entry\": {\"username\": \"user3\", \"review\": \"Bad\"}}"));
+
+    Assertions.assertEquals(3, result.getReceived(), "3 records should have been received");
+    Assertions.assertEquals(3, result.getImported(), "3 records should have been imported");
+    Assertions.assertEquals(0, result.getFailed(), "No records should have failed");
+
+    // The first batch holds both entries for product 1, the second the entry for product 2
+    ArgumentCaptor<Map<Integer, List<ReviewEntry>>> batches = ArgumentCaptor.forClass(Map.class);
+    verify(repository, times(2)).appendEntries(batches.capture());
+    Assertions.assertEquals(2, batches.getAllValues().get(0).get(1).size(), "Product 1 should have 2 entries");
+    Assertions.assertEquals(1, batches.getAllValues().get(1).get(2).size(), "Product 2 should have 1 entry");
+    Assertions.assertNotNull(batches.getAllValues().get(0).get(1).get(0).getDate(), "Entries should be dated");
+  }
+
+  @Test
+  @DisplayName("Test import reports invalid records and failed writes")
+  void testImportEntriesErrors() throws Exception {
+    doReturn(Map.of(2, "write failed")).when(repository).appendEntries(any());
+
+    BulkImportResult result = service.importEntries(ndjson(
+        "{\"productId\": 1, \"entry\": {\"username\": \"user1\", \"review\": \"Great\"}}",
+        "{\"productId\": 1, \"entry\": {\"username\": \"user2\"}}",
+        "not json",
+        "{\"productId\": 2, \"entry\": {\"username\": \"user3\", \"review\": \"Bad\"}}"));
+
+    Assertions.assertEquals(4, result.getReceived(), "4 records should have been received");
+    Assertions.assertEquals(1, result.getImported(), "1 record should have been imported");
+    Assertions.assertEquals(3, result.getFailed(), "3 records should have failed");
+    Assertions.assertEquals(2, result.getErrors().get(0).getLine(), "Line 2 has no review");
+    Assertions.assertEquals(3, result.getErrors().get(1).getLine(), "Line 3 is malformed");
+    Assertions.assertEquals(4, result.getErrors().get(2).getLine(), "Line 4 failed to write");
+    Assertions.assertEquals("write failed", result.getErrors().get(2).getMessage());
+  }
+
+  private static ByteArrayInputStream ndjson(String... lines) {
+    return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -1,5 +1,6 @@
 package com.globomantics.reviews.service;
 
+import com.globomantics.reviews.events.ReviewEventPublisher;
 import com.globomantics.reviews.model.Review;
 import com.globomantics.reviews.model.ReviewEntry;
 import com.globomantics.reviews.repository.ReviewRepository;
@@ -8,14 +9,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 class ReviewServiceTest {
   /**
@@ -28,10 +34,16 @@ class ReviewServiceTest {
    */
   private ReviewRepository repository;
 
+  /**
+   * A mock version of the ReviewEventPublisher for use in our tests.
+   */
+  private ReviewEventPublisher eventPublisher;
+
   @BeforeEach
   void setup() {
     this.repository = mock(ReviewRepository.class);
-    this.service = new ReviewServiceImpl(repository);
+    this.eventPublisher = mock(ReviewEventPublisher.class);
+    this.service = new ReviewServiceImpl(repository, new ReviewCache(100, Duration.ofMinutes(5)), eventPublisher);
   }
 
   @Test
@@ -81,7 +93,7 @@ class ReviewServiceTest {
   @Test
   @DisplayName("Test save review")
   void testSave() {
-    Review mockReview = new Review("reviewId", 1, 1);
+    Review mockReview = new Review(1);
     doReturn(mockReview).when(repository).save(any());
 
     Review returnedReview = service.save(mockReview);
@@ -90,4 +102,151 @@ class ReviewServiceTest {
     Assertions.assertEquals(1, returnedReview.getVersion().intValue(),
         "The version for a new review should be 1");
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("Test saving an existing review increments its version")
+  void testSaveExistingReview() {
+    Review mockReview = new Review("reviewId", 1, 3);
+    doReturn(new Review("reviewId", 1, 4)).when(repository).replace(mockReview);
+
+    Review returnedReview = service.save(mockReview);
+
+    Assertions.assertEquals(4, returnedReview.getVersion().intValue(),
+        "Saving an existing review should increment its stored version");
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("Test findByProductId is cached")
+  void testFindByProductIdCached() {
+    // Setup our mock
+    Review mockReview = new Review("reviewId", 1, 1);
+    doReturn(Optional.of(mockReview)).when(repository).findByProductId(1);
+
+    // Execute the service call twice
+    Optional<Review> firstReview = service.findByProductId(1);
+    Optional<Review> secondReview = service.findByProductId(1);
+
+    // Assert that the repository was only queried once
+    Assertions.assertTrue(firstReview.isPresent(), "Review was not found");
+    Assertions.assertTrue(secondReview.isPresent(), "Review was not found");
+    Assertions.assertEquals("reviewId", secondReview.get().getId(), "Review ID should be reviewId");
+    verify(repository, times(1)).findByProductId(1);
+  }
+
+  @Test
+  @DisplayName("Test findByProductId returns copies of cached reviews")
+  void testFindByProductIdReturnsCopies() {
+    // Setup our mock
+    Review mockReview = new Review("reviewId", 1, 1);
+    doReturn(Optional.of(mockReview)).when(repository).findByProductId(1);
+
+    // Modify the returned review without saving it
+    service.findByProductId(1).get().getEntries().add(new ReviewEntry("test-user", "Great product"));
+
+    // The cached review should be unchanged
+    Assertions.assertEquals(0, service.findByProductId(1).get().getEntries().size(),
+        "The cached review should not have been modified");
+  }
+
+  @Test
+  @DisplayName("Test save evicts the cached review")
+  void testSaveEvictsCachedReview() {
+    // Setup our mock
+    Review mockReview = new Review("reviewId", 1, 1);
+    doReturn(Optional.empty()).when(repository).findByProductId(1);
+    doReturn(mockReview).when(repository).replace(any());
+
+    // Cache the miss, then save a review for the product
+    Assertions.assertFalse(service.findByProductId(1).isPresent(), "Review was found, when it shouldn't be");
+    service.save(mockReview);
+
+    // The next lookup should go back to the repository
+    doReturn(Optional.of(mockReview)).when(repository).findByProductId(1);
+    Assertions.assertTrue(service.findByProductId(1).isPresent(), "Review was not found");
+    verify(repository, times(2)).findByProductId(1);
+  }
+
+  @Test
+  @DisplayName("Test delete evicts the cached review")
+  void testDeleteEvictsCachedReview() {
+    // Setup our mock
+    Review mockReview = new Review("reviewId", 1, 1);
+    doReturn(Optional.of(mockReview)).when(repository).findByProductId(1);
+
+    // Cache the review, then delete it
+    service.findByProductId(1);
+    service.delete("reviewId");
+
+    // The next lookup should go back to the repository
+    doReturn(Optional.empty()).when(repository).findByProductId(1);
+    Assertions.assertFalse(service.findByProductId(1).isPresent(), "Review was found, when it shouldn't be");
+    verify(repository, times(2)).findByProductId(1);
+  }
+
+  @Test
+  @DisplayName("Test update review")
+  void testUpdate() {
+    Review mockReview = new Review("reviewId", 1, 2);
+    doReturn(Optional.of(new Review("reviewId", 1, 3))).when(repository).updateIfVersionMatches(mockReview);
+
+    Optional<Review> returnedReview = service.update(mockReview);
+
+    Assertions.assertTrue(returnedReview.isPresent(), "The review should have been updated");
+    Assertions.assertEquals(3, returnedReview.get().getVersion().intValue(),
+        "The version of the updated review should be 3");
+  }
+
+  @Test
+  @DisplayName("Test update review version mismatch")
+  void testUpdateVersionMismatch() {
+    Review mockReview = new Review("reviewId", 1, 2);
+    doReturn(Optional.empty()).when(repository).updateIfVersionMatches(mockReview);
+
+    Optional<Review> returnedReview = service.update(mockReview);
+
+    Assertions.assertFalse(returnedReview.isPresent(), "The review should not have been updated");
+  }
+
+  @Test
+  @DisplayName("Test save publishes entries of a new review")
+  void testSavePublishesEntriesAdded() {
+    Review newReview = new Review(1);
+    newReview.getEntries().add(new ReviewEntry("test-user", "Great product"));
+    Review savedReview = new Review("reviewId", 1, 1);
+    savedReview.getEntries().addAll(newReview.getEntries());
+    doReturn(savedReview).when(repository).save(any());
+
+    service.save(newReview);
+
+    verify(eventPublisher).entriesAdded("reviewId", 1, savedReview.getEntries());
+  }
+
+  @Test
+  @DisplayName("Test addEntry appends in the database and evicts the cached review")
+  void testAddEntry() {
+    ReviewEntry entry = new ReviewEntry("test-user", "Great product");
+    Review cachedReview = new Review("reviewId", 1, 1);
+    Review appendedReview = new Review("reviewId", 1, 2);
+    appendedReview.getEntries().add(entry);
+    doReturn(Optional.of(cachedReview)).when(repository).findByProductId(1);
+    doReturn(appendedReview).when(repository).appendEntry(1, entry);
+
+    service.findByProductId(1);
+    Review returnedReview = service.addEntry(1, entry);
+
+    Assertions.assertEquals(2, returnedReview.getVersion().intValue(), "The append should increment the version");
+    service.findByProductId(1);
+    verify(repository, times(2)).findByProductId(1);
+    verify(repository, never()).save(any());
+    verify(eventPublisher).entriesAdded("reviewId", 1, Collections.singletonList(entry));
+  }
+
+  @Test
+  @DisplayName("Test delete publishes review deleted")
+  void testDeletePublishesReviewDeleted() {
+    service.delete("reviewId");
+
+    verify(eventPublisher).reviewDeleted("reviewId");
+  }
+}